@@ -0,0 +1,82 @@
+package benchmark;
+
+import model.DrumTrackList;
+import model.EventLog;
+import model.StepPattern;
+import org.openjdk.jmh.annotations.*;
+import persistence.BinaryReader;
+import persistence.BinaryWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// JMH benchmarks for saving a project in the binary format and loading it back, through a temporary file, to compare
+// with JsonBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class BinaryBenchmark {
+    @Param({"4", "16", "64"})
+    private int instruments;
+
+    @Param({"16", "64", "256"})
+    private int steps;
+
+    @Param({"false", "true"})
+    private boolean compress;
+
+    private DrumTrackList tracks;
+    private Path file;
+    private BinaryWriter writer;
+    private BinaryReader reader;
+
+    // MODIFIES: this
+    // EFFECTS: builds the project and saves it to a temporary file, for read() to load
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        tracks = Projects.build(instruments, steps);
+        file = Files.createTempFile("drum-machine-bench", ".dmp");
+        writer = new BinaryWriter(file.toString(), compress);
+        reader = new BinaryReader(file.toString());
+        write();
+    }
+
+    // MODIFIES: EventLog
+    // EFFECTS: empties the event log, so that its growth does not leak from one iteration into the next
+    @Setup(Level.Iteration)
+    public void clearLog() {
+        EventLog.getInstance().clear();
+    }
+
+    // EFFECTS: deletes the temporary file
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    // MODIFIES: file
+    // EFFECTS: saves the project to the file
+    @Benchmark
+    public void write() throws IOException {
+        writer.open();
+        writer.write(tracks);
+        writer.close();
+    }
+
+    // EFFECTS: loads the whole project from the file
+    @Benchmark
+    public DrumTrackList read() throws Exception {
+        return reader.read();
+    }
+
+    // EFFECTS: maps the file and decodes only its last instrument
+    @Benchmark
+    public StepPattern readLast() throws IOException {
+        return reader.load().getPattern(instruments - 1);
+    }
+}
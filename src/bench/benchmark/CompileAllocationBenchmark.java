@@ -0,0 +1,107 @@
+package benchmark;
+
+import model.DrumTrackList;
+import model.Instrument;
+
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Track;
+import java.lang.management.ManagementFactory;
+
+// Measures the bytes allocated by compiling a large project into MIDI tracks, comparing the old approach of a new
+// ShortMessage and MidiEvent for every step (rests included) with DrumTrackList's shared, cached events. Cached
+// compiles only touch steps whose event differs, so any remaining allocation is the Track's own bookkeeping.
+// Run with: java -cp <classes> benchmark.CompileAllocationBenchmark [instruments] [steps] [rounds]
+public class CompileAllocationBenchmark {
+    private static final int DEFAULT_INSTRUMENTS = 64;
+    private static final int DEFAULT_STEPS = 256;
+    private static final int DEFAULT_ROUNDS = 20;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final DrumTrackList tracks;
+    private final int rounds;
+
+    // EFFECTS: builds a project of the given size, with a note on every other step of every instrument
+    public CompileAllocationBenchmark(int instrumentCount, int steps, int rounds) throws Exception {
+        this.rounds = rounds;
+        StringBuilder notes = new StringBuilder();
+        for (int i = 0; i < steps; i++) {
+            notes.append(i % 2 == 0 ? 'x' : '-');
+        }
+        tracks = new DrumTrackList(120);
+        for (int i = 0; i < instrumentCount; i++) {
+            tracks.addTrack(new Instrument(35 + i % 47, notes.toString()));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int instrumentCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_INSTRUMENTS;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_STEPS;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ROUNDS;
+        CompileAllocationBenchmark benchmark = new CompileAllocationBenchmark(instrumentCount, steps, rounds);
+
+        System.out.printf("Compiling %d instruments x %d steps, %d rounds%n", instrumentCount, steps, rounds);
+        System.out.printf("per-step allocation (before): %,d bytes per compile%n", benchmark.measureLegacy());
+        System.out.printf("cached events (after):        %,d bytes per compile%n", benchmark.measureCached());
+    }
+
+    // EFFECTS: returns the average bytes allocated per compile by DrumTrackList.compile()
+    public long measureCached() {
+        tracks.compile();
+        long start = allocatedBytes();
+        for (int i = 0; i < rounds; i++) {
+            tracks.compile();
+        }
+        return (allocatedBytes() - start) / rounds;
+    }
+
+    // EFFECTS: returns the average bytes allocated per compile by the old per-step compile, not counting the tracks
+    public long measureLegacy() throws Exception {
+        Sequence sequence = new Sequence(Sequence.PPQ, 4);
+        Track[] legacyTracks = new Track[tracks.getInstruments().size()];
+        for (int i = 0; i < legacyTracks.length; i++) {
+            legacyTracks[i] = sequence.createTrack();
+            compileLegacy(legacyTracks[i], tracks.getInstruments().get(i));
+        }
+        long allocated = 0;
+        for (int round = 0; round < rounds; round++) {
+            clear(legacyTracks);
+            long start = allocatedBytes();
+            for (int i = 0; i < legacyTracks.length; i++) {
+                compileLegacy(legacyTracks[i], tracks.getInstruments().get(i));
+            }
+            allocated += allocatedBytes() - start;
+        }
+        return allocated / rounds;
+    }
+
+    // EFFECTS: returns the total bytes allocated so far by the current thread
+    private long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // MODIFIES: track
+    // EFFECTS: compiles instrument into track the way DrumTrackList did before events were cached
+    private void compileLegacy(Track track, Instrument instrument) throws Exception {
+        int n = 1;
+        for (char c : instrument.getInstrumentNotesList()) {
+            ShortMessage message = new ShortMessage();
+            message.setMessage(c == 'x' ? ShortMessage.NOTE_ON : ShortMessage.NOTE_OFF, 9,
+                    instrument.getInstrumentNumber(), 100);
+            track.add(new MidiEvent(message, n));
+            n += 1;
+        }
+    }
+
+    // MODIFIES: legacyTracks
+    // EFFECTS: removes every event but the end of track from each track
+    private void clear(Track[] legacyTracks) {
+        for (Track track : legacyTracks) {
+            while (track.size() > 1) {
+                track.remove(track.get(track.size() - 2));
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package benchmark;
+
+import model.DrumTrackList;
+import model.EventLog;
+import model.Instrument;
+import model.StepPattern;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// JMH benchmarks for adding and removing tracks, and for replacing an instrument's notes, which compile an
+// instrument's pattern into MIDI events
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class DrumTrackListBenchmark {
+    @Param({"4", "16", "64"})
+    private int instruments;
+
+    @Param({"16", "64", "256", "1024"})
+    private int steps;
+
+    private DrumTrackList tracks;
+    private Instrument spare;
+    private StepPattern[] variations;
+    private int variation;
+
+    // MODIFIES: this
+    // EFFECTS: builds the project, and an extra instrument to add to and remove from it
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        tracks = Projects.build(instruments, steps);
+        spare = new Instrument(Projects.LOWEST_DRUM, Projects.notes(new Random(Projects.SEED + 1), steps));
+        StepPattern original = tracks.getInstruments().get(0).getPattern();
+        StepPattern changed = original.copy();
+        changed.toggle(steps / 2);
+        variations = new StepPattern[] {changed, original};
+    }
+
+    // MODIFIES: EventLog
+    // EFFECTS: empties the event log, so that its growth does not leak from one iteration into the next
+    @Setup(Level.Iteration)
+    public void clearLog() {
+        EventLog.getInstance().clear();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the spare instrument as a new track, then removes it again, leaving the project as it was
+    @Benchmark
+    public DrumTrackList addThenRemoveTrack() throws Exception {
+        tracks.addTrack(spare);
+        tracks.removeTrack(tracks.getInstruments().size() - 1);
+        return tracks;
+    }
+
+    // EFFECTS: builds the whole project from nothing, one track at a time
+    @Benchmark
+    public DrumTrackList buildProject() throws Exception {
+        return Projects.build(instruments, steps);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replaces the notes of the first instrument with a copy differing in one step, or back again, as
+    //          loading a pattern or undoing does
+    @Benchmark
+    public DrumTrackList replaceNotes() {
+        variation ^= 1;
+        tracks.getInstruments().get(0).setPattern(variations[variation].copy());
+        return tracks;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: recompiles every track of the project
+    @Benchmark
+    public DrumTrackList compile() {
+        tracks.compile();
+        return tracks;
+    }
+}
@@ -0,0 +1,53 @@
+package benchmark;
+
+import model.Event;
+import model.EventKind;
+import model.EventLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// JMH benchmarks for logging events, from one thread and from several at once as happens while playing
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class EventLogBenchmark {
+    private EventLog log;
+    private int number = 36;
+
+    // MODIFIES: this
+    // EFFECTS: empties the event log, so that its growth does not leak from one iteration into the next
+    @Setup(Level.Iteration)
+    public void clearLog() {
+        log = EventLog.getInstance();
+        log.clear();
+    }
+
+    // MODIFIES: EventLog
+    // EFFECTS: logs a new typed event from a single thread
+    @Benchmark
+    public EventLog logEvent() {
+        log.logEvent(new Event(EventKind.INSTRUMENT_NUMBER_SET, number));
+        return log;
+    }
+
+    // MODIFIES: EventLog
+    // EFFECTS: logs a new event described by a concatenated string, as every event was before they were typed
+    @Benchmark
+    public EventLog logMessageEvent() {
+        log.logEvent(new Event("Set instrument number to " + number));
+        return log;
+    }
+
+    // MODIFIES: EventLog
+    // EFFECTS: logs a new event from four threads at once
+    @Benchmark
+    @Threads(4)
+    public EventLog logEventContended() {
+        log.logEvent(new Event(EventKind.INSTRUMENT_NUMBER_SET, number));
+        return log;
+    }
+}
@@ -0,0 +1,57 @@
+package benchmark;
+
+import model.EventLog;
+import model.Instrument;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// JMH benchmarks for creating instruments and replacing their notes
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class InstrumentBenchmark {
+    @Param({"16", "64", "256"})
+    private int steps;
+
+    private String notes;
+    private String otherNotes;
+    private Instrument instrument;
+    private boolean flip;
+
+    // MODIFIES: this
+    // EFFECTS: draws two different patterns of the given length, and an instrument playing the first
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(Projects.SEED);
+        notes = Projects.notes(random, steps);
+        otherNotes = Projects.notes(random, steps);
+        instrument = new Instrument(Projects.LOWEST_DRUM, notes);
+    }
+
+    // MODIFIES: EventLog
+    // EFFECTS: empties the event log, so that its growth does not leak from one iteration into the next
+    @Setup(Level.Iteration)
+    public void clearLog() {
+        EventLog.getInstance().clear();
+    }
+
+    // EFFECTS: creates an instrument from a pattern string
+    @Benchmark
+    public Instrument construct() {
+        return new Instrument(Projects.LOWEST_DRUM, notes);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replaces the instrument's notes, alternating between the two patterns so that each call changes them
+    @Benchmark
+    public Instrument setInstrumentNotes() {
+        flip = !flip;
+        instrument.setInstrumentNotes(flip ? otherNotes : notes);
+        return instrument;
+    }
+}
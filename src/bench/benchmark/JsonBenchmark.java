@@ -0,0 +1,82 @@
+package benchmark;
+
+import model.DrumTrackList;
+import model.EventLog;
+import org.openjdk.jmh.annotations.*;
+import persistence.JsonReader;
+import persistence.JsonWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// JMH benchmarks for saving a project to JSON and loading it back, through a temporary file
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class JsonBenchmark {
+    @Param({"4", "16", "64"})
+    private int instruments;
+
+    @Param({"16", "64", "256"})
+    private int steps;
+
+    private DrumTrackList tracks;
+    private Path file;
+    private JsonWriter writer;
+    private JsonWriter compactWriter;
+    private JsonReader reader;
+
+    // MODIFIES: this
+    // EFFECTS: builds the project and saves it to a temporary file, for read() to load
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        tracks = Projects.build(instruments, steps);
+        file = Files.createTempFile("drum-machine-bench", ".json");
+        writer = new JsonWriter(file.toString());
+        compactWriter = new JsonWriter(file.toString(), true);
+        reader = new JsonReader(file.toString());
+        write();
+    }
+
+    // MODIFIES: EventLog
+    // EFFECTS: empties the event log, so that its growth does not leak from one iteration into the next
+    @Setup(Level.Iteration)
+    public void clearLog() {
+        EventLog.getInstance().clear();
+    }
+
+    // EFFECTS: deletes the temporary file
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    // MODIFIES: file
+    // EFFECTS: saves the project to the file, as the GUI's save button does
+    @Benchmark
+    public void write() throws IOException {
+        writer.open();
+        writer.write(tracks);
+        writer.close();
+    }
+
+    // MODIFIES: file
+    // EFFECTS: saves the project to the file without any white space
+    @Benchmark
+    public void writeCompact() throws IOException {
+        compactWriter.open();
+        compactWriter.write(tracks);
+        compactWriter.close();
+    }
+
+    // EFFECTS: loads the project from the file, as the GUI's load button does
+    @Benchmark
+    public DrumTrackList read() throws Exception {
+        return reader.read();
+    }
+}
@@ -0,0 +1,79 @@
+package benchmark;
+
+import model.DrumTrackList;
+import model.EventLog;
+import model.Instrument;
+import model.StepPattern;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// JMH benchmarks for compiling a project whose every step has a velocity, accent, probability and offset, e.g. ten
+// instruments of 1024 steps, over 10,000 steps in all. Run with -prof gc to check that compiling allocates nothing.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class LanesBenchmark {
+    private static final int TICKS_PER_STEP = 24;
+
+    @Param({"10"})
+    private int instruments;
+
+    @Param({"64", "1024"})
+    private int steps;
+
+    private DrumTrackList tracks;
+    private Instrument first;
+    private StepPattern[] variations;
+    private int variation;
+
+    // MODIFIES: this
+    // EFFECTS: builds the project, and two versions of its first pattern differing in the velocity of one step
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        tracks = Projects.buildWithLanes(instruments, steps, TICKS_PER_STEP);
+        first = tracks.getInstruments().get(0);
+        StepPattern original = first.getPattern();
+        StepPattern changed = original.copy();
+        changed.set(steps / 2, true);
+        changed.setVelocity(steps / 2, original.getVelocity(steps / 2) % StepPattern.MAX_VELOCITY + 1);
+        variations = new StepPattern[] {changed, original};
+    }
+
+    // MODIFIES: EventLog
+    // EFFECTS: empties the event log, so that its growth does not leak from one iteration into the next
+    @Setup(Level.Iteration)
+    public void clearLog() {
+        EventLog.getInstance().clear();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: recompiles every track of the project, checking every note and lane against what was compiled
+    @Benchmark
+    public DrumTrackList compile() {
+        tracks.compile();
+        return tracks;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: changes the velocity of one step of the first instrument, which patches its one event
+    @Benchmark
+    public DrumTrackList setVelocity() {
+        variation ^= 1;
+        first.setVelocity(steps / 2, variations[variation].getVelocity(steps / 2));
+        return tracks;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replaces the notes and lanes of the first instrument with a copy differing in one step, or back again,
+    //          as loading a pattern or undoing does
+    @Benchmark
+    public DrumTrackList replaceNotes() {
+        variation ^= 1;
+        first.setPattern(variations[variation].copy());
+        return tracks;
+    }
+}
@@ -0,0 +1,94 @@
+package benchmark;
+
+import model.DrumTrackList;
+import model.EventLog;
+import org.openjdk.jmh.annotations.*;
+import persistence.PatternLibrary;
+import persistence.PatternLibraryReader;
+import persistence.PatternLibraryWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// JMH benchmarks for opening a pattern library and looking entries up in it, to show that neither depends much on how
+// many entries it holds
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class PatternLibraryBenchmark {
+    private static final int BEATS = 16;
+    private static final int TAGS = 100;
+
+    @Param({"1000", "1000000"})
+    private int entries;
+
+    private Path file;
+    private PatternLibraryReader reader;
+    private PatternLibrary library;
+    private Random random;
+
+    // MODIFIES: this
+    // EFFECTS: builds a library of the given number of entries, cycling through a few generated beats at many tempos
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        file = Files.createTempFile("drum-machine-bench", ".dpl");
+        DrumTrackList[] beats = new DrumTrackList[BEATS];
+        for (int i = 0; i < BEATS; i++) {
+            beats[i] = Projects.build(4 + i, 16);
+        }
+        PatternLibraryWriter writer = new PatternLibraryWriter(file.toString());
+        writer.open();
+        for (int i = 0; i < entries; i++) {
+            DrumTrackList beat = beats[i % BEATS];
+            beat.setBPM(60 + i % 120);
+            writer.add(name(i), Collections.singletonList("tag" + i % TAGS), beat);
+        }
+        writer.close();
+        reader = new PatternLibraryReader(file.toString());
+        library = reader.load();
+        random = new Random(Projects.SEED);
+    }
+
+    // MODIFIES: EventLog
+    // EFFECTS: empties the event log, so that its growth does not leak from one iteration into the next
+    @Setup(Level.Iteration)
+    public void clearLog() {
+        EventLog.getInstance().clear();
+    }
+
+    // EFFECTS: deletes the temporary file
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    // EFFECTS: maps the library and checks its header
+    @Benchmark
+    public PatternLibrary open() throws IOException {
+        return reader.load();
+    }
+
+    // EFFECTS: finds a random entry by name
+    @Benchmark
+    public int[] findByName() throws IOException {
+        return library.findByName(name(random.nextInt(entries)));
+    }
+
+    // EFFECTS: finds a random entry by name and decodes it into a tracklist
+    @Benchmark
+    public DrumTrackList findAndLoad() throws Exception {
+        return library.load(library.findByName(name(random.nextInt(entries)))[0]);
+    }
+
+    // EFFECTS: returns the name of the i-th entry
+    private static String name(int i) {
+        return "beats/beat" + i;
+    }
+}
@@ -0,0 +1,60 @@
+package benchmark;
+
+import model.DrumTrackList;
+import model.Instrument;
+import model.StepPattern;
+
+import java.util.Random;
+
+// Builds the projects the JMH benchmarks run against. Notes come from a fixed seed, so every run, on every release,
+// measures exactly the same beats.
+final class Projects {
+    static final long SEED = 20211201L;
+    static final int BPM = 120;
+    static final int LOWEST_DRUM = 35;
+    static final int DRUM_COUNT = 47;
+
+    private Projects() {
+    }
+
+    // REQUIRES: steps > 0
+    // EFFECTS: returns a pattern of the given length with about a quarter of its steps on, drawn from random
+    static String notes(Random random, int steps) {
+        StringBuilder notes = new StringBuilder(steps);
+        for (int i = 0; i < steps; i++) {
+            notes.append(random.nextInt(4) == 0 ? 'x' : '-');
+        }
+        return notes.toString();
+    }
+
+    // REQUIRES: steps > 0
+    // EFFECTS: returns a track list of the given number of instruments, each with a pattern of the given length
+    static DrumTrackList build(int instruments, int steps) throws Exception {
+        Random random = new Random(SEED);
+        DrumTrackList tracks = new DrumTrackList(BPM);
+        for (int i = 0; i < instruments; i++) {
+            tracks.addTrack(new Instrument(LOWEST_DRUM + i % DRUM_COUNT, notes(random, steps)));
+        }
+        return tracks;
+    }
+
+    // REQUIRES: steps > 0
+    //           1 <= ticksPerStep <= DrumTrackList.MAX_TICKS_PER_STEP
+    // EFFECTS: returns a track list like build(instruments, steps), at ticksPerStep ticks to a step, with every step
+    //          of every instrument given a velocity, accent, probability and offset drawn from random
+    static DrumTrackList buildWithLanes(int instruments, int steps, int ticksPerStep) throws Exception {
+        Random random = new Random(SEED);
+        DrumTrackList tracks = new DrumTrackList(BPM, steps, ticksPerStep);
+        for (int i = 0; i < instruments; i++) {
+            StepPattern pattern = StepPattern.fromString(notes(random, steps));
+            for (int step = 0; step < steps; step++) {
+                pattern.setVelocity(step, 1 + random.nextInt(StepPattern.MAX_VELOCITY));
+                pattern.setAccent(step, random.nextInt(8) == 0);
+                pattern.setProbability(step, random.nextInt(StepPattern.MAX_PROBABILITY + 1));
+                pattern.setOffset(step, random.nextInt(2 * ticksPerStep - 1) - ticksPerStep + 1);
+            }
+            tracks.addTrack(new Instrument(LOWEST_DRUM + i % DRUM_COUNT, pattern));
+        }
+        return tracks;
+    }
+}
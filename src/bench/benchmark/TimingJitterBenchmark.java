@@ -0,0 +1,115 @@
+package benchmark;
+
+import model.DrumTrackList;
+import model.Instrument;
+import playback.StepScheduler;
+
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.MidiSystem;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.Sequencer;
+import javax.sound.midi.ShortMessage;
+import java.util.Arrays;
+
+// Measures how evenly notes are sent by the Java sequencer and by the dedicated StepScheduler. Both play a loop with
+// a note on every step into a receiver which records when each note arrives, and the benchmark reports how far the
+// gaps between notes stray from the length of a step. No sound device is needed, as nothing is synthesized.
+// Run with: java -cp <classes> benchmark.TimingJitterBenchmark [bpm] [seconds]
+public class TimingJitterBenchmark {
+    private static final int DEFAULT_BPM = 180;
+    private static final int DEFAULT_SECONDS = 10;
+
+    private final DrumTrackList tracks;
+    private final int seconds;
+    private final long stepNanos;
+
+    // EFFECTS: builds a one bar loop with a note on every step at the given tempo
+    public TimingJitterBenchmark(int bpm, int seconds) throws Exception {
+        this.seconds = seconds;
+        this.stepNanos = 60_000_000_000L / (bpm * 4L);
+        tracks = new DrumTrackList(bpm);
+        tracks.addTrack(new Instrument(42, "xxxxxxxxxxxxxxxx"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int bpm = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_BPM;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+        TimingJitterBenchmark benchmark = new TimingJitterBenchmark(bpm, seconds);
+
+        System.out.printf("Playing 16ths at %d bpm for %d s each (one step = %.3f ms)%n",
+                bpm, seconds, benchmark.stepNanos / 1e6);
+        benchmark.report("Java sequencer (before)", benchmark.measureSequencer());
+        benchmark.report("step scheduler (after) ", benchmark.measureScheduler());
+    }
+
+    // EFFECTS: returns the arrival times of the notes sent by the Java sequencer
+    public long[] measureSequencer() throws Exception {
+        Recorder recorder = new Recorder(seconds, stepNanos);
+        Sequencer sequencer = MidiSystem.getSequencer(false);
+        sequencer.open();
+        sequencer.getTransmitter().setReceiver(recorder);
+        sequencer.setSequence(tracks.getSequence());
+        sequencer.setLoopCount(Sequencer.LOOP_CONTINUOUSLY);
+        sequencer.setTempoInBPM(tracks.getBPM());
+        sequencer.start();
+        Thread.sleep(seconds * 1000L);
+        sequencer.stop();
+        sequencer.close();
+        return recorder.arrivals();
+    }
+
+    // EFFECTS: returns the arrival times of the notes sent by the step scheduler
+    public long[] measureScheduler() throws InterruptedException {
+        Recorder recorder = new Recorder(seconds, stepNanos);
+        StepScheduler scheduler = new StepScheduler(recorder);
+        scheduler.load(tracks);
+        scheduler.play();
+        Thread.sleep(seconds * 1000L);
+        scheduler.stop();
+        return recorder.arrivals();
+    }
+
+    // EFFECTS: prints how far the gaps between arrivals stray from one step, ignoring the first second of warm up
+    private void report(String label, long[] arrivals) {
+        int skip = (int) Math.min(arrivals.length - 1, 1_000_000_000L / stepNanos);
+        long[] errors = new long[Math.max(0, arrivals.length - skip - 1)];
+        for (int i = 0; i < errors.length; i++) {
+            errors[i] = Math.abs(arrivals[skip + i + 1] - arrivals[skip + i] - stepNanos);
+        }
+        Arrays.sort(errors);
+        if (errors.length == 0) {
+            System.out.printf("%s: no notes received%n", label);
+            return;
+        }
+        System.out.printf("%s: %d gaps, error p50 %.3f ms, p99 %.3f ms, max %.3f ms%n", label, errors.length,
+                errors[errors.length / 2] / 1e6, errors[errors.length * 99 / 100] / 1e6,
+                errors[errors.length - 1] / 1e6);
+    }
+
+    // Represents a receiver which records the arrival time of every note on in a preallocated array
+    private static class Recorder implements Receiver {
+        private final long[] times;
+        private int count;
+
+        // EFFECTS: makes room for a little more than the notes expected in the given time
+        Recorder(int seconds, long stepNanos) {
+            times = new long[(int) (seconds * 1_000_000_000L / stepNanos) * 2 + 16];
+        }
+
+        @Override
+        public synchronized void send(MidiMessage message, long timeStamp) {
+            if (message.getStatus() >> 4 == ShortMessage.NOTE_ON >> 4 && count < times.length) {
+                times[count++] = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+
+        // EFFECTS: returns the arrival times recorded so far
+        synchronized long[] arrivals() {
+            return Arrays.copyOf(times, count);
+        }
+    }
+}
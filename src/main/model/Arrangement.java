@@ -0,0 +1,96 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Represents a song made of sections played one after another at a single tempo. Iterating over an arrangement
+// yields the pattern of each bar in turn, working it out as it goes, so a song of any length is never expanded
+// into a list or sequence of all of its bars.
+public class Arrangement implements Iterable<DrumTrackList> {
+    private final List<Section> sections;
+    private int bpm;
+
+    // REQUIRES: bpm > 0
+    // EFFECTS: creates an empty arrangement with the given tempo
+    public Arrangement(int bpm) {
+        this.sections = new ArrayList<>();
+        this.bpm = bpm;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds section to the end of the song
+    public void addSection(Section section) {
+        sections.add(section);
+        EventLog.getInstance().logEvent(new Event(EventKind.SECTION_ADDED, section.getRepeats()));
+    }
+
+    // REQUIRES: 0 <= index < getSections().size()
+    // MODIFIES: this
+    // EFFECTS: removes the section at index from the song
+    public void removeSection(int index) {
+        sections.remove(index);
+        EventLog.getInstance().logEvent(new Event(EventKind.SECTION_REMOVED, index));
+    }
+
+    // EFFECTS: returns the sections of the song
+    public List<Section> getSections() {
+        return sections;
+    }
+
+    // EFFECTS: returns the tempo of the song
+    public int getBpm() {
+        return bpm;
+    }
+
+    // REQUIRES: bpm > 0
+    // MODIFIES: this
+    // EFFECTS: changes the tempo of the song
+    public void setBpm(int bpm) {
+        this.bpm = bpm;
+    }
+
+    // EFFECTS: returns the number of bars in the song
+    public long getLengthInBars() {
+        long bars = 0;
+        for (Section section : sections) {
+            bars += section.getRepeats();
+        }
+        return bars;
+    }
+
+    // EFFECTS: returns an iterator over the pattern of every bar in the song, in order
+    @Override
+    public Iterator<DrumTrackList> iterator() {
+        return new BarIterator();
+    }
+
+    // Represents a position in the song, stepping through the repeats of each section in turn
+    private class BarIterator implements Iterator<DrumTrackList> {
+        private int section;
+        private long repeat;
+
+        // EFFECTS: returns true if there are bars left to play
+        @Override
+        public boolean hasNext() {
+            while (section < sections.size() && repeat >= sections.get(section).getRepeats()) {
+                section++;
+                repeat = 0;
+            }
+            return section < sections.size();
+        }
+
+        // MODIFIES: this
+        // EFFECTS: returns the pattern of the next bar and moves past it
+        @Override
+        public DrumTrackList next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            DrumTrackList pattern = sections.get(section).patternFor(repeat);
+            repeat++;
+            return pattern;
+        }
+    }
+}
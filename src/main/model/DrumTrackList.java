@@ -1,27 +1,62 @@
 package model;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
 import javax.sound.midi.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 // Represents a sequencer with a list of instruments and their notes. Translates instruments
-// into MIDI tracks and adds them into a sequence, with beats per minute.
+// into MIDI tracks and adds them into a sequence, with beats per minute. The sequence is kept live:
+// changes to an instrument in the list patch only the affected events of its track. Observers are told of every
+// change to the list, e.g. to journal it.
+// Each project has a number of steps, which new instruments start with, and a resolution in ticks per step; there
+// are always four steps to a quarter note. Every track remembers the notes it was last compiled from, and a change is
+// patched in by walking only the steps where the old and new notes differ, a word of 64 steps at a time, so compiling
+// costs time in proportion to the notes which change, not to the number of steps.
+// A note is played at the velocity of its step, raised if accented, and moved off the grid by the step's offset, which
+// is kept within the step's ticks. The compiled sequence is fixed, so it plays every note with a probability above
+// zero; only the step scheduler rolls each note's probability as it plays.
+
+public class DrumTrackList implements InstrumentObserver {
+    public static final int VELOCITY = 100;
+    public static final int STEPS_PER_QUARTER = 4;
+    public static final int MAX_BPM = 999;
+    public static final int DEFAULT_STEPS = 8;
+    public static final int MAX_STEPS = 1024;
+    public static final int DEFAULT_TICKS_PER_STEP = 1;
+    public static final int MAX_TICKS_PER_STEP = 240;
 
-public class DrumTrackList {
     private final Sequence sequence;
     private final ArrayList<Instrument> instruments;
     private final ArrayList<Track> tracks;
+    private final ArrayList<Compiled> compiled;
+    private final List<TrackListObserver> observers;
+    private final int ticksPerStep;
+    private int steps;
     private int bpm;
 
     // REQUIRES: bpm >= 0
     // MODIFIES: this
-    // EFFECTS: initializes the sequence, the list of images and tracks, and beats per minute
+    // EFFECTS: initializes the sequence, the list of images and tracks, and beats per minute, with DEFAULT_STEPS steps
+    //          of DEFAULT_TICKS_PER_STEP ticks
     public DrumTrackList(int bpm) throws InvalidMidiDataException {
-        sequence = new Sequence(Sequence.PPQ, 4);
+        this(bpm, DEFAULT_STEPS, DEFAULT_TICKS_PER_STEP);
+    }
+
+    // REQUIRES: bpm >= 0
+    //           1 <= steps <= MAX_STEPS
+    //           1 <= ticksPerStep <= MAX_TICKS_PER_STEP
+    // MODIFIES: this
+    // EFFECTS: initializes the sequence, at ticksPerStep ticks to a step, the list of images and tracks, beats per
+    //          minute and the number of steps new instruments start with
+    public DrumTrackList(int bpm, int steps, int ticksPerStep) throws InvalidMidiDataException {
+        sequence = new Sequence(Sequence.PPQ, STEPS_PER_QUARTER * ticksPerStep);
         instruments = new ArrayList<>();
         tracks = new ArrayList<>();
+        compiled = new ArrayList<>();
+        observers = new ArrayList<>();
+        this.ticksPerStep = ticksPerStep;
+        this.steps = steps;
         this.bpm = bpm;
     }
 
@@ -42,27 +77,24 @@ public class DrumTrackList {
 
     // REQUIRES: instrument have grammatical notes
     //           35 <= instrument number <= 81
-    // MODIFIES: this
-    // EFFECTS: creates a new track for the instrument and adds it to the list of tracks
+    // MODIFIES: this, instrument
+    // EFFECTS: cuts the instrument short or pads it with rests to the number of steps, creates a new track for it and
+    //          adds it to the list of tracks; later changes to the instrument are patched into the track
     public void addTrack(Instrument instrument) throws Exception {
+        instrument.resize(steps);
         Track track = sequence.createTrack();
         tracks.add(track);
         instruments.add(instrument);
+        Compiled notes = new Compiled(instrument.getInstrumentNumber());
+        compiled.add(notes);
+        patch(track, notes, instrument.getPattern());
+        instrument.addObserver(this);
 
-        int n = 1;
-        for (char i : instrument.getInstrumentNotesList()) {
-
-            if (i == 'x') {
-                track.add(makeEvent(instrument.getInstrumentNumber(), true, n));
-            } else {
-                track.add(makeEvent(instrument.getInstrumentNumber(), false, n));
-            }
-            n += 1;
+        EventLog.getInstance().logEvent(new Event(EventKind.TRACK_ADDED, instrument.getInstrumentNumber(),
+                instrument.getPattern().length(), null));
+        for (TrackListObserver observer : observers) {
+            observer.trackAdded(this, instruments.size() - 1);
         }
-
-        EventLog.getInstance().logEvent(new Event("Added instrument number "
-                + instrument.getInstrumentNumber() + " playing " + instrument.getInstrumentNotesString() + " to the"
-                + " track list"));
     }
 
     // REQUIRES: 0 <= instrumentNumber <= instruments.length()
@@ -71,28 +103,119 @@ public class DrumTrackList {
     public void removeTrack(int instrumentNumber) {
         Track track = tracks.get(instrumentNumber);
         tracks.remove(instrumentNumber);
-        instruments.remove(instrumentNumber);
+        compiled.remove(instrumentNumber);
+        instruments.remove(instrumentNumber).removeObserver(this);
         sequence.deleteTrack(track);
 
-        EventLog.getInstance().logEvent(new Event("Removed instrument number " + instrumentNumber));
+        EventLog.getInstance().logEvent(new Event(EventKind.TRACK_REMOVED, instrumentNumber));
+        for (TrackListObserver observer : observers) {
+            observer.trackRemoved(this, instrumentNumber);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replaces the event of the changed step in the track belonging to instrument, unless it is the same
+    //          one, then tells observers
+    @Override
+    public void noteChanged(Instrument instrument, int step) {
+        int index = instruments.indexOf(instrument);
+        Track track = tracks.get(index);
+        Compiled notes = compiled.get(index);
+        StepPattern pattern = instrument.getPattern();
+        notes.pattern.copyStep(pattern, step);
+        notes.set(track, step, makeEvent(notes.number, pattern, step));
+        for (TrackListObserver observer : observers) {
+            observer.noteChanged(this, index, step);
+        }
+    }
+
+    // MODIFIES: this, instrument
+    // EFFECTS: cuts the instrument's new notes short or pads them with rests to the number of steps, replaces every
+    //          event in the track belonging to it, then tells observers
+    @Override
+    public void instrumentChanged(Instrument instrument) {
+        int index = instruments.indexOf(instrument);
+        instrument.resize(steps);
+        recompileTrack(index);
+        for (TrackListObserver observer : observers) {
+            observer.instrumentChanged(this, index);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds observer to be notified of changes to this track list
+    public void addObserver(TrackListObserver observer) {
+        observers.add(observer);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops notifying observer of changes to this track list
+    public void removeObserver(TrackListObserver observer) {
+        observers.remove(observer);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replaces the events of every track with ones compiled from the current instruments
+    public void compile() {
+        for (int i = 0; i < tracks.size(); i++) {
+            recompileTrack(i);
+        }
+    }
+
+    // REQUIRES: 0 <= index < tracks.size()
+    // MODIFIES: this
+    // EFFECTS: compiles the instrument at index into its track again, replacing only the events which differ
+    private void recompileTrack(int index) {
+        Instrument instrument = instruments.get(index);
+        Compiled notes = compiled.get(index);
+        if (notes.number != instrument.getInstrumentNumber()) {
+            patch(tracks.get(index), notes, new StepPattern(0));
+            notes.number = instrument.getInstrumentNumber();
+        }
+        patch(tracks.get(index), notes, instrument.getPattern());
+    }
+
+    // MODIFIES: track, notes
+    // EFFECTS: replaces in track the events of the steps whose notes or lanes differ between pattern and notes, and
+    //          then remembers pattern as the notes compiled; ends the track after the last step of pattern, so that
+    //          the loop keeps its length
+    private void patch(Track track, Compiled notes, StepPattern pattern) {
+        int changed = pattern.nextDifference(notes.pattern, 0);
+        if (changed < 0 && pattern.length() == notes.pattern.length()) {
+            return;
+        }
+        for (int step = changed; step >= 0; step = pattern.nextDifference(notes.pattern, step + 1)) {
+            notes.set(track, step, step < pattern.length() ? makeEvent(notes.number, pattern, step) : null);
+        }
+        notes.pattern = pattern.copy();
+        if (notes.events.length != pattern.length()) {
+            notes.events = Arrays.copyOf(notes.events, pattern.length());
+        }
+
+        // the end of track event is always last, and there are no events after the final step
+        track.get(track.size() - 1).setTick((long) pattern.length() * ticksPerStep);
     }
 
     // REQUIRES: 35 <= instrumentNumber <= 81
-    //           0 <= velocity <= 100
-    //           0 <= tick
-    // EFFECTS: returns a midi event with (a) the instrument, (b) the velocity of note hit, (c) time of event in ticks
+    //           0 <= step < pattern.length()
+    // EFFECTS: returns a midi event with (a) the instrument, (b) the velocity of note hit, (c) time of event in ticks,
+    //          at the start of the given step moved by its offset, but never before the first tick; returns null if
+    //          the step is a rest or is never played. The event and its message are shared, so that compiling
+    //          allocates nothing
     // MODELLED ON / INSPIRED BY FUNCTIONALITY FOUND ON EXTERNAL SOURCE: https://www.geeksforgeeks.org/java-midi/
-    private MidiEvent makeEvent(int instrumentNumber, boolean on, int tick) throws Exception {
-        MidiEvent event;
-        ShortMessage a = new ShortMessage();
-        if (on) {
-            a.setMessage(144, 9, instrumentNumber, 100);
-        } else {
-            a.setMessage(128, 9, instrumentNumber, 100);
+    private MidiEvent makeEvent(int instrumentNumber, StepPattern pattern, int step) {
+        if (!pattern.get(step) || pattern.getProbability(step) == 0) {
+            return null;
         }
-        event = new MidiEvent(a, tick);
+        long tick = Math.max(0, (long) step * ticksPerStep + offsetTicks(pattern.getOffset(step), ticksPerStep));
+        return NoteMessage.of(true, instrumentNumber, pattern.getPlayedVelocity(step)).eventAt(tick);
+    }
 
-        return event;
+    // REQUIRES: ticksPerStep >= 1
+    // EFFECTS: returns offset kept within the ticks of one step, so that a note is never moved as far as the next or
+    //          previous step
+    public static int offsetTicks(int offset, int ticksPerStep) {
+        return Math.max(1 - ticksPerStep, Math.min(ticksPerStep - 1, offset));
     }
 
     // EFFECTS: returns BPM of the drum machine
@@ -100,42 +223,137 @@ public class DrumTrackList {
         return this.bpm;
     }
 
-    // REQUIRES newBPM >= 0
+    // EFFECTS: returns the number of steps new instruments start with
+    public int getSteps() {
+        return steps;
+    }
+
+    // EFFECTS: returns the number of MIDI ticks in each step
+    public int getTicksPerStep() {
+        return ticksPerStep;
+    }
+
+    // REQUIRES: 1 <= newSteps <= MAX_STEPS
     // MODIFIES: this
-    // EFFECTS: changes BPM of the drum machine
-    public void setBPM(int newBPM) {
-        this.bpm = newBPM;
+    // EFFECTS: changes the number of steps, cutting short every instrument or padding it with rests to match, and
+    //          tells observers once for the whole change
+    public void setSteps(int newSteps) {
+        this.steps = newSteps;
+        for (int i = 0; i < instruments.size(); i++) {
+            instruments.get(i).resize(newSteps);
+            recompileTrack(i);
+        }
 
-        EventLog.getInstance().logEvent(new Event("Set bpm to " + this.getBPM()));
+        EventLog.getInstance().logEvent(new Event(EventKind.STEPS_SET, newSteps));
+        for (TrackListObserver observer : observers) {
+            observer.stepsChanged(this);
+        }
     }
 
-    // EFFECTS: returns the DrumTrackList as a JSON object
-    public JSONObject toJson() {
-        JSONObject json = new JSONObject();
-        json.put("bpm", this.bpm);
-        json.put("instruments", instrumentsToJson());
-        EventLog.getInstance().logEvent(new Event("Saved file to JSON"));
-        return json;
+    // EFFECTS: returns the number of steps a track list holding instruments, saved before the number of steps was,
+    //          should have: as many as the longest instrument, so that none is cut short, or DEFAULT_STEPS if there are
+    //          none. The shorter instruments are padded with rests, as they always rested until the loop ended
+    public static int stepsFor(List<Instrument> instruments) {
+        int longest = 0;
+        for (Instrument instrument : instruments) {
+            longest = Math.max(longest, instrument.getPattern().length());
+        }
+        return longest > 0 ? longest : DEFAULT_STEPS;
     }
 
-    // EFFECTS: returns instruments in the tracklist as a JSON array
-    private JSONArray instrumentsToJson() {
-        JSONArray jsonArray = new JSONArray();
+    // EFFECTS: returns an immutable copy of the bpm, steps and instruments, which may be read from any thread
+    public ProjectSnapshot snapshot() {
+        return ProjectSnapshot.of(bpm, steps, ticksPerStep, instruments);
+    }
 
-        for (Instrument i : instruments) {
-            jsonArray.put(i.toJson());
+    // REQUIRES: snapshot has this track list's ticks per step
+    // MODIFIES: this
+    // EFFECTS: makes the bpm, steps and instruments match snapshot, changing only the instruments which differ from
+    //          it and telling observers of each change; instruments beyond the end of snapshot are removed
+    public void restore(ProjectSnapshot snapshot) throws Exception {
+        if (steps != snapshot.getSteps()) {
+            setSteps(snapshot.getSteps());
+        }
+        List<ProjectSnapshot.Track> target = snapshot.getTracks();
+        while (instruments.size() > target.size()) {
+            removeTrack(instruments.size() - 1);
+        }
+        for (int i = 0; i < target.size(); i++) {
+            if (i < instruments.size()) {
+                instruments.get(i).restore(target.get(i));
+            } else {
+                addTrack(new Instrument(target.get(i)));
+            }
+        }
+        if (bpm != snapshot.getBPM()) {
+            setBPM(snapshot.getBPM());
         }
+    }
 
-        return jsonArray;
+    // REQUIRES newBPM >= 0
+    // MODIFIES: this
+    // EFFECTS: changes BPM of the drum machine
+    public void setBPM(int newBPM) {
+        this.bpm = newBPM;
+
+        EventLog.getInstance().logEvent(new Event(EventKind.BPM_SET, this.getBPM()));
+        for (TrackListObserver observer : observers) {
+            observer.bpmChanged(this);
+        }
     }
 
     // EFFECTS: records that the DrumTrackList is being played
     public static void play() {
-        EventLog.getInstance().logEvent(new Event("Playing..."));
+        EventLog.getInstance().logEvent(new Event(EventKind.PLAYING));
     }
 
     // EFFECTS: records that the DrumTrackList has been stopped
     public static void stop() {
-        EventLog.getInstance().logEvent(new Event("Stopped playing"));
+        EventLog.getInstance().logEvent(new Event(EventKind.STOPPED));
+    }
+
+    // Represents what a track was last compiled from, and the events it holds for each step
+    private static final class Compiled {
+        private int number;
+        private StepPattern pattern = new StepPattern(0);
+        private MidiEvent[] events = new MidiEvent[0];
+
+        // EFFECTS: creates the record of an empty track for the given instrument number
+        Compiled(int number) {
+            this.number = number;
+        }
+
+        // REQUIRES: step < the length of events, or event is null
+        // MODIFIES: this, track
+        // EFFECTS: replaces the event at step in track with event, which is null for a rest, unless it is there
+        //          already; if a neighbouring step holds the same shared event, this step gets its own copy of it, so
+        //          that removing either leaves the other's note in the track
+        void set(Track track, int step, MidiEvent event) {
+            if (step >= events.length) {
+                if (event == null) {
+                    return;
+                }
+                events = Arrays.copyOf(events, Math.max(step + 1, 2 * events.length));
+            }
+            if (events[step] == event) {
+                return;
+            }
+            if (events[step] != null) {
+                track.remove(events[step]);
+            }
+            if (event != null && heldNextTo(step, event)) {
+                event = new MidiEvent(event.getMessage(), event.getTick());
+            }
+            events[step] = event;
+            if (event != null) {
+                track.add(event);
+            }
+        }
+
+        // EFFECTS: returns true if a step next to the given one holds event; offsets are kept within a step, so only
+        //          neighbouring steps can land on the same tick, and a track holds a shared event only once
+        private boolean heldNextTo(int step, MidiEvent event) {
+            return step > 0 && events[step - 1] == event || step + 1 < events.length && events[step + 1] == event;
+        }
     }
 }
@@ -0,0 +1,155 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+// Represents the undo and redo history of a track list. After every change the history keeps a snapshot of the
+// whole list. A snapshot shares every instrument which did not change with the one before it, so recording a change
+// copies only the steps of the changed instrument, plus one reference per instrument. Undoing or redoing any number of
+// changes at once restores the list straight from the snapshot reached, touching only the instruments that differ.
+public class EditHistory implements TrackListObserver {
+    public static final int DEFAULT_LIMIT = 1000;
+
+    private final int limit;
+    private final Deque<ProjectSnapshot> undoStack = new ArrayDeque<>();
+    private final Deque<ProjectSnapshot> redoStack = new ArrayDeque<>();
+    private DrumTrackList attached;
+    private ProjectSnapshot current;
+    private boolean restoring;
+
+    // EFFECTS: creates an empty history which keeps the last DEFAULT_LIMIT changes
+    public EditHistory() {
+        this(DEFAULT_LIMIT);
+    }
+
+    // REQUIRES: limit > 0
+    // EFFECTS: creates an empty history which keeps the last limit changes; nothing is recorded until a track list is
+    //          attached
+    public EditHistory(int limit) {
+        this.limit = limit;
+    }
+
+    // MODIFIES: this, tracks
+    // EFFECTS: forgets the history of the previously attached track list, if any, and starts recording the changes
+    //          made to tracks from its current state
+    public void attach(DrumTrackList tracks) {
+        if (attached != null) {
+            attached.removeObserver(this);
+        }
+        attached = tracks;
+        tracks.addObserver(this);
+        current = tracks.snapshot();
+        undoStack.clear();
+        redoStack.clear();
+    }
+
+    @Override
+    public void trackAdded(DrumTrackList tracks, int index) {
+        record();
+    }
+
+    @Override
+    public void trackRemoved(DrumTrackList tracks, int index) {
+        record();
+    }
+
+    @Override
+    public void noteChanged(DrumTrackList tracks, int index, int step) {
+        record();
+    }
+
+    @Override
+    public void instrumentChanged(DrumTrackList tracks, int index) {
+        record();
+    }
+
+    @Override
+    public void bpmChanged(DrumTrackList tracks) {
+        record();
+    }
+
+    @Override
+    public void stepsChanged(DrumTrackList tracks) {
+        record();
+    }
+
+    // EFFECTS: returns the number of changes which can be undone
+    public int getUndoCount() {
+        return undoStack.size();
+    }
+
+    // EFFECTS: returns the number of undone changes which can be redone
+    public int getRedoCount() {
+        return redoStack.size();
+    }
+
+    // MODIFIES: this, the attached track list
+    // EFFECTS: undoes the last change, if any, and returns true if there was one to undo
+    public boolean undo() throws Exception {
+        return undo(1) == 1;
+    }
+
+    // REQUIRES: changes >= 0
+    // MODIFIES: this, the attached track list
+    // EFFECTS: undoes up to the given number of changes in one step, and returns how many were undone
+    public int undo(int changes) throws Exception {
+        int done = move(undoStack, redoStack, changes);
+        if (done > 0) {
+            EventLog.getInstance().logEvent(new Event(EventKind.UNDONE, done));
+        }
+        return done;
+    }
+
+    // MODIFIES: this, the attached track list
+    // EFFECTS: redoes the last change undone, if any, and returns true if there was one to redo
+    public boolean redo() throws Exception {
+        return redo(1) == 1;
+    }
+
+    // REQUIRES: changes >= 0
+    // MODIFIES: this, the attached track list
+    // EFFECTS: redoes up to the given number of undone changes in one step, and returns how many were redone
+    public int redo(int changes) throws Exception {
+        int done = move(redoStack, undoStack, changes);
+        if (done > 0) {
+            EventLog.getInstance().logEvent(new Event(EventKind.REDONE, done));
+        }
+        return done;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: pushes the state before the change just made onto the undo stack, dropping the oldest beyond the
+    //          limit, and forgets whatever could have been redone; changes made while restoring are not recorded
+    private void record() {
+        if (restoring) {
+            return;
+        }
+        undoStack.push(current);
+        if (undoStack.size() > limit) {
+            undoStack.removeLast();
+        }
+        redoStack.clear();
+        current = attached.snapshot();
+    }
+
+    // MODIFIES: this, the attached track list
+    // EFFECTS: moves up to the given number of states from one stack to the other, then restores the track list to
+    //          the state reached; returns how many were moved
+    private int move(Deque<ProjectSnapshot> from, Deque<ProjectSnapshot> to, int changes) throws Exception {
+        int done = 0;
+        while (done < changes && !from.isEmpty()) {
+            to.push(current);
+            current = from.pop();
+            done++;
+        }
+        if (done > 0) {
+            restoring = true;
+            try {
+                attached.restore(current);
+            } finally {
+                restoring = false;
+            }
+        }
+        return done;
+    }
+}
@@ -1,25 +1,83 @@
 package model;
 
-import java.util.Calendar;
 import java.util.Date;
+import java.util.Objects;
 
 
 /**
- * Represents a drum machine event.
+ * Represents a drum machine event: a kind, up to two numbers and an
+ * optional detail, stamped with the wall clock and System.nanoTime().
+ * Nothing is formatted when the event is created; its description
+ * and date are only worked out when the event is read.
  */
 public class Event {
     private static final int HASH_CONSTANT = 13;
-    private Date dateLogged;
-    private String description;
+    private final EventKind kind;
+    private final long first;
+    private final long second;
+    private final Object detail;
+    private final long millis;
+    private final long nanoTime;
 
     /**
      * Creates an event with the given description
-     * and the current date/time stamp.
+     * and the current time stamp.
      * @param description  a description of the event
      */
     public Event(String description) {
-        dateLogged = Calendar.getInstance().getTime();
-        this.description = description;
+        this(EventKind.MESSAGE, 0, 0, description);
+    }
+
+    /**
+     * Creates an event of the given kind, with no arguments,
+     * and the current time stamp.
+     * @param kind  the kind of event
+     */
+    public Event(EventKind kind) {
+        this(kind, 0, 0, null);
+    }
+
+    /**
+     * Creates an event of the given kind with one number
+     * and the current time stamp.
+     * @param kind  the kind of event
+     * @param first  the number to describe the event with
+     */
+    public Event(EventKind kind, long first) {
+        this(kind, first, 0, null);
+    }
+
+    /**
+     * Creates an event of the given kind with its arguments
+     * and the current time stamp.
+     * @param kind  the kind of event
+     * @param first  the first number to describe the event with
+     * @param second  the second number to describe the event with
+     * @param detail  an immutable object to describe the event with, or null
+     */
+    public Event(EventKind kind, long first, long second, Object detail) {
+        this.millis = System.currentTimeMillis();
+        this.nanoTime = System.nanoTime();
+        this.kind = kind;
+        this.first = first;
+        this.second = second;
+        this.detail = detail;
+    }
+
+    /**
+     * Gets the kind of this event.
+     * @return  the kind of the event
+     */
+    public EventKind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the System.nanoTime() at which this event was created.
+     * @return  the monotonic time stamp of the event
+     */
+    public long getNanoTime() {
+        return nanoTime;
     }
 
     /**
@@ -27,15 +85,16 @@ public class Event {
      * @return  the date of the event
      */
     public Date getDate() {
-        return dateLogged;
+        return new Date(millis);
     }
 
     /**
-     * Gets the description of this event.
+     * Gets the description of this event, formatting it from the
+     * event's kind and arguments.
      * @return  the description of the event
      */
     public String getDescription() {
-        return description;
+        return kind.format(first, second, detail);
     }
 
     @Override
@@ -50,17 +109,20 @@ public class Event {
 
         Event otherEvent = (Event) other;
 
-        return (this.dateLogged.equals(otherEvent.dateLogged)
-                && this.description.equals(otherEvent.description));
+        return (this.nanoTime == otherEvent.nanoTime
+                && this.kind == otherEvent.kind
+                && this.first == otherEvent.first
+                && this.second == otherEvent.second
+                && Objects.equals(this.detail, otherEvent.detail));
     }
 
     @Override
     public int hashCode() {
-        return (HASH_CONSTANT * dateLogged.hashCode() + description.hashCode());
+        return (HASH_CONSTANT * Long.hashCode(nanoTime) + Objects.hash(kind, first, second, detail));
     }
 
     @Override
     public String toString() {
-        return dateLogged.toString() + "\n" + description;
+        return getDate().toString() + "\n" + getDescription();
     }
 }
@@ -0,0 +1,49 @@
+package model;
+
+/**
+ * Represents the kinds of drum machine event, each with the template
+ * its arguments are formatted into when the event is read. In a
+ * template, %1$d and %2$d are the event's two numbers and %3$s is
+ * its detail.
+ */
+public enum EventKind {
+    MESSAGE("%3$s"),
+    INSTRUMENT_CREATED("New instrument created"),
+    INSTRUMENT_NUMBER_SET("Set instrument number to %1$d"),
+    INSTRUMENT_NOTES_SET("Set instrument notes to %3$s"),
+    INSTRUMENT_PATTERN_SET("Set instrument notes to %1$d steps"),
+    NOTE_SET("Set step %2$d of instrument number %1$d %3$s"),
+    VELOCITY_SET("Set velocity of step %2$d of instrument number %1$d to %3$s"),
+    ACCENT_SET("Set accent of step %2$d of instrument number %1$d %3$s"),
+    PROBABILITY_SET("Set probability of step %2$d of instrument number %1$d to %3$s%%"),
+    OFFSET_SET("Set offset of step %2$d of instrument number %1$d to %3$s ticks"),
+    TRACK_ADDED("Added instrument number %1$d with %2$d steps to the track list"),
+    TRACK_REMOVED("Removed instrument number %1$d"),
+    BPM_SET("Set bpm to %1$d"),
+    STEPS_SET("Set number of steps to %1$d"),
+    SAVED_TO_JSON("Saved file to JSON"),
+    SAVED_TO_BINARY("Saved file to binary project"),
+    PLAYING("Playing..."),
+    STOPPED("Stopped playing"),
+    SECTION_ADDED("Added section repeating %1$d times to the arrangement"),
+    SECTION_REMOVED("Removed section %1$d from the arrangement"),
+    UNDONE("Undid %1$d changes"),
+    REDONE("Redid %1$d changes");
+
+    private final String template;
+
+    EventKind(String template) {
+        this.template = template;
+    }
+
+    /**
+     * Formats the arguments of an event of this kind into a description.
+     * @param first  the event's first number
+     * @param second  the event's second number
+     * @param detail  the event's detail, or null
+     * @return  the human-readable description
+     */
+    public String format(long first, long second, Object detail) {
+        return String.format(template, first, second, detail);
+    }
+}
@@ -1,60 +1,156 @@
 package model;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Represents a log of drum machine system events.
  * We use the Singleton Design Pattern to ensure that there is only
  * one EventLog in the system and that the system has global access
  * to the single instance of the EventLog.
+ * The log keeps only the most recent events, in a fixed-capacity ring
+ * buffer which any number of threads may log to at once without locking.
  */
 public class EventLog implements Iterable<Event> {
+    /** the number of events retained unless configured otherwise */
+    public static final int DEFAULT_RETENTION = 4096;
+    /** the system property which sets the number of events retained */
+    public static final String RETENTION_PROPERTY = "drummachine.eventlog.retention";
+
     /** the only EventLog in the system (Singleton Design Pattern) */
-    private static EventLog theLog;
-    private Collection<Event> events;
+    private static final EventLog theLog = new EventLog();
+    private volatile Ring ring;
 
     /**
      * Prevent external construction.
      * (Singleton Design Pattern).
      */
     private EventLog() {
-        events = new ArrayList<Event>();
+        ring = new Ring(Integer.getInteger(RETENTION_PROPERTY, DEFAULT_RETENTION));
     }
 
     /**
-     * Gets instance of EventLog - creates it
-     * if it doesn't already exist.
+     * Gets instance of EventLog.
      * (Singleton Design Pattern)
      * @return  instance of EventLog
      */
     public static EventLog getInstance() {
-        if (theLog == null) {
-            theLog = new EventLog();
-        }
-
         return theLog;
     }
 
     /**
-     * Adds an event to the event log.
+     * Adds an event to the event log, overwriting the oldest
+     * event once the log is full.
+     * Safe to call from any thread; never allocates, and only waits
+     * if writers lap the whole buffer while one of them is stalled.
      * @param e the event to be added
      */
     public void logEvent(Event e) {
-        events.add(e);
+        ring.add(e);
     }
 
     /**
      * Clears the event log and logs the event.
      */
     public void clear() {
-        events.clear();
+        ring.clear();
         logEvent(new Event("Event log cleared."));
     }
 
+    /**
+     * Changes how many of the most recent events are kept, keeping
+     * as many of the events logged so far as fit. Events logged by
+     * other threads while the retention changes may be lost.
+     * @param retention  the number of events to keep; rounded up to a power of two
+     */
+    public synchronized void setRetention(int retention) {
+        Ring resized = new Ring(retention);
+        for (Event e : ring.snapshot()) {
+            resized.add(e);
+        }
+        ring = resized;
+    }
+
+    /**
+     * Gets the number of most recent events which are kept.
+     * @return  the capacity of the log
+     */
+    public int getRetention() {
+        return ring.capacity();
+    }
+
+    /**
+     * Iterates over a copy of the events currently retained, oldest
+     * first, so that events may keep being logged while iterating.
+     */
     @Override
     public Iterator<Event> iterator() {
-        return events.iterator();
+        return ring.snapshot().iterator();
+    }
+
+    /**
+     * A multi-producer ring buffer of events. Each writer claims a
+     * sequence number, then publishes its event in slot (sequence mod
+     * capacity) and stamps the slot with the sequence. Readers only
+     * take events whose stamp matches the sequence they expect, so
+     * they never see half-written or overwritten slots.
+     */
+    private static final class Ring {
+        private static final long BUSY = Long.MIN_VALUE;
+        private final AtomicReferenceArray<Event> slots;
+        private final AtomicLongArray stamps;
+        private final AtomicLong next = new AtomicLong();
+        private final AtomicLong floor = new AtomicLong();
+        private final int mask;
+
+        Ring(int retention) {
+            int capacity = retention <= 1 ? 1 : Integer.highestOneBit(retention - 1) << 1;
+            slots = new AtomicReferenceArray<>(capacity);
+            stamps = new AtomicLongArray(capacity);
+            mask = capacity - 1;
+            for (int i = 0; i < capacity; i++) {
+                stamps.set(i, i - capacity);
+            }
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        void add(Event e) {
+            long sequence = next.getAndIncrement();
+            int index = (int) sequence & mask;
+            long previous = sequence - capacity();
+            while (!stamps.compareAndSet(index, previous, BUSY)) {
+                Thread.onSpinWait();
+            }
+            slots.set(index, e);
+            stamps.set(index, sequence);
+        }
+
+        void clear() {
+            floor.set(next.get());
+        }
+
+        List<Event> snapshot() {
+            long end = next.get();
+            long start = Math.max(floor.get(), end - capacity());
+            List<Event> events = new ArrayList<>((int) (end - start));
+            for (long sequence = start; sequence < end; sequence++) {
+                int index = (int) sequence & mask;
+                if (stamps.get(index) != sequence) {
+                    continue;
+                }
+                Event e = slots.get(index);
+                if (stamps.get(index) == sequence) {
+                    events.add(e);
+                }
+            }
+            return events;
+        }
     }
 }
@@ -1,7 +1,6 @@
 package model;
 
-import org.json.JSONObject;
-
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -20,9 +19,9 @@ public class Instrument {
 
     private int instrumentNumber;
     private String instrumentName;
-    private char[] instrumentNotesList;
-    private String instrumentNotes;
-
+    private StepPattern pattern;
+    private ProjectSnapshot.Track snapshot;
+    private final List<InstrumentObserver> observers;
 
 
     // REQUIRES: 35 <= instrumentNumber <= 81
@@ -30,11 +29,26 @@ public class Instrument {
     // MODIFIES: this
     // EFFECTS: creates a new Instrument with MIDI number, name and notes to be played
     public Instrument(int instrumentNumber, String instrumentNotes) {
-        this.instrumentNotesList = instrumentNotes.toCharArray();
-        this.instrumentNotes = instrumentNotes;
+        this(instrumentNumber, StepPattern.fromString(instrumentNotes));
+    }
+
+    // REQUIRES: 35 <= instrumentNumber <= 81
+    // MODIFIES: this
+    // EFFECTS: creates a new Instrument with MIDI number, name and the given pattern of notes, which it takes over
+    public Instrument(int instrumentNumber, StepPattern pattern) {
+        this.observers = new ArrayList<>();
+        this.pattern = pattern;
         this.instrumentNumber = instrumentNumber;
         this.instrumentName = INSTRUMENT_LIST.get(instrumentNumber - 35);
-        EventLog.getInstance().logEvent(new Event("New instrument created"));
+        EventLog.getInstance().logEvent(new Event(EventKind.INSTRUMENT_CREATED));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: creates a new Instrument with the MIDI number and a copy of the notes of track, which is kept as its
+    //          snapshot until it changes
+    Instrument(ProjectSnapshot.Track track) {
+        this(track.getInstrumentNumber(), track.copyPattern());
+        this.snapshot = track;
     }
 
     // EFFECTS: returns instrument's MIDI code number
@@ -49,12 +63,17 @@ public class Instrument {
 
     // EFFECTS: returns instrument's notes to be played, in list form
     public char[] getInstrumentNotesList() {
-        return this.instrumentNotesList;
+        return this.pattern.toCharArray();
     }
 
     // EFFECTS: returns instrument's notes to be played, in string form
     public String getInstrumentNotesString() {
-        return this.instrumentNotes;
+        return this.pattern.toString();
+    }
+
+    // EFFECTS: returns instrument's notes to be played, as a pattern of steps
+    public StepPattern getPattern() {
+        return this.pattern;
     }
 
     // REQUIRES: 35 <= newNumber <= 81
@@ -62,27 +81,148 @@ public class Instrument {
     // EFFECTS: changes the instrument MIDI code, and updates the name accordingly
     public void setInstrument(int newNumber) {
         this.instrumentNumber = newNumber;
+        this.snapshot = null;
         this.instrumentName = INSTRUMENT_LIST.get(newNumber - 35);
 
-        EventLog.getInstance().logEvent(new Event("Set instrument number to " + newNumber));
+        EventLog.getInstance().logEvent(new Event(EventKind.INSTRUMENT_NUMBER_SET, newNumber));
+        notifyInstrumentChanged();
     }
 
     // REQUIRES: newNotes consists only of 'x' and '-'
     // MODIFIES: this
     // EFFECTS: changes the instrument's notes to be played
     public void setInstrumentNotes(String newNotes) {
-        this.instrumentNotesList = newNotes.toCharArray();
-        this.instrumentNotes = newNotes;
-        EventLog.getInstance().logEvent(new Event("Set instrument notes to " + newNotes));
+        this.pattern = StepPattern.fromString(newNotes);
+        this.snapshot = null;
+        EventLog.getInstance().logEvent(new Event(EventKind.INSTRUMENT_NOTES_SET, 0, 0, newNotes));
+        notifyInstrumentChanged();
     }
 
-    // EFFECTS: returns the instrument as a JSON object
-    public JSONObject toJson() {
-        JSONObject json = new JSONObject();
-        json.put("number", instrumentNumber);
-        json.put("notes", instrumentNotes);
+    // MODIFIES: this
+    // EFFECTS: replaces the instrument's notes with newPattern, which it takes over
+    public void setPattern(StepPattern newPattern) {
+        this.pattern = newPattern;
+        this.snapshot = null;
+        EventLog.getInstance().logEvent(new Event(EventKind.INSTRUMENT_PATTERN_SET, newPattern.length()));
+        notifyInstrumentChanged();
+    }
+
+    // REQUIRES: newLength >= 0
+    // MODIFIES: this
+    // EFFECTS: cuts the instrument's notes short or pads them with rests to the given number of steps, without
+    //          notifying observers; whoever resizes the instrument recompiles it
+    void resize(int newLength) {
+        if (pattern.length() != newLength) {
+            this.pattern = pattern.resized(newLength);
+            this.snapshot = null;
+        }
+    }
+
+    // REQUIRES: 0 <= step < number of notes
+    // MODIFIES: this
+    // EFFECTS: turns the note at the given step on or off, notifying observers of only that step
+    public void setNote(int step, boolean on) {
+        this.pattern.set(step, on);
+        this.snapshot = null;
+        EventLog.getInstance().logEvent(new Event(EventKind.NOTE_SET, instrumentNumber, step, on ? "on" : "off"));
+        for (InstrumentObserver observer : observers) {
+            observer.noteChanged(this, step);
+        }
+    }
+
+    // REQUIRES: 0 <= step < number of notes
+    //           1 <= velocity <= StepPattern.MAX_VELOCITY
+    // MODIFIES: this
+    // EFFECTS: changes the velocity of the given step, notifying observers of only that step
+    public void setVelocity(int step, int velocity) {
+        this.pattern.setVelocity(step, velocity);
+        stepChanged(step, EventKind.VELOCITY_SET, velocity);
+    }
+
+    // REQUIRES: 0 <= step < number of notes
+    // MODIFIES: this
+    // EFFECTS: accents the given step or takes its accent away, notifying observers of only that step
+    public void setAccent(int step, boolean on) {
+        this.pattern.setAccent(step, on);
+        stepChanged(step, EventKind.ACCENT_SET, on ? "on" : "off");
+    }
+
+    // REQUIRES: 0 <= step < number of notes
+    //           0 <= probability <= StepPattern.MAX_PROBABILITY
+    // MODIFIES: this
+    // EFFECTS: changes the chance, in percent, of the given step being played, notifying observers of only that step
+    public void setProbability(int step, int probability) {
+        this.pattern.setProbability(step, probability);
+        stepChanged(step, EventKind.PROBABILITY_SET, probability);
+    }
+
+    // REQUIRES: 0 <= step < number of notes
+    //           -StepPattern.MAX_OFFSET <= offset <= StepPattern.MAX_OFFSET
+    // MODIFIES: this
+    // EFFECTS: changes how many ticks from the grid the given step is played, notifying observers of only that step
+    public void setOffset(int step, int offset) {
+        this.pattern.setOffset(step, offset);
+        stepChanged(step, EventKind.OFFSET_SET, offset);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: forgets the snapshot, records a change of the given kind to the given step, with value as its detail,
+    //          and notifies observers of only that step
+    private void stepChanged(int step, EventKind kind, Object value) {
+        this.snapshot = null;
+        EventLog.getInstance().logEvent(new Event(kind, instrumentNumber, step, value));
+        for (InstrumentObserver observer : observers) {
+            observer.noteChanged(this, step);
+        }
+    }
+
+    // REQUIRES: 0 <= step < number of notes
+    // EFFECTS: returns true if the instrument plays a note at the given step
+    public boolean isNoteOn(int step) {
+        return this.pattern.get(step);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes the instrument's MIDI number and notes those of track, unless track is already its snapshot, and
+    //          keeps track as its snapshot
+    void restore(ProjectSnapshot.Track track) {
+        if (snapshot == track) {
+            return;
+        }
+        this.instrumentNumber = track.getInstrumentNumber();
+        this.instrumentName = INSTRUMENT_LIST.get(instrumentNumber - 35);
+        this.pattern = track.copyPattern();
+        this.snapshot = track;
+        notifyInstrumentChanged();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns an immutable copy of the instrument's MIDI number and steps, which is kept and handed out again
+    //          until the instrument next changes
+    ProjectSnapshot.Track snapshot() {
+        if (snapshot == null) {
+            snapshot = new ProjectSnapshot.Track(instrumentNumber, pattern);
+        }
+        return snapshot;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds observer to be notified of changes to this instrument
+    public void addObserver(InstrumentObserver observer) {
+        observers.add(observer);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops notifying observer of changes to this instrument
+    public void removeObserver(InstrumentObserver observer) {
+        observers.remove(observer);
+    }
 
-        return json;
+    // EFFECTS: notifies observers that the whole instrument has changed
+    private void notifyInstrumentChanged() {
+        for (InstrumentObserver observer : observers) {
+            observer.instrumentChanged(this);
+        }
     }
 
 }
\ No newline at end of file
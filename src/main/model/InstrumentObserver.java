@@ -0,0 +1,11 @@
+package model;
+
+// Represents an observer that is notified whenever the notes or voice of an Instrument change
+public interface InstrumentObserver {
+
+    // EFFECTS: responds to the note at the given step of instrument being changed
+    void noteChanged(Instrument instrument, int step);
+
+    // EFFECTS: responds to the whole pattern or the MIDI number of instrument being changed
+    void instrumentChanged(Instrument instrument);
+}
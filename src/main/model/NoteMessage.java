@@ -0,0 +1,91 @@
+package model;
+
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.ShortMessage;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Represents an immutable note on or note off message on the drum channel. There is only ever one message for each
+// combination of note, on/off and velocity, and each message keeps one shared event per tick up to CACHED_TICKS, so
+// compiling the same pattern again does not allocate any messages or events. Events at later ticks, which only long
+// patterns at a high resolution reach, are made afresh each time rather than growing the table without bound.
+public final class NoteMessage extends ShortMessage {
+    public static final int DRUM_CHANNEL = 9;
+    public static final int CACHED_TICKS = 1 << 14;
+    private static final int DATA_VALUES = 128;
+    private static final AtomicReferenceArray<NoteMessage> CACHE =
+            new AtomicReferenceArray<>(2 * DATA_VALUES * DATA_VALUES);
+
+    private volatile MidiEvent[] events;
+
+    // REQUIRES: 0 <= note < 128, 0 <= velocity < 128
+    // EFFECTS: creates the message for the given note, on/off and velocity
+    private NoteMessage(boolean on, int note, int velocity) {
+        super(new byte[] {(byte) ((on ? NOTE_ON : NOTE_OFF) | DRUM_CHANNEL), (byte) note, (byte) velocity});
+        this.events = new MidiEvent[0];
+    }
+
+    // REQUIRES: 0 <= note < 128, 0 <= velocity < 128
+    // EFFECTS: returns the shared message for the given note, on/off and velocity, creating it on first use
+    public static NoteMessage of(boolean on, int note, int velocity) {
+        int key = ((on ? DATA_VALUES : 0) + note) * DATA_VALUES + velocity;
+        NoteMessage message = CACHE.get(key);
+        if (message == null) {
+            CACHE.compareAndSet(key, null, new NoteMessage(on, note, velocity));
+            message = CACHE.get(key);
+        }
+        return message;
+    }
+
+    // REQUIRES: 0 <= tick <= Integer.MAX_VALUE
+    // EFFECTS: returns the shared event which sends this message at the given tick, creating it on first use, or a
+    //          new event if tick >= CACHED_TICKS. The returned event must not have its tick changed.
+    public MidiEvent eventAt(long tick) {
+        MidiEvent[] current = events;
+        if (tick < current.length && current[(int) tick] != null) {
+            return current[(int) tick];
+        } else if (tick >= CACHED_TICKS) {
+            return new MidiEvent(this, tick);
+        }
+        return createEventAt((int) tick);
+    }
+
+    // MODIFIES: this
+    // REQUIRES: tick < CACHED_TICKS
+    // EFFECTS: creates, remembers and returns the event at tick; the table of events is copied rather than changed,
+    //          so that it can be read without locking, and at least doubles each time it grows
+    private synchronized MidiEvent createEventAt(int tick) {
+        MidiEvent[] current = events;
+        if (tick < current.length && current[tick] != null) {
+            return current[tick];
+        }
+        MidiEvent[] copy = new MidiEvent[Math.min(Math.max(tick + 1, 2 * current.length), CACHED_TICKS)];
+        System.arraycopy(current, 0, copy, 0, current.length);
+        copy[tick] = new MidiEvent(this, tick);
+        events = copy;
+        return copy[tick];
+    }
+
+    // EFFECTS: always throws UnsupportedOperationException, as shared messages cannot be changed
+    @Override
+    public void setMessage(int status) {
+        throw new UnsupportedOperationException("Note messages are immutable");
+    }
+
+    // EFFECTS: always throws UnsupportedOperationException, as shared messages cannot be changed
+    @Override
+    public void setMessage(int status, int data1, int data2) {
+        throw new UnsupportedOperationException("Note messages are immutable");
+    }
+
+    // EFFECTS: always throws UnsupportedOperationException, as shared messages cannot be changed
+    @Override
+    public void setMessage(int command, int channel, int data1, int data2) {
+        throw new UnsupportedOperationException("Note messages are immutable");
+    }
+
+    // EFFECTS: always throws UnsupportedOperationException, as shared messages cannot be changed
+    @Override
+    protected void setMessage(byte[] data, int length) {
+        throw new UnsupportedOperationException("Note messages are immutable");
+    }
+}
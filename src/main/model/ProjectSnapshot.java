@@ -0,0 +1,148 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Represents an immutable copy of a track list: its bpm and, for each instrument, its MIDI number and steps. A
+// snapshot is taken on the thread which edits the track list, and may then be read from any thread, e.g. to be saved
+// in the background. Each instrument keeps its part of the last snapshot until it next changes, so consecutive
+// snapshots share every instrument which did not change, and taking one costs little more than copying the list.
+public final class ProjectSnapshot {
+    private final int bpm;
+    private final int steps;
+    private final int ticksPerStep;
+    private final List<Track> tracks;
+    private final int loopLength;
+
+    // EFFECTS: creates a snapshot of the given bpm, steps, resolution and tracks
+    ProjectSnapshot(int bpm, int steps, int ticksPerStep, List<Track> tracks) {
+        this.bpm = bpm;
+        this.steps = steps;
+        this.ticksPerStep = ticksPerStep;
+        this.tracks = Collections.unmodifiableList(tracks);
+        int longest = 0;
+        for (Track track : tracks) {
+            longest = Math.max(longest, track.length());
+        }
+        this.loopLength = longest;
+    }
+
+    // EFFECTS: returns a snapshot of instruments at the given bpm, steps and resolution, reusing each instrument's part
+    //          of the last snapshot if it has not changed since
+    static ProjectSnapshot of(int bpm, int steps, int ticksPerStep, List<Instrument> instruments) {
+        List<Track> tracks = new ArrayList<>(instruments.size());
+        for (Instrument instrument : instruments) {
+            tracks.add(instrument.snapshot());
+        }
+        return new ProjectSnapshot(bpm, steps, ticksPerStep, tracks);
+    }
+
+    // EFFECTS: returns the bpm
+    public int getBPM() {
+        return bpm;
+    }
+
+    // EFFECTS: returns the number of steps new instruments start with
+    public int getSteps() {
+        return steps;
+    }
+
+    // EFFECTS: returns the number of MIDI ticks in each step
+    public int getTicksPerStep() {
+        return ticksPerStep;
+    }
+
+    // EFFECTS: returns the tracks, in the order of the track list's instruments
+    public List<Track> getTracks() {
+        return tracks;
+    }
+
+    // EFFECTS: returns the number of steps in the loop, which is as long as the longest track; 0 if there are none
+    public int getLoopLength() {
+        return loopLength;
+    }
+
+    // EFFECTS: returns a new track list holding new instruments with the bpm, steps, resolution, MIDI numbers and notes
+    //          of this snapshot
+    public DrumTrackList toTrackList() throws Exception {
+        DrumTrackList copy = new DrumTrackList(bpm, steps, ticksPerStep);
+        for (Track track : tracks) {
+            copy.addTrack(track.toInstrument());
+        }
+        return copy;
+    }
+
+    // Represents an immutable copy of one instrument: its MIDI number and steps, with their lanes
+    public static final class Track {
+        private final int instrumentNumber;
+        private final StepPattern pattern;
+
+        // EFFECTS: creates a track of the given MIDI number, with a copy of pattern
+        Track(int instrumentNumber, StepPattern pattern) {
+            this.instrumentNumber = instrumentNumber;
+            this.pattern = pattern.copy();
+        }
+
+        // EFFECTS: returns the instrument's MIDI number
+        public int getInstrumentNumber() {
+            return instrumentNumber;
+        }
+
+        // EFFECTS: returns the number of steps
+        public int length() {
+            return pattern.length();
+        }
+
+        // REQUIRES: 0 <= step < length()
+        // EFFECTS: returns true if there is a note at the given step
+        public boolean isNoteOn(int step) {
+            return pattern.get(step);
+        }
+
+        // EFFECTS: returns true if any step has a velocity, accent, probability or offset other than the default
+        public boolean hasLanes() {
+            return pattern.hasLanes();
+        }
+
+        // REQUIRES: 0 <= step < length()
+        // EFFECTS: returns the velocity of the given step, before any accent
+        public int getVelocity(int step) {
+            return pattern.getVelocity(step);
+        }
+
+        // REQUIRES: 0 <= step < length()
+        // EFFECTS: returns true if the given step is accented
+        public boolean isAccented(int step) {
+            return pattern.isAccented(step);
+        }
+
+        // REQUIRES: 0 <= step < length()
+        // EFFECTS: returns the velocity the given step is played at, with its accent
+        public int getPlayedVelocity(int step) {
+            return pattern.getPlayedVelocity(step);
+        }
+
+        // REQUIRES: 0 <= step < length()
+        // EFFECTS: returns the chance, in percent, that a note at the given step is played
+        public int getProbability(int step) {
+            return pattern.getProbability(step);
+        }
+
+        // REQUIRES: 0 <= step < length()
+        // EFFECTS: returns how many ticks from the start of the given step its note is played
+        public int getOffset(int step) {
+            return pattern.getOffset(step);
+        }
+
+        // EFFECTS: returns a new instrument with this track's MIDI number and a copy of its steps
+        public Instrument toInstrument() {
+            return new Instrument(this);
+        }
+
+        // EFFECTS: returns a copy of the steps, which the caller may change
+        StepPattern copyPattern() {
+            return pattern.copy();
+        }
+    }
+}
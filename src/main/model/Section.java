@@ -0,0 +1,49 @@
+package model;
+
+// Represents a part of a song: a pattern repeated a number of times, optionally replaced by a variation (such as a
+// fill) on every nth repeat
+public class Section {
+    private final DrumTrackList pattern;
+    private final long repeats;
+    private DrumTrackList variation;
+    private long variationEvery;
+
+    // REQUIRES: repeats >= 1
+    // EFFECTS: creates a section playing pattern the given number of times
+    public Section(DrumTrackList pattern, long repeats) {
+        this.pattern = pattern;
+        this.repeats = repeats;
+    }
+
+    // REQUIRES: every >= 1
+    // MODIFIES: this
+    // EFFECTS: plays variation instead of the pattern on every repeat whose number is a multiple of every
+    public void setVariation(DrumTrackList variation, long every) {
+        this.variation = variation;
+        this.variationEvery = every;
+    }
+
+    // EFFECTS: returns the pattern of the section
+    public DrumTrackList getPattern() {
+        return pattern;
+    }
+
+    // EFFECTS: returns the variation of the section, or null if it has none
+    public DrumTrackList getVariation() {
+        return variation;
+    }
+
+    // EFFECTS: returns the number of times the section repeats
+    public long getRepeats() {
+        return repeats;
+    }
+
+    // REQUIRES: 0 <= repeat < getRepeats()
+    // EFFECTS: returns the pattern played on the given repeat, counting from 0
+    public DrumTrackList patternFor(long repeat) {
+        if (variation != null && (repeat + 1) % variationEvery == 0) {
+            return variation;
+        }
+        return pattern;
+    }
+}
@@ -0,0 +1,393 @@
+package model;
+
+import java.util.Arrays;
+
+// Represents the notes of an instrument as a row of steps which are either on (a note) or off (a rest). Steps are
+// packed 64 to a long, so toggling, testing and iterating over steps never allocates.
+// Each step also has a velocity, an accent, a probability of being played and an offset in ticks from the grid. These
+// are kept as lanes, one primitive array per parameter, alongside the packed notes rather than as an object per step;
+// a lane is only allocated once one of its steps is set to something other than the default.
+public class StepPattern {
+    public static final int DEFAULT_VELOCITY = DrumTrackList.VELOCITY;
+    public static final int MAX_VELOCITY = 127;
+    public static final int ACCENT_BOOST = 27;
+    public static final int MAX_PROBABILITY = 100;
+    public static final int MAX_OFFSET = DrumTrackList.MAX_TICKS_PER_STEP - 1;
+
+    private static final char NOTE = 'x';
+    private static final char REST = '-';
+    private static final int WORD_SHIFT = 6;
+    private static final int WORD_BITS = 1 << WORD_SHIFT;
+
+    private final long[] words;
+    private final int length;
+    private byte[] velocities;
+    private long[] accents;
+    private byte[] probabilities;
+    private short[] offsets;
+
+    // REQUIRES: length >= 0
+    // EFFECTS: creates a pattern of the given number of steps, all of them rests
+    public StepPattern(int length) {
+        this.length = length;
+        this.words = new long[(length + WORD_BITS - 1) >>> WORD_SHIFT];
+    }
+
+    // EFFECTS: creates a pattern from its string form, where 'x' is a note and any other character is a rest
+    public static StepPattern fromString(String notes) {
+        StepPattern pattern = new StepPattern(notes.length());
+        for (int i = 0; i < notes.length(); i++) {
+            if (notes.charAt(i) == NOTE) {
+                pattern.set(i, true);
+            }
+        }
+        return pattern;
+    }
+
+    // REQUIRES: words.length is the number of longs needed for length steps; no bits are set beyond length
+    // EFFECTS: creates a pattern of the given length from its packed form, as returned by toWords()
+    public static StepPattern fromWords(int length, long[] words) {
+        StepPattern pattern = new StepPattern(length);
+        System.arraycopy(words, 0, pattern.words, 0, pattern.words.length);
+        return pattern;
+    }
+
+    // EFFECTS: returns a copy of the packed steps, 64 to a long with step 0 in the lowest bit of the first long
+    public long[] toWords() {
+        return words.clone();
+    }
+
+    // EFFECTS: returns the number of steps in the pattern
+    public int length() {
+        return length;
+    }
+
+    // REQUIRES: 0 <= step < length()
+    // EFFECTS: returns true if there is a note at the given step
+    public boolean get(int step) {
+        return (words[step >>> WORD_SHIFT] & (1L << step)) != 0;
+    }
+
+    // REQUIRES: 0 <= step < length()
+    // MODIFIES: this
+    // EFFECTS: puts a note at the given step if on, otherwise a rest
+    public void set(int step, boolean on) {
+        if (on) {
+            words[step >>> WORD_SHIFT] |= 1L << step;
+        } else {
+            words[step >>> WORD_SHIFT] &= ~(1L << step);
+        }
+    }
+
+    // REQUIRES: 0 <= step < length()
+    // MODIFIES: this
+    // EFFECTS: flips the given step between note and rest, and returns true if it is now a note
+    public boolean toggle(int step) {
+        words[step >>> WORD_SHIFT] ^= 1L << step;
+        return get(step);
+    }
+
+    // EFFECTS: returns true if any lane has been allocated, i.e. some step has been given a velocity, accent,
+    //          probability or offset other than the default
+    public boolean hasLanes() {
+        return velocities != null || accents != null || probabilities != null || offsets != null;
+    }
+
+    // REQUIRES: 0 <= step < length()
+    // EFFECTS: returns the velocity of the given step, from 1 to MAX_VELOCITY, before any accent
+    public int getVelocity(int step) {
+        return valueAt(velocities, step, DEFAULT_VELOCITY);
+    }
+
+    // REQUIRES: 0 <= step < length()
+    //           1 <= velocity <= MAX_VELOCITY
+    // MODIFIES: this
+    // EFFECTS: changes the velocity of the given step
+    public void setVelocity(int step, int velocity) {
+        if (velocities == null) {
+            if (velocity == DEFAULT_VELOCITY) {
+                return;
+            }
+            velocities = new byte[length];
+            Arrays.fill(velocities, (byte) DEFAULT_VELOCITY);
+        }
+        velocities[step] = (byte) velocity;
+    }
+
+    // REQUIRES: 0 <= step < length()
+    // EFFECTS: returns true if the given step is accented
+    public boolean isAccented(int step) {
+        return (wordAt(accents, step >>> WORD_SHIFT) & (1L << step)) != 0;
+    }
+
+    // REQUIRES: 0 <= step < length()
+    // MODIFIES: this
+    // EFFECTS: accents the given step if on, otherwise takes its accent away
+    public void setAccent(int step, boolean on) {
+        if (accents == null) {
+            if (!on) {
+                return;
+            }
+            accents = new long[words.length];
+        }
+        if (on) {
+            accents[step >>> WORD_SHIFT] |= 1L << step;
+        } else {
+            accents[step >>> WORD_SHIFT] &= ~(1L << step);
+        }
+    }
+
+    // REQUIRES: 0 <= step < length()
+    // EFFECTS: returns the velocity the given step is played at: its velocity, raised by ACCENT_BOOST if it is
+    //          accented, up to MAX_VELOCITY
+    public int getPlayedVelocity(int step) {
+        int velocity = getVelocity(step);
+        return isAccented(step) ? Math.min(MAX_VELOCITY, velocity + ACCENT_BOOST) : velocity;
+    }
+
+    // REQUIRES: 0 <= step < length()
+    // EFFECTS: returns the chance, in percent, that a note at the given step is played
+    public int getProbability(int step) {
+        return valueAt(probabilities, step, MAX_PROBABILITY);
+    }
+
+    // REQUIRES: 0 <= step < length()
+    //           0 <= probability <= MAX_PROBABILITY
+    // MODIFIES: this
+    // EFFECTS: changes the chance, in percent, that a note at the given step is played
+    public void setProbability(int step, int probability) {
+        if (probabilities == null) {
+            if (probability == MAX_PROBABILITY) {
+                return;
+            }
+            probabilities = new byte[length];
+            Arrays.fill(probabilities, (byte) MAX_PROBABILITY);
+        }
+        probabilities[step] = (byte) probability;
+    }
+
+    // REQUIRES: 0 <= step < length()
+    // EFFECTS: returns how many ticks after the start of the given step its note is played; negative if before
+    public int getOffset(int step) {
+        return valueAt(offsets, step);
+    }
+
+    // REQUIRES: 0 <= step < length()
+    //           -MAX_OFFSET <= offset <= MAX_OFFSET
+    // MODIFIES: this
+    // EFFECTS: changes how many ticks after the start of the given step its note is played; negative if before
+    public void setOffset(int step, int offset) {
+        if (offsets == null) {
+            if (offset == 0) {
+                return;
+            }
+            offsets = new short[length];
+        }
+        offsets[step] = (short) offset;
+    }
+
+    // REQUIRES: from >= 0
+    // EFFECTS: returns the first step at or after from which has a note, or -1 if there is none
+    public int nextNote(int from) {
+        if (from >= length) {
+            return -1;
+        }
+        int index = from >>> WORD_SHIFT;
+        long word = words[index] & (-1L << from);
+        while (word == 0) {
+            index++;
+            if (index == words.length) {
+                return -1;
+            }
+            word = words[index];
+        }
+        return (index << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+    }
+
+    // REQUIRES: from >= 0
+    // EFFECTS: returns the first step at or after from where this pattern and other differ in a note or any lane, or
+    //          -1 if there is none; steps beyond the end of the shorter pattern count as rests with default lanes
+    public int nextDifference(StepPattern other, int from) {
+        int note = nextBitDifference(words, other.words, from);
+        if (!hasLanes() && !other.hasLanes()) {
+            return note;
+        }
+        int end = Math.max(length, other.length);
+        int first = note < 0 ? end : note;
+        int accent = nextBitDifference(accents, other.accents, from);
+        if (accent >= 0 && accent < first) {
+            first = accent;
+        }
+        first = mismatch(velocities, other.velocities, DEFAULT_VELOCITY, from, first);
+        first = mismatch(probabilities, other.probabilities, MAX_PROBABILITY, from, first);
+        first = mismatch(offsets, other.offsets, from, first);
+        return first < end ? first : -1;
+    }
+
+    // REQUIRES: from >= 0
+    // EFFECTS: returns the first step at or after from whose bit differs between the packed steps a and b, or -1 if
+    //          there is none; a missing array, or a word beyond its end, is all zeros
+    private static int nextBitDifference(long[] a, long[] b, int from) {
+        int words = Math.max(a == null ? 0 : a.length, b == null ? 0 : b.length);
+        int index = from >>> WORD_SHIFT;
+        if (index >= words) {
+            return -1;
+        }
+        long word = (wordAt(a, index) ^ wordAt(b, index)) & (-1L << from);
+        while (word == 0) {
+            index++;
+            if (index == words) {
+                return -1;
+            }
+            word = wordAt(a, index) ^ wordAt(b, index);
+        }
+        return (index << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+    }
+
+    // EFFECTS: returns the first step from from up to end where lanes a and b differ, or end if there is none; a
+    //          missing lane, or a step beyond its end, holds fallback
+    private static int mismatch(byte[] a, byte[] b, int fallback, int from, int end) {
+        if (a != null && b != null && a.length >= end && b.length >= end) {
+            int index = from < end ? Arrays.mismatch(a, from, end, b, from, end) : -1;
+            return index < 0 ? end : from + index;
+        }
+        for (int step = from; step < end; step++) {
+            if (valueAt(a, step, fallback) != valueAt(b, step, fallback)) {
+                return step;
+            }
+        }
+        return end;
+    }
+
+    // EFFECTS: returns the first step from from up to end where lanes a and b differ, or end if there is none; a
+    //          missing lane, or a step beyond its end, holds 0
+    private static int mismatch(short[] a, short[] b, int from, int end) {
+        if (a != null && b != null && a.length >= end && b.length >= end) {
+            int index = from < end ? Arrays.mismatch(a, from, end, b, from, end) : -1;
+            return index < 0 ? end : from + index;
+        }
+        for (int step = from; step < end; step++) {
+            if (valueAt(a, step) != valueAt(b, step)) {
+                return step;
+            }
+        }
+        return end;
+    }
+
+    // REQUIRES: length >= 0
+    // EFFECTS: returns a copy of this pattern with the given number of steps, cut short or padded with rests whose
+    //          lanes hold the defaults
+    public StepPattern resized(int length) {
+        StepPattern resized = new StepPattern(length);
+        System.arraycopy(words, 0, resized.words, 0, Math.min(words.length, resized.words.length));
+        resized.clearBeyondEnd(resized.words);
+        if (accents != null) {
+            resized.accents = Arrays.copyOf(accents, resized.words.length);
+            resized.clearBeyondEnd(resized.accents);
+        }
+        resized.velocities = resizedLane(velocities, length, DEFAULT_VELOCITY);
+        resized.probabilities = resizedLane(probabilities, length, MAX_PROBABILITY);
+        resized.offsets = offsets == null ? null : Arrays.copyOf(offsets, length);
+        return resized;
+    }
+
+    // MODIFIES: bits
+    // EFFECTS: clears the bits of the last word of bits beyond the end of this pattern
+    private void clearBeyondEnd(long[] bits) {
+        if ((length & (WORD_BITS - 1)) != 0) {
+            bits[bits.length - 1] &= (1L << length) - 1;
+        }
+    }
+
+    // EFFECTS: returns a copy of lane with the given number of steps, cut short or padded with fallback, or null if
+    //          lane is null
+    private static byte[] resizedLane(byte[] lane, int length, int fallback) {
+        if (lane == null) {
+            return null;
+        }
+        byte[] resized = Arrays.copyOf(lane, length);
+        if (length > lane.length) {
+            Arrays.fill(resized, lane.length, length, (byte) fallback);
+        }
+        return resized;
+    }
+
+    // EFFECTS: returns the number of steps which have a note
+    public int countNotes() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    // EFFECTS: returns an independent copy of this pattern and its lanes
+    public StepPattern copy() {
+        StepPattern copy = new StepPattern(length);
+        System.arraycopy(words, 0, copy.words, 0, words.length);
+        copy.velocities = velocities == null ? null : velocities.clone();
+        copy.accents = accents == null ? null : accents.clone();
+        copy.probabilities = probabilities == null ? null : probabilities.clone();
+        copy.offsets = offsets == null ? null : offsets.clone();
+        return copy;
+    }
+
+    // REQUIRES: 0 <= step < length() and step < source.length()
+    // MODIFIES: this
+    // EFFECTS: makes the note and lanes of the given step those of source; a lane is only allocated if source holds
+    //          something other than the default at step
+    public void copyStep(StepPattern source, int step) {
+        set(step, source.get(step));
+        setVelocity(step, source.getVelocity(step));
+        setAccent(step, source.isAccented(step));
+        setProbability(step, source.getProbability(step));
+        setOffset(step, source.getOffset(step));
+    }
+
+    // EFFECTS: returns the packed steps of bits at index, or 0 if bits is null or index is beyond its end
+    private static long wordAt(long[] bits, int index) {
+        return bits != null && index < bits.length ? bits[index] : 0;
+    }
+
+    // EFFECTS: returns the value of lane at step, or fallback if lane is null or step is beyond its end
+    private static int valueAt(byte[] lane, int step, int fallback) {
+        return lane != null && step < lane.length ? lane[step] : fallback;
+    }
+
+    // EFFECTS: returns the value of lane at step, or 0 if lane is null or step is beyond its end
+    private static int valueAt(short[] lane, int step) {
+        return lane != null && step < lane.length ? lane[step] : 0;
+    }
+
+    // EFFECTS: returns the pattern as characters, 'x' for a note and '-' for a rest
+    public char[] toCharArray() {
+        char[] notes = new char[length];
+        for (int i = 0; i < length; i++) {
+            notes[i] = get(i) ? NOTE : REST;
+        }
+        return notes;
+    }
+
+    // EFFECTS: returns the pattern as a string, 'x' for a note and '-' for a rest
+    @Override
+    public String toString() {
+        return new String(toCharArray());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || other.getClass() != getClass()) {
+            return false;
+        }
+        StepPattern otherPattern = (StepPattern) other;
+        return length == otherPattern.length && nextDifference(otherPattern, 0) < 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * length + Arrays.hashCode(words);
+    }
+}
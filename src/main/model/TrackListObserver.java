@@ -0,0 +1,24 @@
+package model;
+
+// Represents an observer that is notified whenever anything about a DrumTrackList changes, after the change is made.
+// Tracks are identified by their index in the list at the time of the change.
+public interface TrackListObserver {
+
+    // EFFECTS: responds to a track being added to tracks at index
+    void trackAdded(DrumTrackList tracks, int index);
+
+    // EFFECTS: responds to the track at index being removed from tracks
+    void trackRemoved(DrumTrackList tracks, int index);
+
+    // EFFECTS: responds to the note at the given step of the track at index being changed
+    void noteChanged(DrumTrackList tracks, int index, int step);
+
+    // EFFECTS: responds to the whole pattern or the MIDI number of the instrument of the track at index being changed
+    void instrumentChanged(DrumTrackList tracks, int index);
+
+    // EFFECTS: responds to the tempo of tracks being changed
+    void bpmChanged(DrumTrackList tracks);
+
+    // EFFECTS: responds to the number of steps of tracks, and so the length of every instrument, being changed
+    void stepsChanged(DrumTrackList tracks);
+}
@@ -0,0 +1,74 @@
+package persistence;
+
+import model.Instrument;
+import model.StepPattern;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+// Represents the layout of a binary project file, shared by BinaryWriter and BinaryReader. The header is always
+// stored as is; the body may be deflated, in which case the header gives its size once inflated. The body starts
+// with an index of where each instrument's record begins, so any one instrument can be found without decoding the
+// others. Older files are still read: version 1 files, from before the step count and resolution were stored, have
+// no steps or ticks per step in the header, which are then the defaults; neither they nor version 2 files have lanes
+// after each pattern.
+//   header:     int magic, short version, short flags, int bpm, int steps, int ticks per step, int count,
+//               int body size
+//   body:       count x int offset (from the start of the body), count x instrument
+//   instrument: int number, pattern, lanes
+//   pattern:    int length, one long per 64 steps (see StepPattern.toWords), as in the journal
+//   lanes:      byte present, then if present the velocity, accent, probability and offset lanes, as in the journal
+final class BinaryFormat {
+    static final int MAGIC = 0x444D5042;
+    static final short VERSION = 3;
+    static final short VERSION_1 = 1;
+    static final short LANES_VERSION = 3;
+    static final short DEFLATED = 1;
+    static final int HEADER_SIZE = 6 * Integer.BYTES + 2 * Short.BYTES;
+    static final int HEADER_SIZE_1 = 4 * Integer.BYTES + 2 * Short.BYTES;
+    static final int OFFSET_SIZE = Integer.BYTES;
+    static final int LOWEST_INSTRUMENT = 35;
+    static final int HIGHEST_INSTRUMENT = 81;
+
+    private BinaryFormat() {
+    }
+
+    // EFFECTS: returns the number of bytes the body holding instruments takes up
+    static long bodySize(List<Instrument> instruments) {
+        long size = (long) instruments.size() * OFFSET_SIZE;
+        for (Instrument instrument : instruments) {
+            size += recordSize(instrument);
+        }
+        return size;
+    }
+
+    // EFFECTS: returns the number of bytes the record of instrument takes up
+    static int recordSize(Instrument instrument) {
+        StepPattern pattern = instrument.getPattern();
+        return Integer.BYTES + JournalFormat.patternSize(pattern) + JournalFormat.lanesSize(pattern);
+    }
+
+    // REQUIRES: bodySize(instruments) <= Integer.MAX_VALUE
+    // MODIFIES: out
+    // EFFECTS: writes the body holding instruments: the index of their records, then the records themselves
+    static void writeBody(DataOutput out, List<Instrument> instruments) throws IOException {
+        int offset = instruments.size() * OFFSET_SIZE;
+        for (Instrument instrument : instruments) {
+            out.writeInt(offset);
+            offset += recordSize(instrument);
+        }
+        for (Instrument instrument : instruments) {
+            StepPattern pattern = instrument.getPattern();
+            out.writeInt(instrument.getInstrumentNumber());
+            out.writeInt(pattern.length());
+            for (long word : pattern.toWords()) {
+                out.writeLong(word);
+            }
+            ByteBuffer lanes = ByteBuffer.allocate(JournalFormat.lanesSize(pattern));
+            JournalFormat.putLanes(lanes, pattern);
+            out.write(lanes.array());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package persistence;
+
+import model.DrumTrackList;
+import model.Instrument;
+import model.StepPattern;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Represents a binary project file loaded by BinaryReader, whose instruments are decoded only when they are asked
+// for. The body is read with absolute gets only, so a project may be read from several threads at once; each
+// instrument's record is checked as it is decoded, and IOException is thrown if it is corrupt.
+public class BinaryProject {
+    private final int bpm;
+    private final int steps;
+    private final int ticksPerStep;
+    private final int count;
+    private final ByteBuffer body;
+    private final boolean lanes;
+
+    // REQUIRES: body holds the index of count instrument records and the records after it, each ending with lanes
+    //           if lanes; 0 <= steps <= DrumTrackList.MAX_STEPS, 0 if the file is from before steps were stored;
+    //           1 <= ticksPerStep <= DrumTrackList.MAX_TICKS_PER_STEP
+    // EFFECTS: creates a project of the given bpm, steps and resolution with the instruments held in body
+    BinaryProject(int bpm, int steps, int ticksPerStep, int count, ByteBuffer body, boolean lanes) {
+        this.bpm = bpm;
+        this.steps = steps;
+        this.ticksPerStep = ticksPerStep;
+        this.count = count;
+        this.body = body;
+        this.lanes = lanes;
+    }
+
+    // EFFECTS: returns the project's bpm
+    public int getBPM() {
+        return bpm;
+    }
+
+    // EFFECTS: returns the number of steps in the project's loop, or 0 if the file is from before they were stored
+    public int getSteps() {
+        return steps;
+    }
+
+    // EFFECTS: returns the number of MIDI ticks in each of the project's steps
+    public int getTicksPerStep() {
+        return ticksPerStep;
+    }
+
+    // EFFECTS: returns the number of instruments in the project
+    public int size() {
+        return count;
+    }
+
+    // REQUIRES: 0 <= index < size()
+    // EFFECTS: returns the MIDI number of the instrument at index; throws IOException if its record is corrupt
+    public int getInstrumentNumber(int index) throws IOException {
+        int number = body.getInt(recordAt(index));
+        if (number < BinaryFormat.LOWEST_INSTRUMENT || number > BinaryFormat.HIGHEST_INSTRUMENT) {
+            throw new IOException("Instrument " + index + " has number " + number + ", not one from 35 to 81");
+        }
+        return number;
+    }
+
+    // REQUIRES: 0 <= index < size()
+    // EFFECTS: returns the steps of the instrument at index; throws IOException if its record is corrupt, or it does
+    //          not have the project's number of steps
+    public StepPattern getPattern(int index) throws IOException {
+        int position = recordAt(index) + Integer.BYTES;
+        int length = body.getInt(position);
+        if (steps > 0 && length != steps) {
+            throw new IOException("Instrument " + index + " has " + length + " steps, not the project's " + steps);
+        }
+        long[] words = new long[(length + Long.SIZE - 1) / Long.SIZE];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = body.getLong(position + Integer.BYTES + i * Long.BYTES);
+        }
+        if (length % Long.SIZE != 0 && words[words.length - 1] >>> (length % Long.SIZE) != 0) {
+            throw new IOException("Instrument " + index + " has notes beyond its last step");
+        }
+        StepPattern pattern = StepPattern.fromWords(length, words);
+        if (lanes) {
+            ByteBuffer record = body.duplicate();
+            record.position(position + Integer.BYTES + words.length * Long.BYTES);
+            JournalFormat.getLanes(record, pattern);
+            checkLanes(index, pattern);
+        }
+        return pattern;
+    }
+
+    // REQUIRES: 0 <= index < size()
+    // EFFECTS: returns a new instrument decoded from the record at index; throws IOException if it is corrupt
+    public Instrument getInstrument(int index) throws IOException {
+        return new Instrument(getInstrumentNumber(index), getPattern(index));
+    }
+
+    // EFFECTS: decodes every instrument and returns them in a new tracklist, which has as many steps as the longest
+    //          of them if the file is from before steps were stored (see DrumTrackList.stepsFor); throws IOException if
+    //          any is corrupt, or there are more than DrumTrackList.MAX_STEPS steps
+    public DrumTrackList toTrackList() throws Exception {
+        List<Instrument> instruments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            instruments.add(getInstrument(i));
+        }
+        int trackSteps = steps > 0 ? steps : DrumTrackList.stepsFor(instruments);
+        if (trackSteps > DrumTrackList.MAX_STEPS) {
+            throw new IOException("Project has more than " + DrumTrackList.MAX_STEPS + " steps");
+        }
+        DrumTrackList tracks = new DrumTrackList(bpm, trackSteps, ticksPerStep);
+        for (Instrument instrument : instruments) {
+            tracks.addTrack(instrument);
+        }
+        return tracks;
+    }
+
+    // REQUIRES: 0 <= index < size()
+    // EFFECTS: returns where the record at index starts in the body; throws IOException if the index gives it a
+    //          place or a size which cannot be right
+    private int recordAt(int index) throws IOException {
+        int start = body.getInt(index * BinaryFormat.OFFSET_SIZE);
+        int end = index + 1 < count ? body.getInt((index + 1) * BinaryFormat.OFFSET_SIZE) : body.limit();
+        if (start < count * BinaryFormat.OFFSET_SIZE || end > body.limit() || end - start < 2 * Integer.BYTES) {
+            throw new IOException("Instrument " + index + " is corrupt");
+        }
+        int length = body.getInt(start + Integer.BYTES);
+        if (length < 0 || end - start != recordSize(start, end, length)) {
+            throw new IOException("Instrument " + index + " is corrupt");
+        }
+        return start;
+    }
+
+    // REQUIRES: the record from start to end holds a pattern of the given length, length >= 0
+    // EFFECTS: returns the size the record should be, given the pattern's length and whether its lanes are present;
+    //          -1 if it ends before its lanes say whether they are present
+    private long recordSize(int start, int end, int length) {
+        long size = 2 * Integer.BYTES + Long.BYTES * ((length + Long.SIZE - 1L) / Long.SIZE);
+        if (!lanes) {
+            return size;
+        } else if (size >= end - start) {
+            return -1;
+        }
+        boolean present = body.get(start + (int) size) != 0;
+        return size + 1 + (present ? length * (3L + Short.BYTES) : 0);
+    }
+
+    // EFFECTS: throws IOException if any step of the pattern of the instrument at index has a velocity, probability
+    //          or offset out of range
+    private static void checkLanes(int index, StepPattern pattern) throws IOException {
+        for (int step = 0; step < pattern.length(); step++) {
+            int velocity = pattern.getVelocity(step);
+            int probability = pattern.getProbability(step);
+            if (velocity < 1 || velocity > StepPattern.MAX_VELOCITY
+                    || probability < 0 || probability > StepPattern.MAX_PROBABILITY
+                    || Math.abs(pattern.getOffset(step)) > StepPattern.MAX_OFFSET) {
+                throw new IOException("Instrument " + index + " has a step out of range at " + step);
+            }
+        }
+    }
+}
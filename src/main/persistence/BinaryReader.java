@@ -0,0 +1,104 @@
+package persistence;
+
+import model.DrumTrackList;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// Represents a reader to load a tracklist from a file in the binary project format (see BinaryFormat). The file is
+// memory-mapped rather than read, so loading a project costs little more than checking its header; an uncompressed
+// body is decoded straight from the mapping, one instrument at a time as it is asked for. A deflated body is first
+// inflated into memory, and decoded lazily from there.
+public class BinaryReader {
+    private final String source;
+
+    // EFFECTS: constructs a reader to read from source file
+    public BinaryReader(String source) {
+        this.source = source;
+    }
+
+    // EFFECTS: reads DrumTrackList from file and returns it; throws IOException if the file cannot be read or is not
+    //          a valid binary project
+    public DrumTrackList read() throws Exception {
+        return load().toTrackList();
+    }
+
+    // EFFECTS: maps the file and returns the project in it, without decoding any instrument; throws IOException if the
+    //          file cannot be read, or its header is not that of a binary project of a known version
+    public BinaryProject load() throws IOException {
+        ByteBuffer file;
+        try (FileChannel channel = FileChannel.open(Paths.get(source), StandardOpenOption.READ)) {
+            if (channel.size() < BinaryFormat.HEADER_SIZE_1 || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(source + " is not a binary project");
+            }
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (file.getInt() != BinaryFormat.MAGIC) {
+            throw new IOException(source + " is not a binary project");
+        }
+        short version = file.getShort();
+        if (version < BinaryFormat.VERSION_1 || version > BinaryFormat.VERSION) {
+            throw new IOException(source + " is a binary project of an unknown version");
+        } else if (version != BinaryFormat.VERSION_1 && file.limit() < BinaryFormat.HEADER_SIZE) {
+            throw new IOException(source + " is truncated or corrupt");
+        }
+        return readProject(file, version);
+    }
+
+    // MODIFIES: file
+    // EFFECTS: reads the rest of the header of the given version and the body after it from file, and returns the
+    //          project they hold; a version 1 project does not give its steps and has the default resolution, and
+    //          only one of version LANES_VERSION or later has lanes
+    private BinaryProject readProject(ByteBuffer file, short version) throws IOException {
+        boolean deflated = (file.getShort() & BinaryFormat.DEFLATED) != 0;
+        int bpm = file.getInt();
+        int steps = version == BinaryFormat.VERSION_1 ? 0 : file.getInt();
+        int ticksPerStep = version == BinaryFormat.VERSION_1 ? DrumTrackList.DEFAULT_TICKS_PER_STEP : file.getInt();
+        int count = file.getInt();
+        int bodySize = file.getInt();
+        if (version != BinaryFormat.VERSION_1 && (steps < 1 || ticksPerStep < 1)
+                || steps > DrumTrackList.MAX_STEPS || ticksPerStep > DrumTrackList.MAX_TICKS_PER_STEP) {
+            throw new IOException(source + " is corrupt");
+        }
+        ByteBuffer body = deflated ? inflate(file, bodySize) : file.slice();
+        if (bodySize < 0 || body.limit() != bodySize || count < 0
+                || (long) count * BinaryFormat.OFFSET_SIZE > bodySize) {
+            throw new IOException(source + " is truncated or corrupt");
+        }
+        return new BinaryProject(bpm, steps, ticksPerStep, count, body,
+                version >= BinaryFormat.LANES_VERSION);
+    }
+
+    // MODIFIES: file
+    // EFFECTS: inflates the rest of file, which should come to bodySize bytes, and returns it; throws IOException if
+    //          it is not a deflated stream of that size
+    private ByteBuffer inflate(ByteBuffer file, int bodySize) throws IOException {
+        if (bodySize < 0 || bodySize == Integer.MAX_VALUE) {
+            throw new IOException(source + " is corrupt");
+        }
+        ByteBuffer body = ByteBuffer.allocate(bodySize + 1);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(file);
+            while (!inflater.finished()) {
+                if (inflater.inflate(body) == 0 && !inflater.finished()
+                        && (inflater.needsInput() || inflater.needsDictionary() || !body.hasRemaining())) {
+                    throw new IOException(source + " is truncated or corrupt");
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException(source + " is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+        if (file.hasRemaining() || body.position() != bodySize) {
+            throw new IOException(source + " is truncated or corrupt");
+        }
+        return body.flip();
+    }
+}
@@ -0,0 +1,96 @@
+package persistence;
+
+import model.DrumTrackList;
+import model.Event;
+import model.EventKind;
+import model.EventLog;
+import model.Instrument;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+// Represents a writer that writes a tracklist to file in the binary project format (see BinaryFormat), with each
+// instrument's steps packed 64 to a long. The file is written as a stream through a buffer, deflating the body on
+// the way out if asked to, so nothing the size of the whole file is built in memory.
+public class BinaryWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final String destination;
+    private final boolean compress;
+    private OutputStream out;
+
+    // EFFECTS: constructs writer to write an uncompressed binary project to destination file
+    public BinaryWriter(String destination) {
+        this(destination, false);
+    }
+
+    // EFFECTS: constructs writer to write a binary project to destination file, deflating its body if compress
+    public BinaryWriter(String destination, boolean compress) {
+        this.destination = destination;
+        this.compress = compress;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: opens writer; throws FileNotFoundException if destination file cannot be opened for writing
+    public void open() throws FileNotFoundException {
+        try {
+            out = new BufferedOutputStream(Files.newOutputStream(Paths.get(destination)), BUFFER_SIZE);
+        } catch (IOException | InvalidPathException e) {
+            throw new FileNotFoundException(destination + " cannot be opened for writing: " + e.getMessage());
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes tracks to file; throws IOException if it cannot be written or is too large for the format
+    public void write(DrumTrackList tracks) throws IOException {
+        List<Instrument> instruments = tracks.getInstruments();
+        long bodySize = BinaryFormat.bodySize(instruments);
+        if (bodySize > Integer.MAX_VALUE - BinaryFormat.HEADER_SIZE) {
+            throw new IOException("Tracklist is too large for a binary project file");
+        }
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(BinaryFormat.MAGIC);
+        header.writeShort(BinaryFormat.VERSION);
+        header.writeShort(compress ? BinaryFormat.DEFLATED : 0);
+        header.writeInt(tracks.getBPM());
+        header.writeInt(tracks.getSteps());
+        header.writeInt(tracks.getTicksPerStep());
+        header.writeInt(instruments.size());
+        header.writeInt((int) bodySize);
+        writeBody(instruments);
+        out.flush();
+        EventLog.getInstance().logEvent(new Event(EventKind.SAVED_TO_BINARY));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes writer; throws IOException if the file cannot be closed
+    public void close() throws IOException {
+        out.close();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the index of instrument records and then the records themselves, deflated if compress
+    private void writeBody(List<Instrument> instruments) throws IOException {
+        if (!compress) {
+            BinaryFormat.writeBody(new DataOutputStream(out), instruments);
+            return;
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            DeflaterOutputStream deflated = new DeflaterOutputStream(out, deflater, BUFFER_SIZE);
+            BinaryFormat.writeBody(new DataOutputStream(deflated), instruments);
+            deflated.finish();
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package persistence;
+
+import model.StepPattern;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+// Represents the layout of the journal directory shared by JournalWriter and JournalReader. The directory holds one
+// snapshot of the whole track list and the segments of records written since. Every record and snapshot ends with a
+// CRC32 of its bytes, so a write torn by a crash is recognised and ignored.
+//   record:   int size, long sequence, byte type, payload, int crc (size counts the sequence, type and payload)
+//   snapshot: int magic, short version, long sequence, int bpm, int steps, int ticks per step, int count,
+//             count x (int number, pattern, lanes), int crc; version 1 snapshots have no steps or ticks per step
+//   pattern:  int length, one long per 64 steps (see StepPattern.toWords)
+//   lanes:    byte 1 if there are any, then length x byte velocity, length x byte accent (1 or 0), length x byte
+//             probability and length x short offset; or byte 0
+//   step:     byte note (1 or 0), byte velocity, byte accent, byte probability, short offset
+// Records are written in the layout of the snapshot before them, as a new snapshot is taken whenever a journal is
+// opened: from version 3, the patterns of TRACK_ADDED and INSTRUMENT_CHANGED are followed by their lanes, and
+// NOTE_CHANGED holds the whole step rather than just its note.
+final class JournalFormat {
+    static final byte TRACK_ADDED = 1;
+    static final byte TRACK_REMOVED = 2;
+    static final byte NOTE_CHANGED = 3;
+    static final byte INSTRUMENT_CHANGED = 4;
+    static final byte BPM_CHANGED = 5;
+    static final byte STEPS_CHANGED = 6;
+
+    static final int SNAPSHOT_MAGIC = 0x444D4A53;
+    static final short SNAPSHOT_VERSION = 3;
+    static final short LANES_VERSION = 3;
+    static final int STEP_SIZE = 4 + Short.BYTES;
+    static final String SNAPSHOT_FILE = "snapshot.bin";
+    static final String SNAPSHOT_TEMP_FILE = "snapshot.tmp";
+    static final int RECORD_HEADER_SIZE = Integer.BYTES + Long.BYTES + 1;
+    static final int CRC_SIZE = Integer.BYTES;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private JournalFormat() {
+    }
+
+    // EFFECTS: returns the file name of the segment whose first record has the given sequence number
+    static String segmentName(long firstSequence) {
+        return String.format("%s%019d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX);
+    }
+
+    // EFFECTS: returns true if file is a journal segment
+    static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    // EFFECTS: returns the number of bytes pattern takes up
+    static int patternSize(StepPattern pattern) {
+        return Integer.BYTES + Long.BYTES * ((pattern.length() + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    // MODIFIES: buffer
+    // EFFECTS: writes pattern at the buffer's position
+    static void putPattern(ByteBuffer buffer, StepPattern pattern) {
+        buffer.putInt(pattern.length());
+        for (long word : pattern.toWords()) {
+            buffer.putLong(word);
+        }
+    }
+
+    // MODIFIES: buffer
+    // EFFECTS: reads a pattern from the buffer's position
+    static StepPattern getPattern(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        long[] words = new long[(length + Long.SIZE - 1) / Long.SIZE];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = buffer.getLong();
+        }
+        return StepPattern.fromWords(length, words);
+    }
+
+    // EFFECTS: returns the number of bytes the lanes of pattern take up
+    static int lanesSize(StepPattern pattern) {
+        return 1 + (pattern.hasLanes() ? pattern.length() * (3 + Short.BYTES) : 0);
+    }
+
+    // MODIFIES: buffer
+    // EFFECTS: writes the lanes of pattern at the buffer's position, one lane after another
+    static void putLanes(ByteBuffer buffer, StepPattern pattern) {
+        buffer.put((byte) (pattern.hasLanes() ? 1 : 0));
+        if (!pattern.hasLanes()) {
+            return;
+        }
+        int length = pattern.length();
+        for (int step = 0; step < length; step++) {
+            buffer.put((byte) pattern.getVelocity(step));
+        }
+        for (int step = 0; step < length; step++) {
+            buffer.put((byte) (pattern.isAccented(step) ? 1 : 0));
+        }
+        for (int step = 0; step < length; step++) {
+            buffer.put((byte) pattern.getProbability(step));
+        }
+        for (int step = 0; step < length; step++) {
+            buffer.putShort((short) pattern.getOffset(step));
+        }
+    }
+
+    // MODIFIES: buffer, pattern
+    // EFFECTS: reads lanes from the buffer's position into the steps of pattern
+    static void getLanes(ByteBuffer buffer, StepPattern pattern) {
+        if (buffer.get() == 0) {
+            return;
+        }
+        int length = pattern.length();
+        for (int step = 0; step < length; step++) {
+            pattern.setVelocity(step, buffer.get());
+        }
+        for (int step = 0; step < length; step++) {
+            pattern.setAccent(step, buffer.get() != 0);
+        }
+        for (int step = 0; step < length; step++) {
+            pattern.setProbability(step, buffer.get());
+        }
+        for (int step = 0; step < length; step++) {
+            pattern.setOffset(step, buffer.getShort());
+        }
+    }
+
+    // MODIFIES: buffer
+    // EFFECTS: writes the note and lanes of the given step of pattern at the buffer's position
+    static void putStep(ByteBuffer buffer, StepPattern pattern, int step) {
+        buffer.put((byte) (pattern.get(step) ? 1 : 0)).put((byte) pattern.getVelocity(step))
+                .put((byte) (pattern.isAccented(step) ? 1 : 0)).put((byte) pattern.getProbability(step))
+                .putShort((short) pattern.getOffset(step));
+    }
+
+    // EFFECTS: returns the CRC32 of the bytes of buffer from start up to end
+    static int crc(ByteBuffer buffer, int start, int end) {
+        CRC32 crc = new CRC32();
+        ByteBuffer range = buffer.duplicate();
+        range.limit(end).position(start);
+        crc.update(range);
+        return (int) crc.getValue();
+    }
+}
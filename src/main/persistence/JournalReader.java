@@ -0,0 +1,207 @@
+package persistence;
+
+import model.DrumTrackList;
+import model.Instrument;
+import model.StepPattern;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Represents a reader that rebuilds a track list from the journal written by JournalWriter: it loads the snapshot,
+// then replays the records after it, in order. Replay stops at the first record which is missing, torn or corrupt,
+// so the result is always a state the track list actually passed through.
+public class JournalReader {
+    private final Path directory;
+
+    // EFFECTS: constructs a reader to recover from the journal in directory
+    public JournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    // EFFECTS: returns the track list as it was after the last change journaled, or null if there is no snapshot to
+    //          start from; throws IOException if the snapshot is corrupt or the journal cannot be read
+    public DrumTrackList recover() throws Exception {
+        Path snapshotFile = directory.resolve(JournalFormat.SNAPSHOT_FILE);
+        if (!Files.exists(snapshotFile)) {
+            return null;
+        }
+        ByteBuffer snapshot = ByteBuffer.wrap(Files.readAllBytes(snapshotFile));
+        long expected = checkSnapshot(snapshot) + 1;
+        short version = snapshot.getShort(Integer.BYTES);
+        DrumTrackList tracks = readSnapshot(snapshot, version);
+        for (Path segment : segments()) {
+            ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(segment));
+            for (ByteBuffer record = nextRecord(records); record != null; record = nextRecord(records)) {
+                long sequence = record.getLong();
+                if (sequence > expected) {
+                    return tracks;
+                } else if (sequence == expected) {
+                    apply(tracks, record, version);
+                    expected++;
+                }
+            }
+        }
+        return tracks;
+    }
+
+    // EFFECTS: returns the highest sequence number of any intact snapshot or record in the journal, or 0 if there is
+    //          none; throws IOException if the journal cannot be read
+    public long findLastSequence() throws IOException {
+        long last = 0;
+        Path snapshotFile = directory.resolve(JournalFormat.SNAPSHOT_FILE);
+        if (Files.exists(snapshotFile)) {
+            try {
+                last = checkSnapshot(ByteBuffer.wrap(Files.readAllBytes(snapshotFile)));
+            } catch (IOException e) {
+                // a corrupt snapshot numbers nothing; the segments still do
+            }
+        }
+        for (Path segment : segments()) {
+            ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(segment));
+            for (ByteBuffer record = nextRecord(records); record != null; record = nextRecord(records)) {
+                last = Math.max(last, record.getLong());
+            }
+        }
+        return last;
+    }
+
+    // EFFECTS: returns the journal's segments, oldest first
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, JournalFormat::isSegment)) {
+                files.forEach(segments::add);
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    // MODIFIES: snapshot
+    // EFFECTS: checks the snapshot's header and CRC, and returns its sequence number, leaving the buffer positioned
+    //          at its bpm; throws IOException if it is not an intact snapshot of a known version
+    private long checkSnapshot(ByteBuffer snapshot) throws IOException {
+        int end = snapshot.limit() - JournalFormat.CRC_SIZE;
+        if (end < 0 || snapshot.getInt(end) != JournalFormat.crc(snapshot, 0, end)) {
+            throw new IOException("Journal snapshot is corrupt");
+        }
+        if (snapshot.getInt() != JournalFormat.SNAPSHOT_MAGIC) {
+            throw new IOException("Journal snapshot is not of a known version");
+        }
+        short version = snapshot.getShort();
+        if (version < 1 || version > JournalFormat.SNAPSHOT_VERSION) {
+            throw new IOException("Journal snapshot is not of a known version");
+        }
+        return snapshot.getLong();
+    }
+
+    // MODIFIES: snapshot
+    // EFFECTS: returns the track list held in the rest of the snapshot of the given version; one from before steps
+    //          were journaled has as many steps as its longest instrument, up to DrumTrackList.MAX_STEPS, and the
+    //          default resolution
+    private DrumTrackList readSnapshot(ByteBuffer snapshot, short version) throws Exception {
+        int bpm = snapshot.getInt();
+        int steps = version == 1 ? 0 : snapshot.getInt();
+        int ticksPerStep = version == 1 ? DrumTrackList.DEFAULT_TICKS_PER_STEP : snapshot.getInt();
+        int count = snapshot.getInt();
+        List<Instrument> instruments = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int number = snapshot.getInt();
+            instruments.add(new Instrument(number, getPattern(snapshot, version)));
+        }
+        if (version == 1) {
+            steps = Math.min(DrumTrackList.stepsFor(instruments), DrumTrackList.MAX_STEPS);
+        }
+        DrumTrackList tracks = new DrumTrackList(bpm, steps, ticksPerStep);
+        for (Instrument instrument : instruments) {
+            tracks.addTrack(instrument);
+        }
+        return tracks;
+    }
+
+    // MODIFIES: records
+    // EFFECTS: returns the next intact record, positioned at its sequence number, and moves past it; returns null if
+    //          there are no more records or the next one is torn or corrupt
+    private ByteBuffer nextRecord(ByteBuffer records) {
+        if (records.remaining() < Integer.BYTES) {
+            return null;
+        }
+        int start = records.position();
+        int size = records.getInt(start);
+        int end = start + Integer.BYTES + size;
+        if (size < Long.BYTES + 1 || records.remaining() < Integer.BYTES + size + JournalFormat.CRC_SIZE
+                || records.getInt(end) != JournalFormat.crc(records, start + Integer.BYTES, end)) {
+            return null;
+        }
+        ByteBuffer record = records.duplicate();
+        record.limit(end).position(start + Integer.BYTES);
+        records.position(end + JournalFormat.CRC_SIZE);
+        return record;
+    }
+
+    // MODIFIES: buffer
+    // EFFECTS: reads a pattern from the buffer's position, followed by its lanes if the journal is of a version which
+    //          has them
+    private static StepPattern getPattern(ByteBuffer buffer, short version) {
+        StepPattern pattern = JournalFormat.getPattern(buffer);
+        if (version >= JournalFormat.LANES_VERSION) {
+            JournalFormat.getLanes(buffer, pattern);
+        }
+        return pattern;
+    }
+
+    // MODIFIES: tracks
+    // EFFECTS: makes the change described by the rest of record, written after a snapshot of the given version, to
+    //          tracks
+    private void apply(DrumTrackList tracks, ByteBuffer record, short version) throws Exception {
+        byte type = record.get();
+        if (type == JournalFormat.TRACK_ADDED) {
+            record.getInt();
+            int number = record.getInt();
+            tracks.addTrack(new Instrument(number, getPattern(record, version)));
+        } else if (type == JournalFormat.TRACK_REMOVED) {
+            tracks.removeTrack(record.getInt());
+        } else if (type == JournalFormat.NOTE_CHANGED) {
+            applyNoteChanged(tracks.getInstruments().get(record.getInt()), record, version);
+        } else if (type == JournalFormat.INSTRUMENT_CHANGED) {
+            applyInstrumentChanged(tracks.getInstruments().get(record.getInt()), record, version);
+        } else if (type == JournalFormat.BPM_CHANGED) {
+            tracks.setBPM(record.getInt());
+        } else if (type == JournalFormat.STEPS_CHANGED) {
+            tracks.setSteps(record.getInt());
+        }
+    }
+
+    // MODIFIES: instrument
+    // EFFECTS: gives the step held in the rest of record its note and, if the journal is of a version which has them,
+    //          its lanes
+    private void applyNoteChanged(Instrument instrument, ByteBuffer record, short version) {
+        int step = record.getInt();
+        instrument.setNote(step, record.get() != 0);
+        if (version >= JournalFormat.LANES_VERSION) {
+            instrument.setVelocity(step, record.get());
+            instrument.setAccent(step, record.get() != 0);
+            instrument.setProbability(step, record.get());
+            instrument.setOffset(step, record.getShort());
+        }
+    }
+
+    // MODIFIES: instrument
+    // EFFECTS: gives instrument the MIDI number and pattern held in the rest of record
+    private void applyInstrumentChanged(Instrument instrument, ByteBuffer record, short version) {
+        int number = record.getInt();
+        StepPattern pattern = getPattern(record, version);
+        if (number != instrument.getInstrumentNumber()) {
+            instrument.setInstrument(number);
+        }
+        if (!pattern.equals(instrument.getPattern())) {
+            instrument.setPattern(pattern);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package persistence;
+
+import model.DrumTrackList;
+import model.Event;
+import model.EventLog;
+import model.Instrument;
+import model.StepPattern;
+import model.TrackListObserver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Represents a journal of every change made to a track list, so that the last state can be rebuilt after a crash.
+// Changes are encoded into small binary records on the thread making them and handed to a background writer, which
+// appends whatever has queued up to the current segment and syncs it to disk once per batch (group commit). Every
+// so often, and whenever a new track list is attached, a snapshot of the whole list is taken; once it is on disk the
+// journal moves on to a new segment and the older segments are deleted, so recovery replays only a short tail.
+public class JournalWriter implements TrackListObserver, Closeable {
+    public static final int DEFAULT_SNAPSHOT_EVERY = 1000;
+
+    private static final int RECORD = 0;
+    private static final int SNAPSHOT = 1;
+    private static final int FLUSH = 2;
+    private static final int STOP = 3;
+
+    private final Path directory;
+    private final int snapshotEvery;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private DrumTrackList attached;
+    private long sequence;
+    private int sinceSnapshot;
+    private FileChannel segment;
+    private volatile IOException failure;
+    private volatile long commits;
+
+    // EFFECTS: opens a journal in directory, taking a snapshot after every DEFAULT_SNAPSHOT_EVERY records
+    public JournalWriter(Path directory) throws IOException {
+        this(directory, DEFAULT_SNAPSHOT_EVERY);
+    }
+
+    // REQUIRES: snapshotEvery > 0
+    // EFFECTS: opens a journal in directory, creating it if needed, which takes a snapshot after every snapshotEvery
+    //          records; numbering carries on from whatever is already journaled there. Nothing is journaled until a
+    //          track list is attached. Throws IOException if the directory cannot be read or created
+    public JournalWriter(Path directory, int snapshotEvery) throws IOException {
+        this.directory = directory;
+        this.snapshotEvery = snapshotEvery;
+        Files.createDirectories(directory);
+        sequence = new JournalReader(directory).findLastSequence();
+        writer = new Thread(this::run, "Journal writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // MODIFIES: this, tracks
+    // EFFECTS: stops journaling the previously attached track list, if any, and starts journaling tracks from a
+    //          snapshot of its current state
+    public void attach(DrumTrackList tracks) {
+        if (attached != null) {
+            attached.removeObserver(this);
+        }
+        attached = tracks;
+        tracks.addObserver(this);
+        snapshot();
+    }
+
+    @Override
+    public void trackAdded(DrumTrackList tracks, int index) {
+        Instrument instrument = tracks.getInstruments().get(index);
+        StepPattern pattern = instrument.getPattern();
+        ByteBuffer record = frame(JournalFormat.TRACK_ADDED, 2 * Integer.BYTES + JournalFormat.patternSize(pattern)
+                + JournalFormat.lanesSize(pattern));
+        record.putInt(index).putInt(instrument.getInstrumentNumber());
+        JournalFormat.putPattern(record, pattern);
+        JournalFormat.putLanes(record, pattern);
+        append(record);
+    }
+
+    @Override
+    public void trackRemoved(DrumTrackList tracks, int index) {
+        append(frame(JournalFormat.TRACK_REMOVED, Integer.BYTES).putInt(index));
+    }
+
+    @Override
+    public void noteChanged(DrumTrackList tracks, int index, int step) {
+        ByteBuffer record = frame(JournalFormat.NOTE_CHANGED, 2 * Integer.BYTES + JournalFormat.STEP_SIZE);
+        record.putInt(index).putInt(step);
+        JournalFormat.putStep(record, tracks.getInstruments().get(index).getPattern(), step);
+        append(record);
+    }
+
+    @Override
+    public void instrumentChanged(DrumTrackList tracks, int index) {
+        Instrument instrument = tracks.getInstruments().get(index);
+        StepPattern pattern = instrument.getPattern();
+        ByteBuffer record = frame(JournalFormat.INSTRUMENT_CHANGED,
+                2 * Integer.BYTES + JournalFormat.patternSize(pattern) + JournalFormat.lanesSize(pattern));
+        record.putInt(index).putInt(instrument.getInstrumentNumber());
+        JournalFormat.putPattern(record, pattern);
+        JournalFormat.putLanes(record, pattern);
+        append(record);
+    }
+
+    @Override
+    public void bpmChanged(DrumTrackList tracks) {
+        append(frame(JournalFormat.BPM_CHANGED, Integer.BYTES).putInt(tracks.getBPM()));
+    }
+
+    @Override
+    public void stepsChanged(DrumTrackList tracks) {
+        append(frame(JournalFormat.STEPS_CHANGED, Integer.BYTES).putInt(tracks.getSteps()));
+    }
+
+    // EFFECTS: waits until everything journaled so far is on disk; throws IOException if the journal has failed
+    public void flush() throws IOException {
+        CountDownLatch done = new CountDownLatch(1);
+        queue.add(new Pending(FLUSH, null, sequence, done));
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkFailure();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops journaling, writes out everything journaled so far and closes the journal; throws IOException if
+    //          the journal has failed
+    @Override
+    public void close() throws IOException {
+        if (attached != null) {
+            attached.removeObserver(this);
+        }
+        queue.add(new Pending(STOP, null, sequence, null));
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkFailure();
+    }
+
+    // EFFECTS: returns the sequence number of the last record or snapshot journaled
+    public long getLastSequence() {
+        return sequence;
+    }
+
+    // EFFECTS: returns the number of times the journal has been synced to disk
+    public long getCommits() {
+        return commits;
+    }
+
+    // EFFECTS: throws the error which stopped the journal, if any
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns a buffer for the next record, holding its header and with room for payloadSize bytes
+    private ByteBuffer frame(byte type, int payloadSize) {
+        ByteBuffer record = ByteBuffer.allocate(JournalFormat.RECORD_HEADER_SIZE + payloadSize
+                + JournalFormat.CRC_SIZE);
+        record.putInt(Long.BYTES + 1 + payloadSize).putLong(++sequence).put(type);
+        return record;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: seals record with its CRC and queues it for writing, then takes a snapshot if one is due
+    private void append(ByteBuffer record) {
+        record.putInt(JournalFormat.crc(record, Integer.BYTES, record.position()));
+        record.flip();
+        queue.add(new Pending(RECORD, record, sequence, null));
+        if (++sinceSnapshot >= snapshotEvery) {
+            snapshot();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: encodes the attached track list and queues it to be written as the new snapshot
+    private void snapshot() {
+        List<Instrument> instruments = attached.getInstruments();
+        int size = 4 * Integer.BYTES + Short.BYTES + Long.BYTES + Integer.BYTES + JournalFormat.CRC_SIZE;
+        for (Instrument instrument : instruments) {
+            size += Integer.BYTES + JournalFormat.patternSize(instrument.getPattern())
+                    + JournalFormat.lanesSize(instrument.getPattern());
+        }
+        ByteBuffer snapshot = ByteBuffer.allocate(size);
+        snapshot.putInt(JournalFormat.SNAPSHOT_MAGIC).putShort(JournalFormat.SNAPSHOT_VERSION).putLong(++sequence)
+                .putInt(attached.getBPM()).putInt(attached.getSteps()).putInt(attached.getTicksPerStep())
+                .putInt(instruments.size());
+        for (Instrument instrument : instruments) {
+            snapshot.putInt(instrument.getInstrumentNumber());
+            JournalFormat.putPattern(snapshot, instrument.getPattern());
+            JournalFormat.putLanes(snapshot, instrument.getPattern());
+        }
+        snapshot.putInt(JournalFormat.crc(snapshot, 0, snapshot.position()));
+        snapshot.flip();
+        queue.add(new Pending(SNAPSHOT, snapshot, sequence, null));
+        sinceSnapshot = 0;
+    }
+
+    // EFFECTS: writes batches of queued records and snapshots until stopped, syncing once per batch
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        boolean stopped = false;
+        while (!stopped) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch);
+            stopped = writeBatch(batch);
+            batch.clear();
+        }
+        closeSegment();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes a batch and syncs it, then releases anyone waiting for it; returns true if asked to stop. Once
+    //          writing has failed, records are dropped and the failure is kept to be reported
+    private boolean writeBatch(List<Pending> batch) {
+        boolean stop = false;
+        try {
+            for (Pending pending : batch) {
+                stop |= pending.kind == STOP;
+                if (failure == null) {
+                    write(pending);
+                }
+            }
+            if (segment != null && failure == null) {
+                segment.force(false);
+                commits++;
+            }
+        } catch (IOException e) {
+            failure = e;
+            EventLog.getInstance().logEvent(new Event("Journal stopped: " + e.getMessage()));
+        }
+        for (Pending pending : batch) {
+            if (pending.done != null) {
+                pending.done.countDown();
+            }
+        }
+        return stop;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes a record to the current segment, or a snapshot to its own file
+    private void write(Pending pending) throws IOException {
+        if (pending.kind == RECORD && segment != null) {
+            while (pending.bytes.hasRemaining()) {
+                segment.write(pending.bytes);
+            }
+        } else if (pending.kind == SNAPSHOT) {
+            writeSnapshot(pending);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts a new segment after the snapshot, replaces the old snapshot with it once it is safely on disk,
+    //          forces the rename to disk, then deletes the segments it makes redundant
+    private void writeSnapshot(Pending pending) throws IOException {
+        closeSegment();
+        Path segmentFile = directory.resolve(JournalFormat.segmentName(pending.sequence + 1));
+        segment = FileChannel.open(segmentFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        Path temp = directory.resolve(JournalFormat.SNAPSHOT_TEMP_FILE);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (pending.bytes.hasRemaining()) {
+                channel.write(pending.bytes);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(JournalFormat.SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        ProjectSaver.forceDirectory(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, JournalFormat::isSegment)) {
+            for (Path file : files) {
+                if (!file.equals(segmentFile)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes the current segment, if any
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.close();
+        } catch (IOException e) {
+            failure = e;
+        }
+        segment = null;
+    }
+
+    // Represents something queued for the background writer
+    private static final class Pending {
+        private final int kind;
+        private final ByteBuffer bytes;
+        private final long sequence;
+        private final CountDownLatch done;
+
+        Pending(int kind, ByteBuffer bytes, long sequence, CountDownLatch done) {
+            this.kind = kind;
+            this.bytes = bytes;
+            this.sequence = sequence;
+            this.done = done;
+        }
+    }
+}
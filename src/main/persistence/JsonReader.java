@@ -3,17 +3,22 @@ package persistence;
 import model.*;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
-import org.json.*;
-
-import javax.sound.midi.InvalidMidiDataException;
-
-// Represents a reader to load program state from JSON file
+// Represents a reader to load program state from JSON file. The file is parsed as a stream of tokens, and each
+// instrument is checked as soon as it has been read, so the whole document is never held in memory at once. The
+// tracklist is built once the whole object has been read, as its steps and resolution may come after the instruments.
+// Likewise an instrument's lanes are held until the whole instrument has been read, as they may come before its notes.
 public class JsonReader {
+    private static final int LOWEST_INSTRUMENT = 35;
+    private static final int HIGHEST_INSTRUMENT = 81;
+
     private String source;
 
     // EFFECTS: constructs a reader to read from source file
@@ -22,48 +27,204 @@ public class JsonReader {
     }
 
     // EFFECTS: reads DrumTrackList from file and returns it;
-    // throws IOException if an error occurs reading data from the file
+    // throws IOException if an error occurs reading data from the file, or it is not a valid tracklist
     public DrumTrackList read() throws Exception {
-        String jsonData = readFile(source);
-        JSONObject jsonObject = new JSONObject(jsonData);
-        return parseDrumTrackList(jsonObject);
+        try (JsonTokenizer json = new JsonTokenizer(new InputStreamReader(Files.newInputStream(Paths.get(source)),
+                StandardCharsets.UTF_8))) {
+            DrumTrackList tracks = parseDrumTrackList(json);
+            json.endDocument();
+            return tracks;
+        }
     }
 
-    // EFFECTS: reads source file as string and returns it
-    private String readFile(String source) throws IOException {
-        StringBuilder contentBuilder = new StringBuilder();
+    // EFFECTS: parses DrumTrackList from the JSON object at the tokenizer's position and returns it; its members may
+    //          come in any order, and unknown members are skipped. Steps and resolution are optional: a tracklist saved
+    //          before they were has as many steps as its longest instrument (see DrumTrackList.stepsFor), and
+    //          DrumTrackList.DEFAULT_TICKS_PER_STEP
+    private DrumTrackList parseDrumTrackList(JsonTokenizer json) throws Exception {
+        Integer bpm = null;
+        Integer steps = null;
+        int resolution = DrumTrackList.DEFAULT_TICKS_PER_STEP;
+        List<Instrument> instruments = new ArrayList<>();
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (name.equals("bpm")) {
+                bpm = parseInRange(json, "Bpm", DrumTrackList.MAX_BPM);
+            } else if (name.equals("steps")) {
+                steps = parseInRange(json, "Steps", DrumTrackList.MAX_STEPS);
+            } else if (name.equals("resolution")) {
+                resolution = parseInRange(json, "Resolution", DrumTrackList.MAX_TICKS_PER_STEP);
+            } else if (name.equals("instruments")) {
+                parseInstruments(instruments, json);
+            } else {
+                json.skipValue();
+            }
+        }
+        return makeDrumTrackList(json, bpm, steps, resolution, instruments);
+    }
 
-        try (Stream<String> stream = Files.lines(Paths.get(source), StandardCharsets.UTF_8)) {
-            stream.forEach(s -> contentBuilder.append(s));
+    // EFFECTS: ends the object at the tokenizer's position and returns a tracklist with the given bpm, steps, if any,
+    //          and resolution, holding instruments in order; throws IOException if there is no bpm, or the instruments
+    //          do not all have the tracklist's number of steps
+    private DrumTrackList makeDrumTrackList(JsonTokenizer json, Integer bpm, Integer steps, int resolution,
+                                            List<Instrument> instruments) throws Exception {
+        if (bpm == null) {
+            throw json.error("Missing bpm");
         }
+        int trackSteps = checkSteps(json, steps, instruments);
+        json.endObject();
+        DrumTrackList tracks = new DrumTrackList(bpm, trackSteps, resolution);
+        for (Instrument instrument : instruments) {
+            tracks.addTrack(instrument);
+        }
+        return tracks;
+    }
 
-        return contentBuilder.toString();
+    // EFFECTS: returns the number of steps of the tracklist holding instruments, which is steps unless it was not
+    //          given; throws IOException if an instrument has a different number of steps, or there are more than
+    //          DrumTrackList.MAX_STEPS
+    private int checkSteps(JsonTokenizer json, Integer steps, List<Instrument> instruments) throws IOException {
+        if (steps == null) {
+            int longest = DrumTrackList.stepsFor(instruments);
+            if (longest > DrumTrackList.MAX_STEPS) {
+                throw json.error("Notes may not have more than " + DrumTrackList.MAX_STEPS + " steps");
+            }
+            return longest;
+        }
+        for (int i = 0; i < instruments.size(); i++) {
+            int length = instruments.get(i).getPattern().length();
+            if (length != steps) {
+                throw json.error("Instrument " + i + " has " + length + " steps, not the tracklist's " + steps);
+            }
+        }
+        return steps;
     }
 
-    // EFFECTS: parses DrumTrackList from JSON object and returns it
-    private DrumTrackList parseDrumTrackList(JSONObject jsonObject) throws Exception {
-        int bpm = jsonObject.getInt("bpm");
-        DrumTrackList tracks = new DrumTrackList(bpm);
-        addInstruments(tracks, jsonObject);
-        return tracks;
+    // EFFECTS: parses an int from the JSON number at the tokenizer's position and returns it; throws IOException if
+    //          it is not from 1 to max
+    private int parseInRange(JsonTokenizer json, String what, int max) throws IOException {
+        int value = json.nextInt();
+        if (value < 1 || value > max) {
+            throw json.error(what + " must be from 1 to " + max);
+        }
+        return value;
+    }
+
+    // MODIFIES: instruments
+    // EFFECTS: parses instruments from the JSON array at the tokenizer's position and adds them to instruments
+    private void parseInstruments(List<Instrument> instruments, JsonTokenizer json) throws Exception {
+        json.beginArray();
+        while (json.hasNext()) {
+            instruments.add(parseInstrument(json));
+        }
+        json.endArray();
+    }
+
+    // EFFECTS: parses instrument from the JSON object at the tokenizer's position and returns it; throws IOException
+    //          if its number is not a drum, its notes are not all 'x' or '-', or a lane is not valid
+    private Instrument parseInstrument(JsonTokenizer json) throws IOException {
+        int instrumentNumber = -1;
+        StepPattern pattern = null;
+        Lanes lanes = new Lanes();
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (name.equals("number")) {
+                instrumentNumber = json.nextInt();
+            } else if (name.equals("notes")) {
+                pattern = parseNotes(json);
+            } else if (!parseLane(name, lanes, json)) {
+                json.skipValue();
+            }
+        }
+        if (instrumentNumber < LOWEST_INSTRUMENT || instrumentNumber > HIGHEST_INSTRUMENT || pattern == null) {
+            throw json.error("Instrument needs a number from 35 to 81 and notes");
+        }
+        applyLanes(lanes, pattern, json);
+        json.endObject();
+        return new Instrument(instrumentNumber, pattern);
+    }
+
+    // MODIFIES: lanes
+    // EFFECTS: parses the lane of the given name, if it is one, from the value at the tokenizer's position into lanes
+    //          and returns true; returns false if name is not a lane. Throws IOException if a value is out of range
+    private boolean parseLane(String name, Lanes lanes, JsonTokenizer json) throws IOException {
+        if (name.equals("velocity")) {
+            lanes.velocities = parseValues(json, "Velocity", 1, StepPattern.MAX_VELOCITY);
+        } else if (name.equals("accent")) {
+            lanes.accents = parseNotes(json);
+        } else if (name.equals("probability")) {
+            lanes.probabilities = parseValues(json, "Probability", 0, StepPattern.MAX_PROBABILITY);
+        } else if (name.equals("offset")) {
+            lanes.offsets = parseValues(json, "Offset", -StepPattern.MAX_OFFSET, StepPattern.MAX_OFFSET);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    // EFFECTS: parses ints from the JSON array at the tokenizer's position and returns them; throws IOException if
+    //          any is not from min to max
+    private int[] parseValues(JsonTokenizer json, String what, int min, int max) throws IOException {
+        int[] values = new int[DrumTrackList.DEFAULT_STEPS];
+        int count = 0;
+        json.beginArray();
+        while (json.hasNext()) {
+            int value = json.nextInt();
+            if (value < min || value > max) {
+                throw json.error(what + " must be from " + min + " to " + max);
+            }
+            if (count == values.length) {
+                values = Arrays.copyOf(values, 2 * count);
+            }
+            values[count++] = value;
+        }
+        json.endArray();
+        return Arrays.copyOf(values, count);
+    }
+
+    // MODIFIES: pattern
+    // EFFECTS: sets the lanes read into the steps of pattern; throws IOException if a lane does not have one value
+    //          for each step
+    private void applyLanes(Lanes lanes, StepPattern pattern, JsonTokenizer json) throws IOException {
+        int length = pattern.length();
+        if (lanes.velocities != null && lanes.velocities.length != length
+                || lanes.accents != null && lanes.accents.length() != length
+                || lanes.probabilities != null && lanes.probabilities.length != length
+                || lanes.offsets != null && lanes.offsets.length != length) {
+            throw json.error("Each lane needs one value for each of the " + length + " steps");
+        }
+        for (int step = 0; step < length; step++) {
+            pattern.setVelocity(step, lanes.velocities != null ? lanes.velocities[step] : StepPattern.DEFAULT_VELOCITY);
+            pattern.setAccent(step, lanes.accents != null && lanes.accents.get(step));
+            pattern.setProbability(step, lanes.probabilities != null ? lanes.probabilities[step]
+                    : StepPattern.MAX_PROBABILITY);
+            pattern.setOffset(step, lanes.offsets != null ? lanes.offsets[step] : 0);
+        }
     }
 
-    // MODIFIES: tracks
-    // EFFECTS: parses thingies from JSON object and adds them to tracklist
-    private void addInstruments(DrumTrackList tracks, JSONObject jsonObject) throws Exception {
-        JSONArray jsonArray = jsonObject.getJSONArray("instruments");
-        for (Object json : jsonArray) {
-            JSONObject nextInstrument = (JSONObject) json;
-            addInstrument(tracks, nextInstrument);
+    // EFFECTS: parses notes from the JSON string at the tokenizer's position and returns them as a pattern; throws
+    //          IOException if any character is not 'x' or '-'
+    private StepPattern parseNotes(JsonTokenizer json) throws IOException {
+        CharSequence notes = json.nextChars();
+        StepPattern pattern = new StepPattern(notes.length());
+        for (int i = 0; i < notes.length(); i++) {
+            char c = notes.charAt(i);
+            if (c == 'x') {
+                pattern.set(i, true);
+            } else if (c != '-') {
+                throw json.error("Notes may only contain 'x' and '-', not '" + c + "'");
+            }
         }
+        return pattern;
     }
 
-    // MODIFIES: tracks
-    // EFFECTS: parses instrument from JSON object and adds it to tracklist
-    private void addInstrument(DrumTrackList tracks, JSONObject jsonObject) throws Exception {
-        int instrumentNumber = jsonObject.getInt("number");
-        String instrumentNotes = jsonObject.getString("notes");
-        Instrument instrument = new Instrument(instrumentNumber, instrumentNotes);
-        tracks.addTrack(instrument);
+    // Represents the lanes read for an instrument, each null until it has been read
+    private static final class Lanes {
+        private int[] velocities;
+        private StepPattern accents;
+        private int[] probabilities;
+        private int[] offsets;
     }
 }
@@ -0,0 +1,374 @@
+package persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+// Represents a pull parser which reads a JSON document one token at a time from a character stream, through a fixed
+// buffer, so that no more than one string of the document is ever held in memory. The caller walks the document
+// with beginObject(), nextName(), nextInt() and the like, and gets an IOException giving the line and column as soon
+// as the document is not valid JSON or not of the shape the caller expects.
+final class JsonTokenizer implements Closeable {
+    enum Token { BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, LITERAL, END_DOCUMENT }
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int NONEMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder text = new StringBuilder();
+    private int pos;
+    private int limit;
+    private int line = 1;
+    private int lineStart;
+    private int[] stack = new int[32];
+    private int depth = 1;
+    private Token peeked;
+
+    // EFFECTS: creates a tokenizer reading the document in from the start
+    JsonTokenizer(Reader in) {
+        this.in = in;
+        stack[0] = EMPTY_DOCUMENT;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the kind of the next token without consuming it
+    Token peek() throws IOException {
+        if (peeked == null) {
+            peeked = readToken();
+        }
+        return peeked;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns true if the current object or array has another member
+    boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the start of an object
+    void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the end of the current object
+    void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        depth--;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the start of an array
+    void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the end of the current array
+    void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        depth--;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the end of the document; throws IOException if anything but white space follows it
+    void endDocument() throws IOException {
+        expect(Token.END_DOCUMENT);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes a member name and returns it
+    String nextName() throws IOException {
+        expect(Token.NAME);
+        return readString().toString();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes a string value and returns its characters; they are only valid until the next call
+    CharSequence nextChars() throws IOException {
+        expect(Token.STRING);
+        return readString();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes a number and returns it; throws IOException if it is not an int
+    int nextInt() throws IOException {
+        expect(Token.NUMBER);
+        boolean negative = peekChar() == '-';
+        if (negative) {
+            pos++;
+        }
+        long value = 0;
+        int digits = 0;
+        while (fill() && Character.isDigit(buffer[pos]) && value <= Integer.MAX_VALUE + 1L) {
+            value = value * 10 + (buffer[pos++] - '0');
+            digits++;
+        }
+        value = negative ? -value : value;
+        if (digits == 0 || value != (int) value || isNumberChar(peekChar())) {
+            throw error("Expected an int");
+        }
+        return (int) value;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next value, with everything inside it
+    void skipValue() throws IOException {
+        Token token = peek();
+        if (token == Token.BEGIN_OBJECT) {
+            beginObject();
+            while (hasNext()) {
+                nextName();
+                skipValue();
+            }
+            endObject();
+        } else if (token == Token.BEGIN_ARRAY) {
+            beginArray();
+            while (hasNext()) {
+                skipValue();
+            }
+            endArray();
+        } else if (token == Token.STRING) {
+            nextChars();
+        } else {
+            expect(token);
+            skipWord(token);
+        }
+    }
+
+    // EFFECTS: returns an IOException with message, saying where in the document it happened
+    IOException error(String message) {
+        return new IOException(String.format("%s at line %d, column %d", message, line, pos - lineStart + 1));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes the underlying stream
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next token, throwing IOException if it is not of the expected kind
+    private void expect(Token expected) throws IOException {
+        Token token = peek();
+        if (token != expected) {
+            throw error("Expected " + expected + " but was " + token);
+        }
+        peeked = null;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the rest of a number or literal
+    private void skipWord(Token token) throws IOException {
+        int start = text.length();
+        while (isNumberChar(peekChar()) || Character.isLetter(peekChar())) {
+            text.append(buffer[pos++]);
+        }
+        String word = text.substring(start);
+        text.setLength(start);
+        if (token == Token.LITERAL && !word.equals("true") && !word.equals("false") && !word.equals("null")) {
+            throw error("Unexpected " + word);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads past the separators before the next token and returns the token's kind
+    private Token readToken() throws IOException {
+        int context = stack[depth - 1];
+        if ((context == EMPTY_ARRAY || context == NONEMPTY_ARRAY) && readElementSeparator(context)) {
+            return Token.END_ARRAY;
+        } else if (context == EMPTY_OBJECT || context == NONEMPTY_OBJECT) {
+            return readName(context);
+        } else if (context == DANGLING_NAME) {
+            stack[depth - 1] = NONEMPTY_OBJECT;
+            if (nextNonWhitespace() != ':') {
+                throw error("Expected ':'");
+            }
+        } else if (context == NONEMPTY_DOCUMENT) {
+            if (nextNonWhitespace() != -1) {
+                throw error("Expected the end of the document");
+            }
+            return Token.END_DOCUMENT;
+        }
+        stack[depth - 1] = context == EMPTY_DOCUMENT ? NONEMPTY_DOCUMENT : stack[depth - 1];
+        return readValue();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads past the separator before the next element of an array; returns true if the array ends instead
+    private boolean readElementSeparator(int context) throws IOException {
+        stack[depth - 1] = NONEMPTY_ARRAY;
+        int c = nextNonWhitespace();
+        if (c == ']') {
+            return true;
+        } else if (c == -1) {
+            throw error("Unexpected end of document");
+        } else if (context == NONEMPTY_ARRAY && c != ',') {
+            throw error("Expected ',' or ']'");
+        } else if (context == EMPTY_ARRAY) {
+            pos--;
+        }
+        return false;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads past the separator before the next member name of an object, or its end
+    private Token readName(int context) throws IOException {
+        stack[depth - 1] = DANGLING_NAME;
+        int c = nextNonWhitespace();
+        if (c == '}') {
+            return Token.END_OBJECT;
+        }
+        if (context == NONEMPTY_OBJECT) {
+            if (c != ',') {
+                throw error("Expected ',' or '}'");
+            }
+            c = nextNonWhitespace();
+        }
+        if (c != '"') {
+            throw error("Expected a name");
+        }
+        return Token.NAME;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the first character of a value and returns the value's kind
+    private Token readValue() throws IOException {
+        int c = nextNonWhitespace();
+        if (c == '{') {
+            return Token.BEGIN_OBJECT;
+        } else if (c == '[') {
+            return Token.BEGIN_ARRAY;
+        } else if (c == '"') {
+            return Token.STRING;
+        } else if (c == '-' || (c >= '0' && c <= '9')) {
+            pos--;
+            return Token.NUMBER;
+        } else if (c == 't' || c == 'f' || c == 'n') {
+            pos--;
+            return Token.LITERAL;
+        }
+        throw error(c == -1 ? "Unexpected end of document" : "Unexpected character");
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the rest of a string whose opening quote has been read, and returns its unescaped characters
+    private CharSequence readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int start = pos;
+            while (pos < limit && buffer[pos] != '"' && buffer[pos] != '\\' && buffer[pos] != '\n') {
+                pos++;
+            }
+            text.append(buffer, start, pos - start);
+            if (pos == limit) {
+                if (!fill()) {
+                    throw error("Unterminated string");
+                }
+                continue;
+            }
+            char c = buffer[pos++];
+            if (c == '"') {
+                return text;
+            } else if (c == '\\') {
+                text.append(readEscape());
+            } else if (c == '\n') {
+                throw error("Unterminated string");
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the character escaped after a backslash
+    private char readEscape() throws IOException {
+        if (!fill()) {
+            throw error("Unterminated escape");
+        }
+        char c = buffer[pos++];
+        switch (c) {
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u': return readUnicode();
+            case '"': case '\\': case '/': return c;
+            default: throw error("Invalid escape");
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the four hex digits of a unicode escape
+    private char readUnicode() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = fill() ? Character.digit(buffer[pos++], 16) : -1;
+            if (digit < 0) {
+                throw error("Invalid unicode escape");
+            }
+            value = value * 16 + digit;
+        }
+        return (char) value;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes white space and returns the character after it, or -1 at the end of the document
+    private int nextNonWhitespace() throws IOException {
+        while (fill()) {
+            char c = buffer[pos++];
+            if (c == '\n') {
+                line++;
+                lineStart = pos;
+            } else if (c != ' ' && c != '\t' && c != '\r') {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the next character without consuming it, or -1 at the end of the document
+    private int peekChar() throws IOException {
+        return fill() ? buffer[pos] : -1;
+    }
+
+    // EFFECTS: returns true if c may appear in a JSON number
+    private static boolean isNumberChar(int c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes sure there is a character in the buffer to read, reading more of the stream if needed; returns
+    //          false at the end of the stream
+    private boolean fill() throws IOException {
+        if (pos < limit) {
+            return true;
+        }
+        lineStart -= pos;
+        pos = 0;
+        limit = Math.max(0, in.read(buffer, 0, buffer.length));
+        return limit > 0;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: enters a new object or array
+    private void push(int context) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = context;
+    }
+}
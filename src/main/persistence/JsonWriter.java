@@ -1,45 +1,225 @@
 package persistence;
 
 import model.DrumTrackList;
-import org.json.JSONObject;
-
+import model.Event;
+import model.EventKind;
+import model.EventLog;
+import model.ProjectSnapshot;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
 
-// Represents a writer that writes JSON representation of tracklist to file
+// Represents a writer that writes JSON representation of tracklist to file. The JSON is written field by field
+// straight into a fixed buffer which is drained to the file whenever it fills, so no tree of JSON objects or string
+// of the whole document is ever built. Output is pretty-printed with an indent of 4, as org.json would lay it out,
+// or compact with no white space at all. An instrument's lanes are only written if it has any, so that files without
+// them look just as they did before lanes were added; each lane is kept on one line, however many steps it has.
 public class JsonWriter {
     private static final int TAB = 4;
-    private PrintWriter writer;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final boolean compact;
+    private FileChannel channel;
     private String destination;
 
-    // EFFECTS: constructs writer to write to destination file
+    // EFFECTS: constructs writer to write pretty-printed JSON to destination file
     public JsonWriter(String destination) {
+        this(destination, false);
+    }
+
+    // EFFECTS: constructs writer to write JSON to destination file, with no white space if compact
+    public JsonWriter(String destination, boolean compact) {
         this.destination = destination;
+        this.compact = compact;
     }
 
     // MODIFIES: this
     // EFFECTS: opens writer; throws FileNotFoundException if destination file cannot
     // be opened for writing
     public void open() throws FileNotFoundException {
-        writer = new PrintWriter(new File(destination));
+        try {
+            channel = FileChannel.open(Paths.get(destination), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException | InvalidPathException e) {
+            throw new FileNotFoundException(destination + " cannot be opened for writing: " + e.getMessage());
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes JSON representation of tracklist to file; throws IOException if it cannot be written
+    public void write(DrumTrackList tracks) throws IOException {
+        write(tracks.snapshot());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes JSON representation of the snapshot of a tracklist to file; throws IOException if it cannot be
+    //          written
+    public void write(ProjectSnapshot snapshot) throws IOException {
+        put("{");
+        newLine(1);
+        put("\"instruments\":");
+        space();
+        put("[");
+        int count = snapshot.getTracks().size();
+        for (int i = 0; i < count; i++) {
+            newLine(2);
+            writeTrack(snapshot.getTracks().get(i));
+            put(i + 1 < count ? "," : "");
+        }
+        if (count > 0) {
+            newLine(1);
+        }
+        put("]");
+        writeTiming(snapshot);
+        newLine(0);
+        put("}");
+        drain();
+        EventLog.getInstance().logEvent(new Event(EventKind.SAVED_TO_JSON));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: forces everything written so far onto the disk; throws IOException if it cannot be
+    public void force() throws IOException {
+        channel.force(true);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes writer; throws IOException if the file cannot be closed
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the bpm of the snapshot, then its steps and resolution where they are not the defaults, so that
+    //          files of the default grid look just as they did before either could be changed
+    private void writeTiming(ProjectSnapshot snapshot) throws IOException {
+        writeMember("bpm", snapshot.getBPM());
+        if (snapshot.getSteps() != DrumTrackList.DEFAULT_STEPS) {
+            writeMember("steps", snapshot.getSteps());
+        }
+        if (snapshot.getTicksPerStep() != DrumTrackList.DEFAULT_TICKS_PER_STEP) {
+            writeMember("resolution", snapshot.getTicksPerStep());
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes a member with an int value, following the previous member, at the first level of the object
+    private void writeMember(String name, int value) throws IOException {
+        put(",");
+        newLine(1);
+        put("\"" + name + "\":");
+        space();
+        put(Integer.toString(value));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes JSON representation of an instrument's track, as the element of an array at the second level of
+    //          indent
+    private void writeTrack(ProjectSnapshot.Track track) throws IOException {
+        put("{");
+        newLine(3);
+        put("\"number\":");
+        space();
+        put(Integer.toString(track.getInstrumentNumber()));
+        writeSteps("notes", track.length(), track::isNoteOn);
+        if (track.hasLanes()) {
+            writeLane("velocity", track.length(), track::getVelocity);
+            writeSteps("accent", track.length(), track::isAccented);
+            writeLane("probability", track.length(), track::getProbability);
+            writeLane("offset", track.length(), track::getOffset);
+        }
+        newLine(2);
+        put("}");
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes a member of a track holding the given number of steps as a string, 'x' where on and '-'
+    //          elsewhere
+    private void writeSteps(String name, int length, IntPredicate on) throws IOException {
+        writeTrackMemberName(name);
+        put("\"");
+        for (int step = 0; step < length; step++) {
+            putByte(on.test(step) ? 'x' : '-');
+        }
+        put("\"");
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes a member of a track holding the value of each of the given number of steps as an array of ints
+    private void writeLane(String name, int length, IntUnaryOperator value) throws IOException {
+        writeTrackMemberName(name);
+        put("[");
+        for (int step = 0; step < length; step++) {
+            if (step > 0) {
+                put(",");
+                space();
+            }
+            put(Integer.toString(value.applyAsInt(step)));
+        }
+        put("]");
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the name of a member of a track, following the previous member, at the third level of indent
+    private void writeTrackMemberName(String name) throws IOException {
+        put(",");
+        newLine(3);
+        put("\"" + name + "\":");
+        space();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts a new line indented by the given number of levels, unless compact
+    private void newLine(int level) throws IOException {
+        if (!compact) {
+            putByte('\n');
+            for (int i = 0; i < level * TAB; i++) {
+                putByte(' ');
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the space after a member name, unless compact
+    private void space() throws IOException {
+        if (!compact) {
+            putByte(' ');
+        }
     }
 
+    // REQUIRES: text is ASCII
     // MODIFIES: this
-    // EFFECTS: writes JSON representation of tracklist to file
-    public void write(DrumTrackList tracks) {
-        JSONObject json = tracks.toJson();
-        saveToFile(json.toString(TAB));
+    // EFFECTS: writes text
+    private void put(String text) throws IOException {
+        if (buffer.remaining() < text.length()) {
+            drain();
+        }
+        buffer.put(text.getBytes(StandardCharsets.US_ASCII));
     }
 
     // MODIFIES: this
-    // EFFECTS: closes writer
-    public void close() {
-        writer.close();
+    // EFFECTS: writes a single ASCII character
+    private void putByte(char c) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) c);
     }
 
     // MODIFIES: this
-    // EFFECTS: writes string to file
-    private void saveToFile(String json) {
-        writer.print(json);
+    // EFFECTS: writes everything buffered to the file
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
     }
 }
@@ -0,0 +1,45 @@
+package persistence;
+
+// Represents the layout of a pattern library file, shared by PatternLibraryWriter and PatternLibraryReader. Entries
+// are written one after another as they are added; the indexes follow them, so that every lookup is a binary search
+// or a table lookup in the mapped file, and only the entries asked for are ever decoded. Ids are the order entries
+// were added in, and every list of ids in an index is in ascending order unless said otherwise. Names and tags are
+// ordered by their UTF-8 bytes, compared unsigned. Older libraries are still read: version 1 entries have no steps or
+// ticks per step, which are then the defaults, and the bodies of entries in a library of version n are those of a
+// binary project of version n.
+//   header:      int magic, short version, short reserved, int count, int tag count, then the offsets of the
+//                entry table, name index, bpm index, tag table and instrument table
+//   entry table: count x int offset of entry
+//   entry:       string name, int bpm, short tag count, tag count x string tag, long instruments used (bit n for
+//                instrument LOWEST_INSTRUMENT + n), int steps, int ticks per step, int instrument count,
+//                int body size, body (see BinaryFormat)
+//   name index:  count x int id, ordered by name, then id
+//   bpm index:   count x (int bpm, int id), ordered by bpm, then id
+//   tag table:   tag count x int offset of tag postings, ordered by tag
+//   tag postings: string tag, int n, n x int id
+//   instrument table: INSTRUMENTS x (int offset of postings, int n); the postings are n x int id
+//   string:      short length, UTF-8 bytes
+final class LibraryFormat {
+    static final int MAGIC = 0x444D504C;
+    static final short VERSION = 3;
+    static final short VERSION_1 = 1;
+    static final int HEADER_SIZE = Integer.BYTES + 2 * Short.BYTES + 7 * Integer.BYTES;
+    static final int VERSION_AT = Integer.BYTES;
+    static final int COUNT_AT = Integer.BYTES + 2 * Short.BYTES;
+    static final int TAG_COUNT_AT = COUNT_AT + Integer.BYTES;
+    static final int ENTRY_TABLE_AT = TAG_COUNT_AT + Integer.BYTES;
+    static final int NAME_INDEX_AT = ENTRY_TABLE_AT + Integer.BYTES;
+    static final int BPM_INDEX_AT = NAME_INDEX_AT + Integer.BYTES;
+    static final int TAG_TABLE_AT = BPM_INDEX_AT + Integer.BYTES;
+    static final int INSTRUMENT_TABLE_AT = TAG_TABLE_AT + Integer.BYTES;
+    static final int INSTRUMENTS = BinaryFormat.HIGHEST_INSTRUMENT - BinaryFormat.LOWEST_INSTRUMENT + 1;
+    static final int MAX_STRING = Short.MAX_VALUE;
+
+    private LibraryFormat() {
+    }
+
+    // EFFECTS: returns true if a library of the given version can be read
+    static boolean isKnownVersion(short version) {
+        return version >= VERSION_1 && version <= VERSION;
+    }
+}
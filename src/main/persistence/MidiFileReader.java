@@ -0,0 +1,225 @@
+package persistence;
+
+import model.DrumTrackList;
+import model.Instrument;
+import model.StepPattern;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.BitSet;
+
+// Represents a reader that imports the drum channel of a Standard MIDI File into a tracklist. The file is parsed as a
+// stream, one event at a time, and each drum hit is quantized straight onto the step grid; no event objects are kept,
+// so memory only grows with the number of steps, which is at most DrumTrackList.MAX_STEPS, not the size of the file.
+public class MidiFileReader {
+    private static final int STEPS_PER_QUARTER = 4;
+    private static final int DEFAULT_BPM = 120;
+    private static final int DRUM_CHANNEL = 9;
+    private static final int LOWEST_DRUM = 35;
+    private static final int HIGHEST_DRUM = 81;
+    private static final int HEADER = 0x4D546864;
+    private static final int TRACK = 0x4D54726B;
+    private static final int META = 0xFF;
+    private static final int TEMPO = 0x51;
+
+    private final String source;
+    private final BitSet[] notes;
+    private int division;
+    private int bpm;
+    private int steps;
+
+    // EFFECTS: constructs a reader to read from source file
+    public MidiFileReader(String source) {
+        this.source = source;
+        this.notes = new BitSet[HIGHEST_DRUM + 1];
+    }
+
+    // EFFECTS: reads the drum hits of the source file into a tracklist with one instrument per drum used, in order of
+    //          MIDI number, and the file's first tempo; throws IOException if the file cannot be read or is not a
+    //          Standard MIDI File with a tick based time division
+    public DrumTrackList read() throws Exception {
+        bpm = DEFAULT_BPM;
+        steps = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(
+                Paths.get(source))))) {
+            int trackCount = readHeader(in);
+            for (int i = 0; i < trackCount; i++) {
+                readTrack(in);
+            }
+        }
+        return toDrumTrackList();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the file header, returning the number of tracks, and records the ticks per quarter note
+    private int readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != HEADER) {
+            throw new IOException(source + " is not a MIDI file");
+        }
+        int length = in.readInt();
+        in.readUnsignedShort();
+        int trackCount = in.readUnsignedShort();
+        division = in.readShort();
+        if (division <= 0) {
+            throw new IOException("Only MIDI files timed in ticks per quarter note can be imported");
+        }
+        skip(in, length - 6);
+        return trackCount;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads one track chunk event by event, recording drum hits and tempo, and skipping anything else
+    private void readTrack(DataInputStream in) throws IOException {
+        while (in.readInt() != TRACK) {
+            skip(in, in.readInt());
+        }
+        long remaining = in.readInt() & 0xFFFFFFFFL;
+        CountingInput track = new CountingInput(in, remaining);
+        long tick = 0;
+        int status = 0;
+        while (track.remaining() > 0) {
+            tick += track.readVariableLength();
+            int first = track.read();
+            if (first >= 0x80) {
+                status = first;
+                first = status < 0xF0 ? track.read() : first;
+            }
+            readEvent(track, status, first, tick);
+        }
+        steps = Math.max(steps, toStep(tick));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: handles one event with the given status whose first data byte has already been read
+    private void readEvent(CountingInput track, int status, int first, long tick) throws IOException {
+        int command = status & 0xF0;
+        if (status == META) {
+            int type = track.read();
+            int length = track.readVariableLength();
+            if (type == TEMPO && length == 3 && tick == 0) {
+                bpm = (int) Math.round(60_000_000.0 / ((track.read() << 16) | (track.read() << 8) | track.read()));
+            } else {
+                track.skip(length);
+            }
+        } else if (status == 0xF0 || status == 0xF7) {
+            track.skip(track.readVariableLength());
+        } else if (command == 0xC0 || command == 0xD0) {
+            return;
+        } else {
+            int second = track.read();
+            if (command == 0x90 && (status & 0x0F) == DRUM_CHANNEL && second > 0) {
+                addHit(first, tick);
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: puts a note for the given drum on the step nearest to tick, ignoring notes which are not drums and
+    //          those which would fall beyond DrumTrackList.MAX_STEPS
+    private void addHit(int note, long tick) {
+        long step = Math.round((double) tick * STEPS_PER_QUARTER / division);
+        if (note < LOWEST_DRUM || note > HIGHEST_DRUM || step >= DrumTrackList.MAX_STEPS) {
+            return;
+        }
+        if (notes[note] == null) {
+            notes[note] = new BitSet();
+        }
+        notes[note].set((int) step);
+        steps = Math.max(steps, (int) step + 1);
+    }
+
+    // EFFECTS: returns the step nearest to tick, rounding up, but no more than DrumTrackList.MAX_STEPS
+    private int toStep(long tick) {
+        return (int) Math.min((tick * STEPS_PER_QUARTER + division - 1) / division, DrumTrackList.MAX_STEPS);
+    }
+
+    // EFFECTS: builds the tracklist from the drum hits read, with as many steps as the longest of them, so that every
+    //          instrument, including those added later, matches
+    private DrumTrackList toDrumTrackList() throws Exception {
+        int trackSteps = steps > 0 ? steps : DrumTrackList.DEFAULT_STEPS;
+        DrumTrackList tracks = new DrumTrackList(bpm, trackSteps, DrumTrackList.DEFAULT_TICKS_PER_STEP);
+        for (int note = LOWEST_DRUM; note <= HIGHEST_DRUM; note++) {
+            if (notes[note] != null) {
+                BitSet hits = notes[note];
+                StepPattern pattern = new StepPattern(trackSteps);
+                for (int step = hits.nextSetBit(0); step >= 0; step = hits.nextSetBit(step + 1)) {
+                    pattern.set(step, true);
+                }
+                tracks.addTrack(new Instrument(note, pattern));
+                notes[note] = null;
+            }
+        }
+        return tracks;
+    }
+
+    // MODIFIES: in
+    // EFFECTS: skips exactly count bytes of in
+    private static void skip(InputStream in, long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    // Represents the bytes of a single track chunk, so that a malformed track cannot read into the next one
+    private static class CountingInput {
+        private final DataInputStream in;
+        private long remaining;
+
+        // EFFECTS: wraps the next length bytes of in
+        CountingInput(DataInputStream in, long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        // EFFECTS: returns the number of bytes left in the chunk
+        long remaining() {
+            return remaining;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: returns the next byte of the chunk; throws IOException if the chunk has ended
+        int read() throws IOException {
+            if (remaining <= 0) {
+                throw new IOException("Track chunk ended in the middle of an event");
+            }
+            remaining--;
+            return in.readUnsignedByte();
+        }
+
+        // MODIFIES: this
+        // EFFECTS: reads a variable length quantity of up to four bytes
+        int readVariableLength() throws IOException {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int b = read();
+                value = (value << 7) | (b & 0x7F);
+                if (b < 0x80) {
+                    return value;
+                }
+            }
+            throw new IOException("Variable length quantity is too long");
+        }
+
+        // MODIFIES: this
+        // EFFECTS: skips count bytes of the chunk
+        void skip(long count) throws IOException {
+            if (count > remaining) {
+                throw new IOException("Track chunk ended in the middle of an event");
+            }
+            remaining -= count;
+            MidiFileReader.skip(in, count);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package persistence;
+
+import model.DrumTrackList;
+import model.NoteMessage;
+
+import javax.sound.midi.*;
+import java.io.File;
+import java.io.IOException;
+
+// Represents a writer that exports a tracklist as a Standard MIDI File. Type 1 files keep one track per instrument
+// after a tempo track; type 0 files merge everything into a single track. The sequence played live only holds note
+// ons, which is all a drum needs, so each is given a note off a tick later for other programs to end the note at.
+public class MidiFileWriter {
+    public static final int SINGLE_TRACK = 0;
+    public static final int MULTI_TRACK = 1;
+    private static final int TEMPO = 0x51;
+    private static final int END_OF_TRACK = 0x2F;
+    private static final int MICROSECONDS_PER_MINUTE = 60_000_000;
+
+    private final String destination;
+
+    // EFFECTS: constructs writer to write to destination file
+    public MidiFileWriter(String destination) {
+        this.destination = destination;
+    }
+
+    // REQUIRES: type is SINGLE_TRACK or MULTI_TRACK, tracks has bpm > 0
+    // EFFECTS: writes tracks to the destination file as a MIDI file of the given type, with the tracklist's tempo;
+    //          throws IOException if the file cannot be written
+    public void write(DrumTrackList tracks, int type) throws IOException {
+        try {
+            Sequence export = new Sequence(Sequence.PPQ, tracks.getSequence().getResolution());
+            Track tempoTrack = export.createTrack();
+            tempoTrack.add(new MidiEvent(tempoMessage(tracks.getBPM()), 0));
+            for (Track track : tracks.getSequence().getTracks()) {
+                copyEvents(track, type == SINGLE_TRACK ? tempoTrack : export.createTrack());
+            }
+            MidiSystem.write(export, type, new File(destination));
+        } catch (InvalidMidiDataException e) {
+            throw new IOException("Cannot export tracks with bpm " + tracks.getBPM(), e);
+        }
+    }
+
+    // MODIFIES: to
+    // EFFECTS: adds every event of from to the track to, with a note off one tick after each note on, keeping the
+    //          loop length of from
+    private void copyEvents(Track from, Track to) throws InvalidMidiDataException {
+        for (int i = 0; i < from.size(); i++) {
+            MidiEvent event = from.get(i);
+            MidiMessage message = event.getMessage();
+            if (message instanceof MetaMessage && ((MetaMessage) message).getType() == END_OF_TRACK) {
+                to.add(new MidiEvent(new MetaMessage(END_OF_TRACK, new byte[0], 0), event.getTick()));
+            } else {
+                to.add(event);
+                addNoteOff(message, event.getTick(), to);
+            }
+        }
+    }
+
+    // MODIFIES: to
+    // EFFECTS: if message is a note on, adds the shared note off for its note one tick after tick to the track to
+    private void addNoteOff(MidiMessage message, long tick, Track to) {
+        if (message instanceof ShortMessage && ((ShortMessage) message).getCommand() == ShortMessage.NOTE_ON
+                && ((ShortMessage) message).getData2() > 0) {
+            to.add(NoteMessage.of(false, ((ShortMessage) message).getData1(), 0).eventAt(tick + 1));
+        }
+    }
+
+    // REQUIRES: bpm > 0
+    // EFFECTS: returns a meta message setting the tempo to bpm
+    private MetaMessage tempoMessage(int bpm) throws InvalidMidiDataException {
+        int microsPerQuarter = MICROSECONDS_PER_MINUTE / bpm;
+        byte[] data = {(byte) (microsPerQuarter >> 16), (byte) (microsPerQuarter >> 8), (byte) microsPerQuarter};
+        return new MetaMessage(TEMPO, data, data.length);
+    }
+}
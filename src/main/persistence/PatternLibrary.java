@@ -0,0 +1,291 @@
+package persistence;
+
+import model.DrumTrackList;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Represents a pattern library file loaded by PatternLibraryReader. Entries are found through the indexes in the
+// mapped file: by name and tag with a binary search, by bpm with two, and by instrument from a table, so a lookup
+// touches O(log n) of the file whatever its size, and nothing but the entries asked for is ever decoded. The file is
+// read with absolute gets only, so a library may be searched from several threads at once. Positions read from the
+// file are checked before they are followed, and IOException is thrown if the file turns out to be corrupt.
+public class PatternLibrary {
+    private final ByteBuffer file;
+    private final boolean firstVersion;
+    private final boolean lanes;
+    private final int count;
+    private final int tagCount;
+    private final int entryTable;
+    private final int nameIndex;
+    private final int bpmIndex;
+    private final int tagTable;
+    private final int instrumentTable;
+
+    // REQUIRES: file holds a library whose header has been checked, and whose tables lie within it
+    // EFFECTS: creates a library reading its entries and indexes from file
+    PatternLibrary(ByteBuffer file) {
+        this.file = file;
+        this.firstVersion = file.getShort(LibraryFormat.VERSION_AT) == LibraryFormat.VERSION_1;
+        this.lanes = file.getShort(LibraryFormat.VERSION_AT) >= BinaryFormat.LANES_VERSION;
+        this.count = file.getInt(LibraryFormat.COUNT_AT);
+        this.tagCount = file.getInt(LibraryFormat.TAG_COUNT_AT);
+        this.entryTable = file.getInt(LibraryFormat.ENTRY_TABLE_AT);
+        this.nameIndex = file.getInt(LibraryFormat.NAME_INDEX_AT);
+        this.bpmIndex = file.getInt(LibraryFormat.BPM_INDEX_AT);
+        this.tagTable = file.getInt(LibraryFormat.TAG_TABLE_AT);
+        this.instrumentTable = file.getInt(LibraryFormat.INSTRUMENT_TABLE_AT);
+    }
+
+    // EFFECTS: returns the number of entries in the library; their ids run from 0 up to it
+    public int size() {
+        return count;
+    }
+
+    // REQUIRES: 0 <= id < size()
+    // EFFECTS: returns the name of the entry with the given id
+    public String getName(int id) throws IOException {
+        return readString(entryAt(id));
+    }
+
+    // REQUIRES: 0 <= id < size()
+    // EFFECTS: returns the bpm of the entry with the given id
+    public int getBPM(int id) throws IOException {
+        int position = skipString(entryAt(id));
+        return file.getInt(check(position, Integer.BYTES));
+    }
+
+    // REQUIRES: 0 <= id < size()
+    // EFFECTS: returns the tags of the entry with the given id
+    public List<String> getTags(int id) throws IOException {
+        int position = skipString(entryAt(id)) + Integer.BYTES;
+        int tags = file.getShort(check(position, Short.BYTES));
+        position += Short.BYTES;
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < tags; i++) {
+            result.add(readString(position));
+            position = skipString(position);
+        }
+        return result;
+    }
+
+    // REQUIRES: 0 <= id < size()
+    // EFFECTS: returns the beat saved in the entry with the given id, without decoding any of its instruments yet
+    public BinaryProject getProject(int id) throws IOException {
+        int bpm = getBPM(id);
+        int position = skipTags(skipString(entryAt(id)) + Integer.BYTES) + Long.BYTES;
+        int steps = 0;
+        int ticksPerStep = DrumTrackList.DEFAULT_TICKS_PER_STEP;
+        if (!firstVersion) {
+            steps = file.getInt(check(position, 2 * Integer.BYTES));
+            ticksPerStep = file.getInt(position + Integer.BYTES);
+            position += 2 * Integer.BYTES;
+        }
+        int instruments = file.getInt(check(position, 2 * Integer.BYTES));
+        int bodySize = file.getInt(position + Integer.BYTES);
+        int body = check(position + 2 * Integer.BYTES, bodySize);
+        if (instruments < 0 || (long) instruments * BinaryFormat.OFFSET_SIZE > bodySize
+                || !firstVersion && (steps < 1 || ticksPerStep < 1)
+                || steps > DrumTrackList.MAX_STEPS || ticksPerStep > DrumTrackList.MAX_TICKS_PER_STEP) {
+            throw new IOException("Pattern library entry " + id + " is corrupt");
+        }
+        ByteBuffer slice = file.duplicate();
+        slice.limit(body + bodySize).position(body);
+        return new BinaryProject(bpm, steps, ticksPerStep, instruments, slice.slice(), lanes);
+    }
+
+    // REQUIRES: 0 <= id < size()
+    // EFFECTS: decodes the entry with the given id and returns it as a new tracklist
+    public DrumTrackList load(int id) throws Exception {
+        return getProject(id).toTrackList();
+    }
+
+    // EFFECTS: returns the ids of the entries with the given name, in ascending order
+    public int[] findByName(String name) throws IOException {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int first = lowerBound(count, i -> entryAt(file.getInt(nameIndex + i * Integer.BYTES)), key);
+        int last = first;
+        while (last < count && compareString(entryAt(file.getInt(nameIndex + last * Integer.BYTES)), key) == 0) {
+            last++;
+        }
+        int[] ids = new int[last - first];
+        for (int i = first; i < last; i++) {
+            ids[i - first] = file.getInt(nameIndex + i * Integer.BYTES);
+        }
+        return ids;
+    }
+
+    // EFFECTS: returns the ids of the entries tagged with tag, in ascending order
+    public int[] findByTag(String tag) throws IOException {
+        byte[] key = tag.getBytes(StandardCharsets.UTF_8);
+        int i = lowerBound(tagCount, t -> file.getInt(tagTable + t * Integer.BYTES), key);
+        if (i == tagCount || compareString(file.getInt(tagTable + i * Integer.BYTES), key) != 0) {
+            return new int[0];
+        }
+        int position = skipString(file.getInt(tagTable + i * Integer.BYTES));
+        int size = file.getInt(check(position, Integer.BYTES));
+        return readIds(position + Integer.BYTES, size);
+    }
+
+    // EFFECTS: returns the ids of the entries whose bpm is from lowest to highest inclusive, in ascending order
+    public int[] findByBpm(int lowest, int highest) throws IOException {
+        long from = (long) lowest << Integer.SIZE;
+        long to = (long) highest << Integer.SIZE | 0xFFFFFFFFL;
+        int first = bpmBound(from);
+        int last = Math.max(first, to == Long.MAX_VALUE ? count : bpmBound(to + 1));
+        int[] ids = new int[last - first];
+        for (int i = first; i < last; i++) {
+            ids[i - first] = file.getInt(bpmIndex + i * Long.BYTES + Integer.BYTES);
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    // EFFECTS: returns the ids of the entries which use every one of the given drums, in ascending order; every entry
+    //          if none are given
+    public int[] findByInstruments(int... numbers) throws IOException {
+        int[] ids = null;
+        for (int number : numbers) {
+            int drum = number - BinaryFormat.LOWEST_INSTRUMENT;
+            if (drum < 0 || drum >= LibraryFormat.INSTRUMENTS) {
+                return new int[0];
+            }
+            int position = instrumentTable + drum * 2 * Integer.BYTES;
+            int[] postings = readIds(file.getInt(position), file.getInt(position + Integer.BYTES));
+            ids = ids == null ? postings : intersect(ids, postings);
+        }
+        if (ids == null) {
+            ids = new int[count];
+            Arrays.setAll(ids, i -> i);
+        }
+        return ids;
+    }
+
+    // REQUIRES: a and b are in ascending order
+    // EFFECTS: returns the ids in both a and b, in ascending order, for combining the results of several lookups
+    public static int[] intersect(int[] a, int[] b) {
+        int[] both = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                both[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(both, size);
+    }
+
+    // REQUIRES: 0 <= id < size()
+    // EFFECTS: returns where the entry with the given id starts
+    private int entryAt(int id) throws IOException {
+        if (id < 0 || id >= count) {
+            throw new IOException("Pattern library has no entry " + id);
+        }
+        int position = file.getInt(entryTable + id * Integer.BYTES);
+        if (position < LibraryFormat.HEADER_SIZE || position >= entryTable) {
+            throw new IOException("Pattern library entry " + id + " is corrupt");
+        }
+        return position;
+    }
+
+    // EFFECTS: returns the first of n strings, found at position.at(0) up to position.at(n - 1) and ordered by their
+    //          bytes, which is not less than key; n if there is none
+    private int lowerBound(int n, Position position, byte[] key) throws IOException {
+        int low = 0;
+        int high = n;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareString(position.at(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // EFFECTS: returns the first place in the bpm index whose key is not less than key
+    private int bpmBound(long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (file.getLong(bpmIndex + middle * Long.BYTES) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // EFFECTS: compares the bytes of the string at position with key, unsigned, as Arrays.compareUnsigned does
+    private int compareString(int position, byte[] key) throws IOException {
+        int length = file.getShort(check(position, Short.BYTES));
+        check(position + Short.BYTES, length);
+        for (int i = 0; i < length && i < key.length; i++) {
+            int order = Integer.compare(file.get(position + Short.BYTES + i) & 0xFF, key[i] & 0xFF);
+            if (order != 0) {
+                return order;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    // EFFECTS: returns the string at position
+    private String readString(int position) throws IOException {
+        int length = file.getShort(check(position, Short.BYTES));
+        byte[] bytes = new byte[length];
+        file.duplicate().position(check(position + Short.BYTES, length)).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // EFFECTS: returns where the string at position ends
+    private int skipString(int position) throws IOException {
+        int length = file.getShort(check(position, Short.BYTES));
+        return check(position + Short.BYTES, length) + length;
+    }
+
+    // EFFECTS: returns where the tags starting at position end
+    private int skipTags(int position) throws IOException {
+        int tags = file.getShort(check(position, Short.BYTES));
+        position += Short.BYTES;
+        for (int i = 0; i < tags; i++) {
+            position = skipString(position);
+        }
+        return position;
+    }
+
+    // EFFECTS: returns the size ids at position
+    private int[] readIds(int position, int size) throws IOException {
+        check(position, size * (long) Integer.BYTES);
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = file.getInt(position + i * Integer.BYTES);
+        }
+        return ids;
+    }
+
+    // EFFECTS: returns position if the size bytes there lie within the file; otherwise throws IOException
+    private int check(int position, long size) throws IOException {
+        if (position < 0 || size < 0 || position + size > file.limit()) {
+            throw new IOException("Pattern library is corrupt");
+        }
+        return position;
+    }
+
+    // Represents where each of a run of strings is in the file
+    private interface Position {
+        // EFFECTS: returns where the string at index is
+        int at(int index) throws IOException;
+    }
+}
@@ -0,0 +1,52 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Represents a reader to open a pattern library file (see LibraryFormat). The file is memory-mapped and only its
+// header is checked, so opening a library takes the same time however many entries it holds.
+public class PatternLibraryReader {
+    private final String source;
+
+    // EFFECTS: constructs a reader to read from source file
+    public PatternLibraryReader(String source) {
+        this.source = source;
+    }
+
+    // EFFECTS: maps the file and returns the library in it, without decoding any entry; throws IOException if the
+    //          file cannot be read, or its header is not that of a pattern library of a known version
+    public PatternLibrary load() throws IOException {
+        ByteBuffer file;
+        try (FileChannel channel = FileChannel.open(Paths.get(source), StandardOpenOption.READ)) {
+            if (channel.size() < LibraryFormat.HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(source + " is not a pattern library");
+            }
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (file.getInt(0) != LibraryFormat.MAGIC) {
+            throw new IOException(source + " is not a pattern library");
+        } else if (!LibraryFormat.isKnownVersion(file.getShort(LibraryFormat.VERSION_AT))) {
+            throw new IOException(source + " is a pattern library of an unknown version");
+        }
+        int count = file.getInt(LibraryFormat.COUNT_AT);
+        int tagCount = file.getInt(LibraryFormat.TAG_COUNT_AT);
+        if (!fits(file, LibraryFormat.ENTRY_TABLE_AT, count, Integer.BYTES)
+                || !fits(file, LibraryFormat.NAME_INDEX_AT, count, Integer.BYTES)
+                || !fits(file, LibraryFormat.BPM_INDEX_AT, count, Long.BYTES)
+                || !fits(file, LibraryFormat.TAG_TABLE_AT, tagCount, Integer.BYTES)
+                || !fits(file, LibraryFormat.INSTRUMENT_TABLE_AT, LibraryFormat.INSTRUMENTS, 2 * Integer.BYTES)) {
+            throw new IOException(source + " is truncated or corrupt");
+        }
+        return new PatternLibrary(file);
+    }
+
+    // EFFECTS: returns true if the table whose offset is in the header at offsetAt, of count items of the given size,
+    //          lies after the header and within file
+    private static boolean fits(ByteBuffer file, int offsetAt, int count, int size) {
+        int start = file.getInt(offsetAt);
+        return count >= 0 && start >= LibraryFormat.HEADER_SIZE && start + (long) count * size <= file.limit();
+    }
+}
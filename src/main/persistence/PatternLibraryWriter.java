@@ -0,0 +1,296 @@
+package persistence;
+
+import model.DrumTrackList;
+import model.Instrument;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+// Represents a writer that builds a pattern library file (see LibraryFormat). Each entry is written out as soon as it
+// is added; only its name, bpm, tags and the instruments it uses are kept back, to build the indexes from when the
+// writer is closed.
+public class PatternLibraryWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final String destination;
+    private final List<byte[]> names = new ArrayList<>();
+    private final List<int[]> entryTags = new ArrayList<>();
+    private final Map<String, Integer> tagIds = new HashMap<>();
+    private final List<byte[]> tags = new ArrayList<>();
+    private int[] offsets = new int[16];
+    private int[] bpms = new int[16];
+    private long[] instruments = new long[16];
+    private int count;
+    private DataOutputStream out;
+
+    // EFFECTS: constructs writer to build a library at destination file
+    public PatternLibraryWriter(String destination) {
+        this.destination = destination;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: opens writer; throws FileNotFoundException if destination file cannot be opened for writing
+    public void open() throws FileNotFoundException {
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(Paths.get(destination)),
+                    BUFFER_SIZE));
+            out.write(new byte[LibraryFormat.HEADER_SIZE]);
+        } catch (IOException | InvalidPathException e) {
+            throw new FileNotFoundException(destination + " cannot be opened for writing: " + e.getMessage());
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds tracks to the library under name, with the given tags, and returns its id; throws IOException if
+    //          it cannot be written, a name or tag is too long, or an instrument is not a drum from 35 to 81
+    public int add(String name, Collection<String> entryTagNames, DrumTrackList tracks) throws IOException {
+        byte[] nameBytes = encode(name);
+        int[] ids = tagIdsOf(entryTagNames);
+        long used = instrumentsUsed(tracks.getInstruments());
+        long bodySize = BinaryFormat.bodySize(tracks.getInstruments());
+        if (bodySize + out.size() >= Integer.MAX_VALUE) {
+            throw new IOException("Pattern library is full");
+        }
+        grow();
+        offsets[count] = out.size();
+        bpms[count] = tracks.getBPM();
+        instruments[count] = used;
+        names.add(nameBytes);
+        entryTags.add(ids);
+        writeEntry(nameBytes, ids, tracks, used, (int) bodySize);
+        return count++;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the indexes and the header, and closes writer; throws IOException if they cannot be written
+    public void close() throws IOException {
+        int entryTable = writeEntryTable();
+        int nameIndex = writeNameIndex();
+        int bpmIndex = writeBpmIndex();
+        int tagTable = writeTags();
+        int instrumentTable = writeInstruments();
+        boolean full = out.size() == Integer.MAX_VALUE;
+        out.close();
+        if (full) {
+            throw new IOException("Pattern library is too large");
+        }
+        ByteBuffer header = ByteBuffer.allocate(LibraryFormat.HEADER_SIZE);
+        header.putInt(LibraryFormat.MAGIC).putShort(LibraryFormat.VERSION).putShort((short) 0).putInt(count)
+                .putInt(tags.size()).putInt(entryTable).putInt(nameIndex).putInt(bpmIndex).putInt(tagTable)
+                .putInt(instrumentTable).flip();
+        try (FileChannel channel = FileChannel.open(Paths.get(destination), StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+
+    // EFFECTS: returns the UTF-8 bytes of text; throws IOException if they are too many to store
+    private byte[] encode(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > LibraryFormat.MAX_STRING) {
+            throw new IOException("Names and tags may not be longer than " + LibraryFormat.MAX_STRING + " bytes");
+        }
+        return bytes;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the ids of the given tags, without repeats, giving new tags the next ids
+    private int[] tagIdsOf(Collection<String> entryTagNames) throws IOException {
+        LinkedHashSet<String> distinct = new LinkedHashSet<>(entryTagNames);
+        if (distinct.size() > Short.MAX_VALUE) {
+            throw new IOException("An entry may not have more than " + Short.MAX_VALUE + " tags");
+        }
+        int[] ids = new int[distinct.size()];
+        int i = 0;
+        for (String tag : distinct) {
+            Integer id = tagIds.get(tag);
+            if (id == null) {
+                id = tags.size();
+                tags.add(encode(tag));
+                tagIds.put(tag, id);
+            }
+            ids[i++] = id;
+        }
+        return ids;
+    }
+
+    // EFFECTS: returns the set of drums used by instruments, with bit n for drum LOWEST_INSTRUMENT + n; throws
+    //          IOException if any is not a drum
+    private long instrumentsUsed(List<Instrument> entryInstruments) throws IOException {
+        long used = 0;
+        for (Instrument instrument : entryInstruments) {
+            int number = instrument.getInstrumentNumber();
+            if (number < BinaryFormat.LOWEST_INSTRUMENT || number > BinaryFormat.HIGHEST_INSTRUMENT) {
+                throw new IOException("Instrument number " + number + " is not a drum from 35 to 81");
+            }
+            used |= 1L << (number - BinaryFormat.LOWEST_INSTRUMENT);
+        }
+        return used;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes room for another entry
+    private void grow() {
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+            bpms = Arrays.copyOf(bpms, count * 2);
+            instruments = Arrays.copyOf(instruments, count * 2);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes an entry
+    private void writeEntry(byte[] name, int[] ids, DrumTrackList tracks, long used, int bodySize)
+            throws IOException {
+        writeString(name);
+        out.writeInt(tracks.getBPM());
+        out.writeShort(ids.length);
+        for (int id : ids) {
+            writeString(tags.get(id));
+        }
+        out.writeLong(used);
+        out.writeInt(tracks.getSteps());
+        out.writeInt(tracks.getTicksPerStep());
+        out.writeInt(tracks.getInstruments().size());
+        out.writeInt(bodySize);
+        BinaryFormat.writeBody(out, tracks.getInstruments());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the length of bytes, then bytes
+    private void writeString(byte[] bytes) throws IOException {
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the offset of every entry, and returns where they start
+    private int writeEntryTable() throws IOException {
+        int start = out.size();
+        for (int i = 0; i < count; i++) {
+            out.writeInt(offsets[i]);
+        }
+        return start;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the ids of the entries ordered by name, and returns where they start
+    private int writeNameIndex() throws IOException {
+        int start = out.size();
+        Integer[] ids = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i;
+        }
+        Arrays.sort(ids, (a, b) -> {
+            int order = Arrays.compareUnsigned(names.get(a), names.get(b));
+            return order != 0 ? order : Integer.compare(a, b);
+        });
+        for (int id : ids) {
+            out.writeInt(id);
+        }
+        return start;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the bpm and id of the entries ordered by bpm, and returns where they start
+    private int writeBpmIndex() throws IOException {
+        int start = out.size();
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = (long) bpms[i] << Integer.SIZE | i;
+        }
+        Arrays.sort(keys);
+        for (long key : keys) {
+            out.writeLong(key);
+        }
+        return start;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the postings of every tag and then the table of them ordered by tag, and returns where the
+    //          table starts
+    private int writeTags() throws IOException {
+        int[] starts = new int[tags.size() + 1];
+        for (int[] ids : entryTags) {
+            for (int id : ids) {
+                starts[id + 1]++;
+            }
+        }
+        for (int i = 0; i < tags.size(); i++) {
+            starts[i + 1] += starts[i];
+        }
+        int[] postings = new int[starts[tags.size()]];
+        int[] next = Arrays.copyOf(starts, tags.size());
+        for (int entry = 0; entry < count; entry++) {
+            for (int id : entryTags.get(entry)) {
+                postings[next[id]++] = entry;
+            }
+        }
+        return writeTagTable(starts, postings);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the postings of every tag, where tag i's are postings[starts[i]] up to postings[starts[i + 1]],
+    //          then the table of them ordered by tag, and returns where the table starts
+    private int writeTagTable(int[] starts, int[] postings) throws IOException {
+        int[] at = new int[tags.size()];
+        for (int i = 0; i < tags.size(); i++) {
+            at[i] = out.size();
+            writeString(tags.get(i));
+            out.writeInt(starts[i + 1] - starts[i]);
+            for (int p = starts[i]; p < starts[i + 1]; p++) {
+                out.writeInt(postings[p]);
+            }
+        }
+        Integer[] order = new Integer[tags.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(tags.get(a), tags.get(b)));
+        int start = out.size();
+        for (int id : order) {
+            out.writeInt(at[id]);
+        }
+        return start;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the ids of the entries using each drum, then the table of them, and returns where the table
+    //          starts
+    private int writeInstruments() throws IOException {
+        int[] at = new int[LibraryFormat.INSTRUMENTS];
+        int[] sizes = new int[LibraryFormat.INSTRUMENTS];
+        for (int drum = 0; drum < LibraryFormat.INSTRUMENTS; drum++) {
+            at[drum] = out.size();
+            for (int i = 0; i < count; i++) {
+                if ((instruments[i] & 1L << drum) != 0) {
+                    out.writeInt(i);
+                    sizes[drum]++;
+                }
+            }
+        }
+        int start = out.size();
+        for (int drum = 0; drum < LibraryFormat.INSTRUMENTS; drum++) {
+            out.writeInt(at[drum]);
+            out.writeInt(sizes[drum]);
+        }
+        return start;
+    }
+}
@@ -0,0 +1,317 @@
+package persistence;
+
+import model.DrumTrackList;
+import model.Event;
+import model.EventLog;
+import model.ProjectSnapshot;
+import model.TrackListObserver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Represents a background writer which saves snapshots of a track list as JSON without holding up the thread making
+// the edits. Each save is written to a temporary file next to the destination, forced to disk and then renamed over
+// the destination in one atomic step, so a crash leaves either the old file or the new one, never a torn one. Only
+// the latest snapshot asked for is kept: while one save is being written any number of newer ones collapse into the
+// next. With a track list attached, every change to it asks for an autosave, which waits until the edits have been
+// quiet for a while, but never longer than a maximum delay after the first unsaved edit, so a burst becomes one write.
+public class ProjectSaver implements TrackListObserver, Closeable {
+    public static final long DEFAULT_QUIET_MILLIS = 1000;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 10000;
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final Path destination;
+    private final Path temp;
+    private final long quietNanos;
+    private final long maxDelayNanos;
+    private final Object lock = new Object();
+    private final Thread writer;
+    private DrumTrackList attached;
+    private ProjectSnapshot pending;
+    private boolean urgent;
+    private long firstPendingAt;
+    private long dueAt;
+    private long requests;
+    private long written;
+    private boolean stopped;
+    private IOException failure;
+    private long saves;
+    private long lastNanos;
+    private long maxNanos;
+
+    // EFFECTS: starts a saver writing to destination file, which autosaves once edits have been quiet for
+    //          DEFAULT_QUIET_MILLIS, or DEFAULT_MAX_DELAY_MILLIS after the first unsaved edit
+    public ProjectSaver(String destination) {
+        this(destination, DEFAULT_QUIET_MILLIS, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    // REQUIRES: 0 <= quietMillis <= maxDelayMillis
+    // EFFECTS: starts a saver writing to destination file, which autosaves once edits have been quiet for quietMillis,
+    //          or maxDelayMillis after the first unsaved edit. Nothing is autosaved until a track list is attached
+    public ProjectSaver(String destination, long quietMillis, long maxDelayMillis) {
+        this.destination = Paths.get(destination);
+        this.temp = this.destination.resolveSibling(this.destination.getFileName() + ".tmp");
+        this.quietNanos = quietMillis * NANOS_PER_MILLI;
+        this.maxDelayNanos = maxDelayMillis * NANOS_PER_MILLI;
+        writer = new Thread(this::run, "Project saver");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // MODIFIES: this, tracks
+    // EFFECTS: stops autosaving the previously attached track list, if any, and starts autosaving tracks
+    public void attach(DrumTrackList tracks) {
+        detach();
+        attached = tracks;
+        tracks.addObserver(this);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops autosaving the attached track list, if any; a save already asked for still goes ahead
+    public void detach() {
+        if (attached != null) {
+            attached.removeObserver(this);
+            attached = null;
+        }
+    }
+
+    // EFFECTS: returns true if a track list is attached and being autosaved
+    public boolean isAttached() {
+        return attached != null;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: asks for snapshot to be saved as soon as possible, in place of any save not yet started
+    public void save(ProjectSnapshot snapshot) {
+        synchronized (lock) {
+            request(snapshot, System.nanoTime());
+            urgent = true;
+            dueAt = firstPendingAt;
+            lock.notifyAll();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: asks for snapshot to be saved once edits have been quiet for a while, in place of any save not yet
+    //          started; a save already due as soon as possible stays so
+    public void autosave(ProjectSnapshot snapshot) {
+        synchronized (lock) {
+            long now = System.nanoTime();
+            request(snapshot, now);
+            if (!urgent) {
+                dueAt = Math.min(now + quietNanos, firstPendingAt + maxDelayNanos);
+            }
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void trackAdded(DrumTrackList tracks, int index) {
+        autosave(tracks.snapshot());
+    }
+
+    @Override
+    public void trackRemoved(DrumTrackList tracks, int index) {
+        autosave(tracks.snapshot());
+    }
+
+    @Override
+    public void noteChanged(DrumTrackList tracks, int index, int step) {
+        autosave(tracks.snapshot());
+    }
+
+    @Override
+    public void instrumentChanged(DrumTrackList tracks, int index) {
+        autosave(tracks.snapshot());
+    }
+
+    @Override
+    public void bpmChanged(DrumTrackList tracks) {
+        autosave(tracks.snapshot());
+    }
+
+    @Override
+    public void stepsChanged(DrumTrackList tracks) {
+        autosave(tracks.snapshot());
+    }
+
+    // EFFECTS: writes out any save not yet started straight away, and waits until every save asked for so far has
+    //          been written; throws IOException if the last write failed
+    public void flush() throws IOException {
+        synchronized (lock) {
+            long target = requests;
+            if (pending != null) {
+                urgent = true;
+                dueAt = firstPendingAt;
+                lock.notifyAll();
+            }
+            try {
+                while (written < target && writer.isAlive()) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            checkFailure();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops autosaving, writes out any save not yet started and stops the saver; throws IOException if the
+    //          last write failed
+    @Override
+    public void close() throws IOException {
+        detach();
+        synchronized (lock) {
+            stopped = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            checkFailure();
+        }
+    }
+
+    // EFFECTS: returns the number of saves asked for so far
+    public long getRequests() {
+        synchronized (lock) {
+            return requests;
+        }
+    }
+
+    // EFFECTS: returns the number of times the file has been written
+    public long getSaves() {
+        synchronized (lock) {
+            return saves;
+        }
+    }
+
+    // EFFECTS: returns a one line summary of the saves written and how long they took, or of the last failure
+    public String summary() {
+        synchronized (lock) {
+            if (failure != null) {
+                return "save failed: " + failure.getMessage();
+            } else if (saves == 0) {
+                return "not saved yet";
+            }
+            return String.format("%d saves for %d changes, last %.1f ms, max %.1f ms", saves, requests,
+                    (double) lastNanos / NANOS_PER_MILLI, (double) maxNanos / NANOS_PER_MILLI);
+        }
+    }
+
+    // REQUIRES: lock is held
+    // MODIFIES: this
+    // EFFECTS: makes snapshot the next to be saved, in place of any not yet started
+    private void request(ProjectSnapshot snapshot, long now) {
+        if (pending == null) {
+            firstPendingAt = now;
+        }
+        pending = snapshot;
+        requests++;
+    }
+
+    // REQUIRES: lock is held
+    // EFFECTS: throws the error with which the last write failed, if any
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // EFFECTS: writes each snapshot once it is due, until stopped and nothing is left to write
+    private void run() {
+        while (true) {
+            ProjectSnapshot snapshot;
+            long target;
+            synchronized (lock) {
+                try {
+                    awaitDue();
+                } catch (InterruptedException e) {
+                    stopped = true;
+                }
+                if (pending == null) {
+                    lock.notifyAll();
+                    return;
+                }
+                snapshot = pending;
+                target = requests;
+                pending = null;
+                urgent = false;
+            }
+            write(snapshot, target);
+        }
+    }
+
+    // REQUIRES: lock is held
+    // EFFECTS: waits until a save is due or the saver is stopped; a save still pending once stopped is due at once
+    private void awaitDue() throws InterruptedException {
+        while (!stopped) {
+            long wait = pending == null ? 0 : dueAt - System.nanoTime();
+            if (pending != null && wait <= 0) {
+                return;
+            }
+            lock.wait(wait / NANOS_PER_MILLI, (int) (wait % NANOS_PER_MILLI));
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes snapshot to the destination atomically, then records how long it took, or why it failed, and
+    //          releases anyone waiting for the saves up to target
+    private void write(ProjectSnapshot snapshot, long target) {
+        long start = System.nanoTime();
+        IOException error = null;
+        try {
+            writeAtomically(snapshot);
+        } catch (IOException e) {
+            error = e;
+            EventLog.getInstance().logEvent(new Event("Save to " + destination + " failed: " + e.getMessage()));
+        }
+        long elapsed = System.nanoTime() - start;
+        synchronized (lock) {
+            failure = error;
+            if (error == null) {
+                saves++;
+                lastNanos = elapsed;
+                maxNanos = Math.max(maxNanos, elapsed);
+            }
+            written = target;
+            lock.notifyAll();
+        }
+    }
+
+    // EFFECTS: writes snapshot to the temporary file, forces it to disk, renames it over the destination and forces
+    //          the rename to disk
+    private void writeAtomically(ProjectSnapshot snapshot) throws IOException {
+        JsonWriter json = new JsonWriter(temp.toString());
+        json.open();
+        try {
+            json.write(snapshot);
+            json.force();
+        } finally {
+            json.close();
+        }
+        Files.move(temp, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory(destination.toAbsolutePath().getParent());
+    }
+
+    // EFFECTS: forces directory's entries to disk, so that a file just renamed into it survives a crash; does
+    //          nothing on platforms which cannot open a directory for reading, such as Windows
+    static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // the rename itself has succeeded, only its durability is up to the platform
+        }
+    }
+}
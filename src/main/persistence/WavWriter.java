@@ -0,0 +1,74 @@
+package persistence;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Represents a writer that streams little-endian PCM audio into a WAV file. Audio is written straight to the file as
+// it arrives, and the sizes in the header are filled in when the writer is closed.
+public class WavWriter implements Closeable {
+    private static final int HEADER_SIZE = 44;
+    private static final int FORMAT_CHUNK_SIZE = 16;
+    private static final short PCM = 1;
+    private static final long MAX_DATA_SIZE = 0xFFFFFFFFL - HEADER_SIZE + 8;
+
+    private final FileChannel channel;
+    private final AudioFormat format;
+    private long dataSize;
+
+    // REQUIRES: format is signed little-endian PCM
+    // EFFECTS: opens destination for writing, replacing any existing file, and reserves room for the header;
+    //          throws IOException if the file cannot be opened
+    public WavWriter(Path destination, AudioFormat format) throws IOException {
+        this.format = format;
+        this.channel = FileChannel.open(destination, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        channel.position(HEADER_SIZE);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends length bytes of audio from buffer, starting at offset; throws IOException if the file would
+    //          grow past the 4 GB a WAV file can describe, or cannot be written
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        if (dataSize + length > MAX_DATA_SIZE) {
+            throw new IOException("WAV files cannot hold more than 4 GB of audio");
+        }
+        ByteBuffer data = ByteBuffer.wrap(buffer, offset, length);
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+        dataSize += length;
+    }
+
+    // EFFECTS: returns the number of bytes of audio written so far
+    public long getDataSize() {
+        return dataSize;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the header describing the audio written, and closes the file
+    @Override
+    public void close() throws IOException {
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            int channels = format.getChannels();
+            int bytesPerSample = format.getSampleSizeInBits() / 8;
+            int sampleRate = (int) format.getSampleRate();
+            header.put(new byte[] {'R', 'I', 'F', 'F'}).putInt((int) (dataSize + HEADER_SIZE - 8));
+            header.put(new byte[] {'W', 'A', 'V', 'E', 'f', 'm', 't', ' '}).putInt(FORMAT_CHUNK_SIZE);
+            header.putShort(PCM).putShort((short) channels).putInt(sampleRate);
+            header.putInt(sampleRate * channels * bytesPerSample).putShort((short) (channels * bytesPerSample));
+            header.putShort((short) format.getSampleSizeInBits());
+            header.put(new byte[] {'d', 'a', 't', 'a'}).putInt((int) dataSize);
+            header.flip();
+            channel.write(header, 0);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package playback;
+
+import model.Arrangement;
+import model.DrumTrackList;
+import model.Event;
+import model.EventLog;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiUnavailableException;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Synthesizer;
+import java.util.Iterator;
+
+// Represents a player for songs. Instead of building one sequence for the whole song, a scheduling thread takes the
+// next bar from the arrangement only when the playhead gets within LOOKAHEAD_BARS of it, and sends that bar's notes
+// to the synthesizer time-stamped ahead of time. Memory use and start up time are the same for a song of two bars
+// or two million.
+public class ArrangementPlayer {
+    private static final int LOOKAHEAD_BARS = 2;
+    private static final long POLL_MILLIS = 5;
+    private static final long START_DELAY_MICROS = 20_000;
+    private static final int ALL_NOTES_OFF = 123;
+
+    private final Synthesizer synthesizer;
+    private volatile Thread scheduler;
+    private volatile long barsScheduled;
+    private volatile double endMicros;
+
+    // REQUIRES: transport is open
+    // EFFECTS: creates a player which plays through the synthesizer of transport
+    public ArrangementPlayer(Transport transport) {
+        this.synthesizer = transport.getSynthesizer();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops any song that is playing and starts playing arrangement from its first bar
+    public void play(Arrangement arrangement) throws MidiUnavailableException {
+        stop();
+        Receiver receiver = synthesizer.getReceiver();
+        barsScheduled = 0;
+        Thread thread = new Thread(() -> schedule(arrangement, receiver), "Arrangement scheduler");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        scheduler = thread;
+        thread.start();
+        EventLog.getInstance().logEvent(new Event("Playing arrangement of " + arrangement.getLengthInBars()
+                + " bars"));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops the song, silencing any notes already sent
+    public void stop() {
+        Thread thread = scheduler;
+        if (thread == null) {
+            return;
+        }
+        scheduler = null;
+        thread.interrupt();
+        try {
+            thread.join();
+            synthesizer.getReceiver().send(new ShortMessage(ShortMessage.CONTROL_CHANGE, 9, ALL_NOTES_OFF, 0), -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (InvalidMidiDataException | MidiUnavailableException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // EFFECTS: returns true if a song is playing
+    public boolean isPlaying() {
+        Thread thread = scheduler;
+        return thread != null && thread.isAlive();
+    }
+
+    // EFFECTS: waits until every bar of the song has been scheduled and has finished sounding
+    public void awaitEnd() throws InterruptedException {
+        Thread thread = scheduler;
+        if (thread != null) {
+            thread.join();
+        }
+        while (synthesizer.getMicrosecondPosition() < endMicros) {
+            Thread.sleep(POLL_MILLIS);
+        }
+    }
+
+    // EFFECTS: returns the number of bars handed to the synthesizer so far
+    public long getBarsScheduled() {
+        return barsScheduled;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sends the bars of arrangement to receiver, each once the playhead is within LOOKAHEAD_BARS of it,
+    //          until the song ends or the player is stopped
+    private void schedule(Arrangement arrangement, Receiver receiver) {
+        Iterator<DrumTrackList> bars = arrangement.iterator();
+        double nextBarMicros = synthesizer.getMicrosecondPosition() + START_DELAY_MICROS;
+        double barMicros = 0;
+        try {
+            while (bars.hasNext() && scheduler == Thread.currentThread()) {
+                double ahead = nextBarMicros - synthesizer.getMicrosecondPosition();
+                if (barsScheduled < LOOKAHEAD_BARS || ahead < LOOKAHEAD_BARS * barMicros) {
+                    barMicros = scheduleBar(bars.next(), arrangement.getBpm(), nextBarMicros, receiver);
+                    nextBarMicros += barMicros;
+                    endMicros = nextBarMicros;
+                    barsScheduled++;
+                } else {
+                    Thread.sleep(POLL_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        }
+    }
+
+    // MODIFIES: receiver
+    // EFFECTS: sends every note of one pass through pattern to receiver, time-stamped from startMicros, and returns
+    //          the length of the bar in microseconds
+    private double scheduleBar(DrumTrackList pattern, int bpm, double startMicros, Receiver receiver) {
+        double microsPerTick = 60_000_000.0 / (bpm * pattern.getSequence().getResolution());
+        SequenceCursor cursor = new SequenceCursor(pattern.getSequence(), 1);
+        while (cursor.hasNext()) {
+            long timeStamp = (long) (startMicros + cursor.nextTick() * microsPerTick);
+            receiver.send(cursor.next(), timeStamp);
+        }
+        return cursor.getLoopTicks() * microsPerTick;
+    }
+}
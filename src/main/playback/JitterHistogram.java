@@ -0,0 +1,144 @@
+package playback;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Represents a lock-free histogram of how far notes were sent from their deadlines. The playback thread records
+// while the GUI or console reads, and neither ever blocks the other. Deviations are kept in microseconds, exactly
+// below 32 us and in 16 buckets per power of two above, so percentiles are within about 6% of the true value.
+// Notes sent later than the tolerance, and steps skipped entirely, count as missed deadlines.
+public class JitterHistogram {
+    public static final long DEFAULT_TOLERANCE_NANOS = 10_000_000;
+
+    private static final int LINEAR_BUCKETS = 32;
+    private static final int LINEAR_BITS = 5;
+    private static final int SUB_BUCKETS = 16;
+    private static final int SUB_BITS = 4;
+    private static final int OCTAVES = 32;
+    private static final long MAX_MICROS = (1L << (LINEAR_BITS + OCTAVES)) - 1;
+
+    private final long toleranceNanos;
+    private final AtomicLongArray buckets = new AtomicLongArray(LINEAR_BUCKETS + OCTAVES * SUB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLong missed = new AtomicLong();
+
+    // EFFECTS: creates an empty histogram which counts notes more than 10 ms late as missed
+    public JitterHistogram() {
+        this(DEFAULT_TOLERANCE_NANOS);
+    }
+
+    // REQUIRES: toleranceNanos >= 0
+    // EFFECTS: creates an empty histogram which counts notes more than toleranceNanos late as missed
+    public JitterHistogram(long toleranceNanos) {
+        this.toleranceNanos = toleranceNanos;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records a note sent at actualNanos which was due at scheduledNanos, both in System.nanoTime()
+    public void record(long scheduledNanos, long actualNanos) {
+        long late = actualNanos - scheduledNanos;
+        long deviation = Math.abs(late);
+        buckets.incrementAndGet(bucketOf(deviation / 1000));
+        count.incrementAndGet();
+        maxNanos.accumulateAndGet(deviation, Math::max);
+        if (late > toleranceNanos) {
+            missed.incrementAndGet();
+        }
+    }
+
+    // REQUIRES: steps >= 0
+    // MODIFIES: this
+    // EFFECTS: records that the given number of steps were skipped because they were too late to play at all
+    public void recordSkipped(long steps) {
+        missed.addAndGet(steps);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: forgets everything recorded so far
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        maxNanos.set(0);
+        missed.set(0);
+    }
+
+    // EFFECTS: returns the number of notes recorded
+    public long getCount() {
+        return count.get();
+    }
+
+    // EFFECTS: returns the number of notes sent too late plus the number of steps skipped
+    public long getMissedDeadlines() {
+        return missed.get();
+    }
+
+    // EFFECTS: returns the largest deviation recorded, in milliseconds
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    // REQUIRES: 0 < percentile <= 100
+    // EFFECTS: returns the deviation, in milliseconds, which the given percentage of notes were within; rounded up to
+    //          the top of its bucket but never above the maximum, and 0 if nothing has been recorded
+    public double getPercentileMillis(double percentile) {
+        long total = count.get();
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < buckets.length() && total > 0; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(lowerBoundMicros(i + 1) / 1e3, getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    // EFFECTS: returns a one line summary of the jitter and missed deadlines
+    public String summary() {
+        return String.format("jitter p50 %.2f ms, p99 %.2f ms, max %.2f ms, missed %d of %d",
+                getPercentileMillis(50), getPercentileMillis(99), getMaxMillis(), getMissedDeadlines(), getCount());
+    }
+
+    // MODIFIES: file
+    // EFFECTS: writes the summary and every non-empty bucket, as "from_us to_us count", to file, replacing it
+    public void dump(Path file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            writer.println(summary());
+            for (int i = 0; i < buckets.length(); i++) {
+                long n = buckets.get(i);
+                if (n > 0) {
+                    writer.printf("%d %d %d%n", lowerBoundMicros(i), lowerBoundMicros(i + 1), n);
+                }
+            }
+        }
+    }
+
+    // EFFECTS: returns the bucket holding the given number of microseconds
+    private static int bucketOf(long micros) {
+        long value = Math.min(micros, MAX_MICROS);
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int octave = 63 - Long.numberOfLeadingZeros(value) - LINEAR_BITS;
+        int sub = (int) (value >>> (octave + LINEAR_BITS - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + octave * SUB_BUCKETS + sub;
+    }
+
+    // EFFECTS: returns the smallest number of microseconds held by the given bucket
+    private static long lowerBoundMicros(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int octave = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS;
+        int sub = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (octave + LINEAR_BITS - SUB_BITS);
+    }
+}
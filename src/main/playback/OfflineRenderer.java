@@ -0,0 +1,154 @@
+package playback;
+
+import model.DrumTrackList;
+import model.Event;
+import model.EventLog;
+import persistence.WavWriter;
+
+import javax.sound.midi.*;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.Map;
+
+// Represents a headless renderer which plays a track list through the JDK software synthesizer as fast as the CPU
+// allows and streams the audio into a WAV file, without needing a sound card. Only one block of audio is held in
+// memory at a time, and notes are sent to the synthesizer just before the block they sound in.
+//
+// The JDK only offers this through com.sun.media.sound.AudioSynthesizer, so the JVM must be started with
+//     --add-exports java.desktop/com.sun.media.sound=ALL-UNNAMED
+public class OfflineRenderer {
+    public static final AudioFormat DEFAULT_FORMAT = new AudioFormat(44100, 16, 2, true, false);
+    private static final String AUDIO_SYNTHESIZER = "com.sun.media.sound.AudioSynthesizer";
+    private static final int BLOCK_FRAMES = 4096;
+    private static final double TAIL_SECONDS = 1.0;
+
+    private final AudioFormat format;
+
+    // EFFECTS: creates a renderer producing CD quality stereo audio
+    public OfflineRenderer() {
+        this(DEFAULT_FORMAT);
+    }
+
+    // REQUIRES: format is 16 bit signed little-endian PCM
+    // EFFECTS: creates a renderer producing audio in the given format
+    public OfflineRenderer(AudioFormat format) {
+        this.format = format;
+    }
+
+    // EFFECTS: returns true if the software synthesizer can be rendered from on this JVM
+    public static boolean isSupported() {
+        try {
+            openStreamMethod();
+            return true;
+        } catch (MidiUnavailableException e) {
+            return false;
+        }
+    }
+
+    // REQUIRES: loops >= 1
+    // EFFECTS: renders tracks played loops times, plus a short tail for the last notes to ring out, into a WAV file
+    //          at destination, and returns the number of frames written; throws MidiUnavailableException if the
+    //          synthesizer cannot be rendered from, and IOException if the file cannot be written
+    public long render(DrumTrackList tracks, int loops, Path destination) throws MidiUnavailableException, IOException {
+        long start = System.nanoTime();
+        Synthesizer synthesizer = MidiSystem.getSynthesizer();
+        AudioInputStream audio = openStream(synthesizer);
+        long frames;
+        try (WavWriter writer = new WavWriter(destination, format)) {
+            SequenceCursor cursor = new SequenceCursor(tracks.getSequence(), loops);
+            double microsPerTick = 60_000_000.0 / (tracks.getBPM() * tracks.getSequence().getResolution());
+            double seconds = cursor.getLoopTicks() * loops * microsPerTick / 1e6 + TAIL_SECONDS;
+            frames = renderFrames(audio, synthesizer.getReceiver(), cursor, microsPerTick,
+                    (long) Math.ceil(seconds * format.getFrameRate()), writer);
+        } finally {
+            synthesizer.close();
+        }
+        EventLog.getInstance().logEvent(new Event(String.format("Rendered %d loops to %s in %.1f ms", loops,
+                destination, (System.nanoTime() - start) / 1e6)));
+        return frames;
+    }
+
+    // MODIFIES: writer
+    // EFFECTS: reads totalFrames frames of audio block by block into writer, first sending every message from cursor
+    //          which sounds before the end of the block, and returns the number of frames written
+    private long renderFrames(AudioInputStream audio, Receiver receiver, SequenceCursor cursor, double microsPerTick,
+                              long totalFrames, WavWriter writer) throws IOException {
+        int frameSize = format.getFrameSize();
+        byte[] block = new byte[BLOCK_FRAMES * frameSize];
+        long frames = 0;
+        while (frames < totalFrames) {
+            int blockFrames = (int) Math.min(BLOCK_FRAMES, totalFrames - frames);
+            long blockEndMicros = (long) ((frames + blockFrames) * 1e6 / format.getFrameRate());
+            while (cursor.hasNext() && cursor.nextTick() * microsPerTick < blockEndMicros) {
+                long timeStamp = (long) (cursor.nextTick() * microsPerTick);
+                receiver.send(cursor.next(), timeStamp);
+            }
+            int read = readFully(audio, block, blockFrames * frameSize);
+            if (read <= 0) {
+                break;
+            }
+            writer.write(block, 0, read);
+            frames += read / frameSize;
+        }
+        return frames;
+    }
+
+    // MODIFIES: block
+    // EFFECTS: reads up to length bytes of audio into block, returning the number read, or -1 at end of stream
+    private int readFully(AudioInputStream audio, byte[] block, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int read = audio.read(block, total, length - total);
+            if (read < 0) {
+                return total == 0 ? -1 : total;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    // MODIFIES: synthesizer
+    // EFFECTS: opens synthesizer so that it renders into the returned stream instead of a sound card
+    private AudioInputStream openStream(Synthesizer synthesizer) throws MidiUnavailableException {
+        Method openStream = openStreamMethod();
+        if (!openStream.getDeclaringClass().isInstance(synthesizer)) {
+            throw new MidiUnavailableException("The default synthesizer cannot render offline");
+        }
+        try {
+            return (AudioInputStream) openStream.invoke(synthesizer, format, (Map<String, Object>) null);
+        } catch (InvocationTargetException e) {
+            MidiUnavailableException unavailable = new MidiUnavailableException(e.getCause().getMessage());
+            unavailable.initCause(e.getCause());
+            throw unavailable;
+        } catch (IllegalAccessException e) {
+            throw unavailable(e);
+        }
+    }
+
+    // EFFECTS: returns AudioSynthesizer.openStream, or throws MidiUnavailableException if it cannot be used
+    private static Method openStreamMethod() throws MidiUnavailableException {
+        try {
+            Class<?> audioSynthesizer = Class.forName(AUDIO_SYNTHESIZER);
+            Method openStream = audioSynthesizer.getMethod("openStream", AudioFormat.class, Map.class);
+            if (!audioSynthesizer.getModule().isExported(audioSynthesizer.getPackageName(),
+                    OfflineRenderer.class.getModule())) {
+                throw new IllegalAccessException(AUDIO_SYNTHESIZER + " is not exported");
+            }
+            return openStream;
+        } catch (ReflectiveOperationException e) {
+            throw unavailable(e);
+        }
+    }
+
+    // EFFECTS: returns an exception explaining that offline rendering is unavailable because of cause
+    private static MidiUnavailableException unavailable(Exception cause) {
+        MidiUnavailableException unavailable = new MidiUnavailableException("Offline rendering needs the JVM option "
+                + "--add-exports java.desktop/com.sun.media.sound=ALL-UNNAMED");
+        unavailable.initCause(cause);
+        return unavailable;
+    }
+}
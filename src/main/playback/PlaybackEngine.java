@@ -0,0 +1,37 @@
+package playback;
+
+import model.DrumTrackList;
+
+import javax.sound.midi.InvalidMidiDataException;
+
+// Represents something which can loop a track list: either the Java sequencer, through the Transport, or the
+// dedicated StepScheduler
+public interface PlaybackEngine {
+
+    // MODIFIES: this
+    // EFFECTS: makes tracks the track list to be played, at its tempo
+    void load(DrumTrackList tracks) throws InvalidMidiDataException;
+
+    // MODIFIES: this
+    // EFFECTS: starts looping the loaded track list, unless it is already playing
+    void play();
+
+    // MODIFIES: this
+    // EFFECTS: stops playing
+    void stop();
+
+    // REQUIRES: bpm > 0
+    // MODIFIES: this
+    // EFFECTS: changes the tempo
+    void setTempo(int bpm);
+
+    // EFFECTS: returns true if the track list is playing
+    boolean isRunning();
+
+    // EFFECTS: returns the step of the loop being played, or -1 if nothing is playing; cheap enough to be read at
+    //          frame rate from any thread
+    int getPlayingStep();
+
+    // EFFECTS: returns the histogram of how far from their deadlines this engine has sent notes
+    JitterHistogram getJitter();
+}
@@ -0,0 +1,90 @@
+package playback;
+
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Track;
+import java.util.Arrays;
+
+// Represents a position in a sequence which steps through the short messages of all of its tracks in time order,
+// repeating the sequence a given number of times. Events are read from the tracks as they are reached, so walking a
+// long render or many loops neither copies nor allocates events.
+public class SequenceCursor {
+    private final Track[] tracks;
+    private final int[] positions;
+    private final long loopTicks;
+    private final int loops;
+    private int loop;
+    private int nextTrack;
+
+    // REQUIRES: loops >= 0
+    // EFFECTS: creates a cursor at the start of sequence, which will play it loops times
+    public SequenceCursor(Sequence sequence, int loops) {
+        this.tracks = sequence.getTracks();
+        this.positions = new int[tracks.length];
+        this.loopTicks = sequence.getTickLength();
+        this.loops = loopTicks > 0 ? loops : 0;
+        findNext();
+    }
+
+    // EFFECTS: returns true if there is another message to play
+    public boolean hasNext() {
+        return loop < loops;
+    }
+
+    // REQUIRES: hasNext()
+    // EFFECTS: returns the tick of the next message, counted from the start of the first loop
+    public long nextTick() {
+        return loop * loopTicks + tracks[nextTrack].get(positions[nextTrack]).getTick();
+    }
+
+    // REQUIRES: hasNext()
+    // MODIFIES: this
+    // EFFECTS: returns the next message and moves past it
+    public MidiMessage next() {
+        MidiMessage message = tracks[nextTrack].get(positions[nextTrack]).getMessage();
+        positions[nextTrack]++;
+        findNext();
+        return message;
+    }
+
+    // EFFECTS: returns the number of ticks in one loop
+    public long getLoopTicks() {
+        return loopTicks;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: points nextTrack at the track whose next short message comes first, starting the next loop when
+    //          every track has been played through
+    private void findNext() {
+        while (loop < loops) {
+            long earliest = Long.MAX_VALUE;
+            for (int t = 0; t < tracks.length; t++) {
+                skipOtherMessages(t);
+                if (positions[t] < tracks[t].size() && tracks[t].get(positions[t]).getTick() < earliest) {
+                    earliest = tracks[t].get(positions[t]).getTick();
+                    nextTrack = t;
+                }
+            }
+            if (earliest != Long.MAX_VALUE) {
+                return;
+            }
+            loop++;
+            Arrays.fill(positions, 0);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: moves the position in track t past any events which are not short messages, or which fall on or
+    //          after the end of the loop
+    private void skipOtherMessages(int t) {
+        while (positions[t] < tracks[t].size()) {
+            MidiEvent event = tracks[t].get(positions[t]);
+            if (event.getMessage() instanceof ShortMessage && event.getTick() < loopTicks) {
+                return;
+            }
+            positions[t]++;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package playback;
+
+import model.DrumTrackList;
+import model.NoteMessage;
+import model.ProjectSnapshot;
+import model.StepPattern;
+import model.TrackListObserver;
+
+import javax.sound.midi.Receiver;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+// Represents a playback engine which bypasses the Java sequencer. A dedicated maximum priority thread reads the
+// steps of the track list as it goes and sends each step's notes straight to a receiver, such as the synthesizer.
+// The thread never reads the live track list, which is edited on the Swing thread: after every change the editing
+// thread takes an immutable snapshot of the list and publishes it through an atomic reference, and the timing thread
+// picks up whichever snapshot is latest at the start of each step. Neither thread ever takes a lock or waits for the
+// other, and a step is always played from one consistent version of the list. Step deadlines are kept in
+// System.nanoTime(): the thread parks until just before a deadline and spins for the rest, and deadlines are advanced
+// by whole steps from the start, so timing errors never accumulate. The time each note is actually sent is recorded
+// against its own deadline in a jitter histogram.
+// A note moved off the grid by its step's offset is sent on its own tick within the step, and one moved early is sent
+// at the end of the step before, except at the start of the loop. Each note is played with the chance given by its
+// step's probability, rolled as it is sent, so that the pattern varies from one time round the loop to the next.
+public class StepScheduler implements PlaybackEngine, TrackListObserver {
+    private static final int STEPS_PER_QUARTER = 4;
+    private static final long SPIN_NANOS = 1_000_000;
+    private static final int MIN_BPM = 1;
+
+    private final Receiver receiver;
+    private final AtomicReference<ProjectSnapshot> snapshot = new AtomicReference<>();
+    private DrumTrackList tracks;
+    private volatile int bpm;
+    private volatile Thread thread;
+    private volatile int playingStep = -1;
+    private final JitterHistogram jitter = new JitterHistogram();
+    private final SplittableRandom random = new SplittableRandom();
+
+    // EFFECTS: creates a scheduler which sends notes to receiver
+    public StepScheduler(Receiver receiver) {
+        this.receiver = receiver;
+    }
+
+    // MODIFIES: this, tracks
+    // EFFECTS: makes tracks the track list to be played, at its tempo, and follows every later change to it,
+    //          including its tempo; takes effect from the next step
+    @Override
+    public void load(DrumTrackList tracks) {
+        if (this.tracks != null) {
+            this.tracks.removeObserver(this);
+        }
+        this.tracks = tracks;
+        tracks.addObserver(this);
+        setTempo(tracks.getBPM());
+        publish(tracks);
+    }
+
+    @Override
+    public void trackAdded(DrumTrackList tracks, int index) {
+        publish(tracks);
+    }
+
+    @Override
+    public void trackRemoved(DrumTrackList tracks, int index) {
+        publish(tracks);
+    }
+
+    @Override
+    public void noteChanged(DrumTrackList tracks, int index, int step) {
+        publish(tracks);
+    }
+
+    @Override
+    public void instrumentChanged(DrumTrackList tracks, int index) {
+        publish(tracks);
+    }
+
+    @Override
+    public void bpmChanged(DrumTrackList tracks) {
+        setTempo(tracks.getBPM());
+        publish(tracks);
+    }
+
+    @Override
+    public void stepsChanged(DrumTrackList tracks) {
+        publish(tracks);
+    }
+
+    // REQUIRES: a track list has been loaded
+    // MODIFIES: this
+    // EFFECTS: starts the timing thread, unless it is already running
+    @Override
+    public synchronized void play() {
+        if (thread != null) {
+            return;
+        }
+        Thread timing = new Thread(this::run, "Step scheduler");
+        timing.setDaemon(true);
+        timing.setPriority(Thread.MAX_PRIORITY);
+        thread = timing;
+        timing.start();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops the timing thread and waits for it to finish
+    @Override
+    public synchronized void stop() {
+        Thread timing = thread;
+        if (timing == null) {
+            return;
+        }
+        thread = null;
+        LockSupport.unpark(timing);
+        try {
+            timing.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        playingStep = -1;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: changes the tempo from the next step; a bpm below MIN_BPM, which has no step length, plays at MIN_BPM
+    @Override
+    public void setTempo(int bpm) {
+        this.bpm = Math.max(MIN_BPM, bpm);
+    }
+
+    // EFFECTS: returns true if the timing thread is running
+    @Override
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    // EFFECTS: returns the step of the loop last sent, or -1 if the timing thread is not running
+    @Override
+    public int getPlayingStep() {
+        return thread != null ? playingStep : -1;
+    }
+
+    // EFFECTS: returns the histogram of how late each note was sent
+    @Override
+    public JitterHistogram getJitter() {
+        return jitter;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: publishes a snapshot of tracks, which the timing thread plays from the next step
+    private void publish(DrumTrackList tracks) {
+        snapshot.set(tracks.snapshot());
+    }
+
+    // EFFECTS: plays steps on their deadlines until stopped
+    private void run() {
+        long deadline = System.nanoTime();
+        long step = 0;
+        while (thread == Thread.currentThread()) {
+            waitUntil(deadline);
+            if (thread != Thread.currentThread()) {
+                return;
+            }
+            long stepNanos = 60_000_000_000L / ((long) bpm * STEPS_PER_QUARTER);
+            playStep(snapshot.get(), step, deadline, stepNanos);
+            step++;
+            deadline += stepNanos;
+            long late = System.nanoTime() - deadline;
+            if (late > stepNanos) {
+                long skipped = late / stepNanos;
+                jitter.recordSkipped(skipped);
+                step += skipped;
+                deadline += skipped * stepNanos;
+            }
+        }
+    }
+
+    // EFFECTS: parks the thread until shortly before deadline, then spins until deadline or until stopped
+    private void waitUntil(long deadline) {
+        long remaining = deadline - System.nanoTime();
+        while (remaining > SPIN_NANOS && thread == Thread.currentThread()) {
+            LockSupport.parkNanos(remaining - SPIN_NANOS);
+            remaining = deadline - System.nanoTime();
+        }
+        while (deadline - System.nanoTime() > 0 && thread == Thread.currentThread()) {
+            Thread.onSpinWait();
+        }
+    }
+
+    // MODIFIES: this, receiver
+    // EFFECTS: sends the notes of every instrument which plays in the given step of the loop, starting on deadline,
+    //          each on its own tick, and records it as the step playing; the loop is as long as the longest pattern,
+    //          and shorter patterns rest until it ends, as in the compiled sequence
+    private void playStep(ProjectSnapshot current, long step, long deadline, long stepNanos) {
+        int loopLength = current.getLoopLength();
+        if (loopLength == 0) {
+            playingStep = -1;
+            return;
+        }
+        int position = (int) (step % loopLength);
+        playingStep = position;
+        int ticks = current.getTicksPerStep();
+        int tick = sendTick(current, position, 0, deadline);
+        while (tick > 0 && thread == Thread.currentThread()) {
+            long tickDeadline = deadline + stepNanos * tick / ticks;
+            waitUntil(tickDeadline);
+            tick = sendTick(current, position, tick, tickDeadline);
+        }
+    }
+
+    // MODIFIES: this, receiver
+    // EFFECTS: sends the notes due on the given tick of the step at position, whose deadline is tickDeadline, and
+    //          returns the next tick of the step on which a note is due, or -1 if there is none
+    private int sendTick(ProjectSnapshot current, int position, int tick, long tickDeadline) {
+        int ticks = current.getTicksPerStep();
+        int last = position + 1 < current.getLoopLength() ? position + 1 : position;
+        int following = -1;
+        List<ProjectSnapshot.Track> tracks = current.getTracks();
+        for (int i = 0; i < tracks.size(); i++) {
+            ProjectSnapshot.Track track = tracks.get(i);
+            for (int noteStep = position; noteStep <= last; noteStep++) {
+                int due = dueTick(track, noteStep, position, ticks);
+                if (due == tick) {
+                    send(track, noteStep, tickDeadline);
+                } else if (due > tick && (following < 0 || due < following)) {
+                    following = due;
+                }
+            }
+        }
+        return following;
+    }
+
+    // REQUIRES: step is position or the one after it
+    // EFFECTS: returns the tick of the step at position on which the note at step of track is due, or -1 if it is a
+    //          rest or is not due during that step; a note moved early is due at the end of the step before it,
+    //          except at the start of the loop, where it is due on the first tick as in the compiled sequence
+    private static int dueTick(ProjectSnapshot.Track track, int step, int position, int ticks) {
+        if (step >= track.length() || !track.isNoteOn(step)) {
+            return -1;
+        }
+        int offset = DrumTrackList.offsetTicks(track.getOffset(step), ticks);
+        if (step == position) {
+            return offset >= 0 || step == 0 ? Math.max(0, offset) : -1;
+        }
+        return offset < 0 ? ticks + offset : -1;
+    }
+
+    // MODIFIES: this, receiver
+    // EFFECTS: sends the note at step of track at its velocity, with the chance given by its probability, and records
+    //          how long after deadline it was sent
+    private void send(ProjectSnapshot.Track track, int step, long deadline) {
+        if (random.nextInt(StepPattern.MAX_PROBABILITY) < track.getProbability(step)) {
+            receiver.send(NoteMessage.of(true, track.getInstrumentNumber(), track.getPlayedVelocity(step)), -1);
+            jitter.record(deadline, System.nanoTime());
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package playback;
+
+import model.DrumTrackList;
+import model.Event;
+import model.EventLog;
+
+import javax.sound.midi.*;
+
+// Represents the single sequencer and synthesizer used to play track lists. Both devices are opened and warmed up
+// once, new sequences are swapped into the same sequencer, and both are closed when the application shuts down.
+// Notes pass through a probe on their way to the synthesizer, which records how far each arrived from the tick grid
+// laid down when playback started. The sequencer does not say which tick a note was due on, so notes are matched
+// to the nearest grid tick, up to three quarters of a tick late or a quarter early.
+public class Transport implements PlaybackEngine {
+    private static final int DRUM_CHANNEL = 9;
+    private static final int LOWEST_DRUM = 35;
+    private static final int HIGHEST_DRUM = 81;
+    private static final int VOLUME_CONTROL = 7;
+    private static final int DEFAULT_VOLUME = 100;
+    private static final int ALL_NOTES_OFF = 123;
+
+    private final Sequencer sequencer;
+    private final Synthesizer synthesizer;
+    private final JitterHistogram jitter = new JitterHistogram();
+    private DrumTrackList tracks;
+    private volatile long gridStartNanos;
+    private volatile long tickNanos;
+    private boolean open;
+    private long openNanos;
+    private long warmUpNanos;
+
+    // EFFECTS: obtains a sequencer which is not connected to any device, and the default synthesizer;
+    //          throws MidiUnavailableException if either is not available
+    public Transport() throws MidiUnavailableException {
+        sequencer = MidiSystem.getSequencer(false);
+        synthesizer = MidiSystem.getSynthesizer();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: opens the synthesizer and sequencer, connects them and warms them up, recording how long each takes;
+    //          does nothing if the transport is already open
+    public void open() throws MidiUnavailableException {
+        if (open) {
+            return;
+        }
+        long start = System.nanoTime();
+        synthesizer.open();
+        sequencer.open();
+        sequencer.getTransmitter().setReceiver(new Probe(synthesizer.getReceiver()));
+        sequencer.setLoopCount(Sequencer.LOOP_CONTINUOUSLY);
+        openNanos = System.nanoTime() - start;
+        open = true;
+
+        start = System.nanoTime();
+        warmUp();
+        warmUpNanos = System.nanoTime() - start;
+
+        EventLog.getInstance().logEvent(new Event(String.format("Opened transport in %.1f ms and warmed it up in "
+                + "%.1f ms", getOpenMillis(), getWarmUpMillis())));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: loads the default drum sounds and plays every drum once at zero volume, so that the first real note
+    //          does not pay for loading samples
+    private void warmUp() throws MidiUnavailableException {
+        Soundbank soundbank = synthesizer.getDefaultSoundbank();
+        if (soundbank != null) {
+            synthesizer.loadAllInstruments(soundbank);
+        }
+        Receiver receiver = synthesizer.getReceiver();
+        try {
+            receiver.send(new ShortMessage(ShortMessage.CONTROL_CHANGE, DRUM_CHANNEL, VOLUME_CONTROL, 0), -1);
+            for (int note = LOWEST_DRUM; note <= HIGHEST_DRUM; note++) {
+                receiver.send(new ShortMessage(ShortMessage.NOTE_ON, DRUM_CHANNEL, note, 1), -1);
+            }
+            receiver.send(new ShortMessage(ShortMessage.CONTROL_CHANGE, DRUM_CHANNEL, ALL_NOTES_OFF, 0), -1);
+            receiver.send(new ShortMessage(ShortMessage.CONTROL_CHANGE, DRUM_CHANNEL, VOLUME_CONTROL,
+                    DEFAULT_VOLUME), -1);
+        } catch (InvalidMidiDataException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // REQUIRES: the transport is open
+    // MODIFIES: this
+    // EFFECTS: swaps the sequence of tracks into the sequencer and matches its tempo, without reopening any device
+    @Override
+    public void load(DrumTrackList tracks) throws InvalidMidiDataException {
+        this.tracks = tracks;
+        sequencer.setSequence(tracks.getSequence());
+        sequencer.setTempoInBPM(tracks.getBPM());
+    }
+
+    // REQUIRES: the transport is open and a track list has been loaded
+    // MODIFIES: this
+    // EFFECTS: starts playing the loaded sequence at the track list's current tempo, unless it is already playing
+    @Override
+    public void play() {
+        if (!sequencer.isRunning()) {
+            sequencer.setTempoInBPM(tracks.getBPM());
+            layGrid();
+            sequencer.start();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops playing, if the transport is open
+    @Override
+    public void stop() {
+        if (open) {
+            sequencer.stop();
+        }
+    }
+
+    // REQUIRES: bpm > 0
+    // MODIFIES: this
+    // EFFECTS: changes the tempo of the loaded sequence
+    @Override
+    public void setTempo(int bpm) {
+        sequencer.setTempoInBPM(bpm);
+        if (sequencer.isRunning()) {
+            layGrid();
+        }
+    }
+
+    // EFFECTS: returns the histogram of how far from the tick grid notes reached the synthesizer
+    @Override
+    public JitterHistogram getJitter() {
+        return jitter;
+    }
+
+    // REQUIRES: a sequence is loaded
+    // MODIFIES: this
+    // EFFECTS: lines the grid of due times up with the sequencer's current tick, at its current tempo
+    private void layGrid() {
+        tickNanos = (long) (60e9 / (sequencer.getTempoInBPM() * sequencer.getSequence().getResolution()));
+        gridStartNanos = System.nanoTime() - sequencer.getTickPosition() * tickNanos;
+    }
+
+    // EFFECTS: returns true if the loaded sequence is playing
+    @Override
+    public boolean isRunning() {
+        return open && sequencer.isRunning();
+    }
+
+    // EFFECTS: returns the step of the loop at the sequencer's tick position, or -1 if it is not playing
+    @Override
+    public int getPlayingStep() {
+        Sequence sequence = sequencer.getSequence();
+        if (!isRunning() || sequence == null || sequence.getTickLength() == 0) {
+            return -1;
+        }
+        long ticksPerStep = Math.max(1, sequence.getResolution() / DrumTrackList.STEPS_PER_QUARTER);
+        return (int) (sequencer.getTickPosition() % sequence.getTickLength() / ticksPerStep);
+    }
+
+    // EFFECTS: returns true if the devices are open
+    public boolean isOpen() {
+        return open;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops playback and closes the sequencer and synthesizer
+    public void close() {
+        if (!open) {
+            return;
+        }
+        sequencer.stop();
+        sequencer.close();
+        synthesizer.close();
+        open = false;
+    }
+
+    // REQUIRES: the transport is open
+    // EFFECTS: returns the engine to play track lists with: a new StepScheduler playing through the synthesizer if
+    //          useStepScheduler, otherwise this transport's sequencer
+    public PlaybackEngine createEngine(boolean useStepScheduler) throws MidiUnavailableException {
+        if (useStepScheduler) {
+            return new StepScheduler(synthesizer.getReceiver());
+        }
+        return this;
+    }
+
+    // EFFECTS: returns the sequencer, e.g. for reading its position
+    public Sequencer getSequencer() {
+        return sequencer;
+    }
+
+    // EFFECTS: returns the synthesizer the sequencer plays through
+    public Synthesizer getSynthesizer() {
+        return synthesizer;
+    }
+
+    // EFFECTS: returns how long opening the devices took, in milliseconds
+    public double getOpenMillis() {
+        return openNanos / 1e6;
+    }
+
+    // EFFECTS: returns how long warming up the devices took, in milliseconds
+    public double getWarmUpMillis() {
+        return warmUpNanos / 1e6;
+    }
+
+    // Represents the receiver between the sequencer and the synthesizer, which records when each note arrives
+    private class Probe implements Receiver {
+        private final Receiver target;
+
+        // EFFECTS: creates a probe which passes messages on to target
+        Probe(Receiver target) {
+            this.target = target;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: records a note on against the grid tick it was due on, then passes the message on
+        @Override
+        public void send(MidiMessage message, long timeStamp) {
+            if (message.getStatus() >> 4 == ShortMessage.NOTE_ON >> 4 && tickNanos > 0) {
+                long now = System.nanoTime();
+                long start = gridStartNanos;
+                long tick = tickNanos;
+                long due = start + Math.floorDiv(now - start + tick / 4, tick) * tick;
+                jitter.record(due, now);
+            }
+            target.send(message, timeStamp);
+        }
+
+        // EFFECTS: closes target
+        @Override
+        public void close() {
+            target.close();
+        }
+    }
+}
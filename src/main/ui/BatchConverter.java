@@ -0,0 +1,158 @@
+package ui;
+
+import model.DrumTrackList;
+import persistence.JsonReader;
+import persistence.MidiFileWriter;
+import playback.OfflineRenderer;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Command line converter which walks a directory tree of saved beats and converts every .json file to a Standard MIDI
+// File or a WAV file next to it. Directories and files are converted as fork/join tasks, so idle cores steal work
+// from busy ones; each file's time or failure is reported as it finishes, followed by a throughput summary.
+public class BatchConverter {
+    public static final String MIDI = "mid";
+    public static final String WAV = "wav";
+    private static final String SOURCE_EXTENSION = ".json";
+
+    private final String format;
+    private final int loops;
+    private final ForkJoinPool pool;
+    private final AtomicInteger converted;
+    private final AtomicInteger failed;
+    private final AtomicLong busyNanos;
+
+    // REQUIRES: format is MIDI or WAV, loops >= 1, threads >= 1
+    // EFFECTS: creates a converter producing files of the given format, rendering audio loops times, on the given
+    //          number of threads
+    public BatchConverter(String format, int loops, int threads) {
+        this.format = format;
+        this.loops = loops;
+        this.pool = new ForkJoinPool(threads);
+        this.converted = new AtomicInteger();
+        this.failed = new AtomicInteger();
+        this.busyNanos = new AtomicLong();
+    }
+
+    // EFFECTS: converts every saved beat under root on all cores and prints a summary; arguments are
+    //          <directory> <mid|wav> [loops]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || !(args[1].equals(MIDI) || args[1].equals(WAV))) {
+            System.out.println("Usage: convert <directory> <mid|wav> [loops]");
+            return;
+        }
+        int loops = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        BatchConverter converter = new BatchConverter(args[1], loops, Runtime.getRuntime().availableProcessors());
+        converter.convertAll(Path.of(args[0]));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: converts every .json file under root, prints the result for each file and a throughput summary, and
+    //          returns the number of files which failed; throws IOException if root is not a readable directory
+    public int convertAll(Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            throw new IOException(root + " is not a directory");
+        }
+        long start = System.nanoTime();
+        pool.invoke(new DirectoryTask(root));
+        pool.shutdown();
+        printSummary(System.nanoTime() - start);
+        return failed.get();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: converts source to a file of this converter's format next to it, and prints how long it took or why
+    //          it failed
+    private void convert(Path source) {
+        long start = System.nanoTime();
+        try {
+            DrumTrackList tracks = new JsonReader(source.toString()).read();
+            Path destination = destinationFor(source);
+            if (format.equals(MIDI)) {
+                new MidiFileWriter(destination.toString()).write(tracks, MidiFileWriter.MULTI_TRACK);
+            } else {
+                new OfflineRenderer().render(tracks, loops, destination);
+            }
+            long elapsed = System.nanoTime() - start;
+            busyNanos.addAndGet(elapsed);
+            converted.incrementAndGet();
+            System.out.printf("ok     %8.1f ms  %s%n", elapsed / 1e6, source);
+        } catch (Exception e) {
+            busyNanos.addAndGet(System.nanoTime() - start);
+            failed.incrementAndGet();
+            System.out.printf("FAILED %8.1f ms  %s: %s%n", (System.nanoTime() - start) / 1e6, source, e);
+        }
+    }
+
+    // EFFECTS: returns source with its .json extension replaced by this converter's format
+    private Path destinationFor(Path source) {
+        String name = source.getFileName().toString();
+        return source.resolveSibling(name.substring(0, name.length() - SOURCE_EXTENSION.length()) + "." + format);
+    }
+
+    // EFFECTS: prints how many files were converted and failed, and the throughput achieved
+    private void printSummary(long elapsedNanos) {
+        int total = converted.get() + failed.get();
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%nConverted %d of %d files (%d failed) in %.2f s on %d threads%n", converted.get(), total,
+                failed.get(), seconds, pool.getParallelism());
+        System.out.printf("Throughput: %.1f files/s, %.1f ms per file, parallel speedup %.1fx%n", total / seconds,
+                total == 0 ? 0 : busyNanos.get() / 1e6 / total, busyNanos.get() / (double) elapsedNanos);
+    }
+
+    // Represents the conversion of every saved beat in a directory, forking one task per subdirectory and file
+    private class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Path directory;
+
+        // EFFECTS: creates a task converting everything under directory
+        DirectoryTask(Path directory) {
+            this.directory = directory;
+        }
+
+        // EFFECTS: forks a task for every subdirectory and saved beat in the directory, and waits for them all
+        @Override
+        protected void compute() {
+            List<RecursiveAction> tasks = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    if (Files.isDirectory(entry)) {
+                        tasks.add(new DirectoryTask(entry));
+                    } else if (entry.getFileName().toString().endsWith(SOURCE_EXTENSION)) {
+                        tasks.add(new FileTask(entry));
+                    }
+                }
+            } catch (IOException e) {
+                failed.incrementAndGet();
+                System.out.printf("FAILED to list %s: %s%n", directory, e);
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    // Represents the conversion of a single saved beat
+    private class FileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Path source;
+
+        // EFFECTS: creates a task converting source
+        FileTask(Path source) {
+            this.source = source;
+        }
+
+        // EFFECTS: converts the saved beat
+        @Override
+        protected void compute() {
+            convert(source);
+        }
+    }
+}
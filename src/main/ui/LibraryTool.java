@@ -0,0 +1,111 @@
+package ui;
+
+import model.DrumTrackList;
+import persistence.JsonReader;
+import persistence.JsonWriter;
+import persistence.PatternLibrary;
+import persistence.PatternLibraryReader;
+import persistence.PatternLibraryWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Command line tool for pattern libraries: builds one from a directory tree of saved beats, searches one by name, tag,
+// bpm and instrument, and extracts a single beat from one back to JSON. Each beat is named after its path under the
+// directory, without the .json extension, and tagged with the names of the directories it was found in.
+public class LibraryTool {
+    private static final String SOURCE_EXTENSION = ".json";
+
+    // EFFECTS: runs the tool; arguments are "build <directory> <library>", "find <library> <query>..." where each
+    //          query is name:<name>, tag:<tag>, bpm:<lowest>-<highest> or instrument:<number>, or
+    //          "extract <library> <name> <project.json>"
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("build")) {
+            build(Path.of(args[1]), args[2]);
+        } else if (args.length >= 2 && args[0].equals("find")) {
+            find(new PatternLibraryReader(args[1]).load(), args);
+        } else if (args.length == 4 && args[0].equals("extract")) {
+            extract(new PatternLibraryReader(args[1]).load(), args[2], args[3]);
+        } else {
+            System.out.println("Usage: library build <directory> <library>");
+            System.out.println("       library find <library> [name:<name>] [tag:<tag>] [bpm:<lowest>-<highest>] "
+                    + "[instrument:<number>]...");
+            System.out.println("       library extract <library> <name> <project.json>");
+        }
+    }
+
+    // EFFECTS: adds every saved beat under root to a new library at destination, and prints how many were added
+    private static void build(Path root, String destination) throws Exception {
+        List<Path> sources;
+        try (Stream<Path> files = Files.walk(root)) {
+            sources = files.filter(file -> file.getFileName().toString().endsWith(SOURCE_EXTENSION)).sorted()
+                    .collect(Collectors.toList());
+        }
+        long start = System.nanoTime();
+        PatternLibraryWriter writer = new PatternLibraryWriter(destination);
+        writer.open();
+        for (Path source : sources) {
+            Path relative = root.relativize(source);
+            String name = relative.toString().replace('\\', '/');
+            List<String> tags = new ArrayList<>();
+            for (int i = 0; i < relative.getNameCount() - 1; i++) {
+                tags.add(relative.getName(i).toString());
+            }
+            writer.add(name.substring(0, name.length() - SOURCE_EXTENSION.length()), tags,
+                    new JsonReader(source.toString()).read());
+        }
+        writer.close();
+        System.out.printf("Added %d beats to %s in %.2f s%n", sources.size(), destination,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    // EFFECTS: prints every entry of library matching all the queries in args, from args[2] on
+    private static void find(PatternLibrary library, String[] args) throws IOException {
+        int[] ids = library.findByInstruments();
+        for (int i = 2; i < args.length; i++) {
+            ids = PatternLibrary.intersect(ids, lookUp(library, args[i]));
+        }
+        for (int id : ids) {
+            System.out.printf("%-40s %4d bpm  %s%n", library.getName(id), library.getBPM(id), library.getTags(id));
+        }
+        System.out.printf("%d of %d beats match%n", ids.length, library.size());
+    }
+
+    // EFFECTS: returns the ids of the entries of library matching query, in ascending order; throws
+    //          IllegalArgumentException if query is not understood
+    private static int[] lookUp(PatternLibrary library, String query) throws IOException {
+        String value = query.substring(query.indexOf(':') + 1);
+        if (query.startsWith("name:")) {
+            return library.findByName(value);
+        } else if (query.startsWith("tag:")) {
+            return library.findByTag(value);
+        } else if (query.startsWith("bpm:")) {
+            int dash = value.indexOf('-');
+            int lowest = Integer.parseInt(dash < 0 ? value : value.substring(0, dash));
+            return library.findByBpm(lowest, dash < 0 ? lowest : Integer.parseInt(value.substring(dash + 1)));
+        } else if (query.startsWith("instrument:")) {
+            return library.findByInstruments(Integer.parseInt(value));
+        }
+        throw new IllegalArgumentException("Cannot search by " + query);
+    }
+
+    // EFFECTS: saves the first entry of library with the given name as JSON at destination
+    private static void extract(PatternLibrary library, String name, String destination) throws Exception {
+        int[] ids = library.findByName(name);
+        if (ids.length == 0) {
+            System.out.println("No beat named " + name);
+            return;
+        }
+        DrumTrackList tracks = library.load(ids[0]);
+        JsonWriter writer = new JsonWriter(destination);
+        writer.open();
+        writer.write(tracks);
+        writer.close();
+        System.out.println("Saved " + name + " to " + destination);
+    }
+}
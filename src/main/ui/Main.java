@@ -1,13 +1,93 @@
 package ui;
 
+import model.Arrangement;
+import model.DrumTrackList;
+import model.Section;
+import persistence.BinaryReader;
+import persistence.BinaryWriter;
+import persistence.JsonReader;
+import persistence.JsonWriter;
+import playback.ArrangementPlayer;
+import playback.OfflineRenderer;
+import playback.Transport;
 import ui.gui.DrumMachineGui;
 
+import java.nio.file.Paths;
+import java.util.Arrays;
+
 // main class for Drum Machine application
 public class Main {
 
-    // Begins the drum machine app
+    // Begins the drum machine app. Given the arguments "render <project.json> <output.wav> [loops]", instead renders
+    // a saved beat to a WAV file without opening any window or sound device; given "convert <directory> <mid|wav>
+    // [loops]", converts every saved beat under the directory in parallel; given "song <project.json>:<repeats> ...",
+    // plays the saved beats one after another as a song; given "pack <project.json> <project.dmp> [deflate]" or
+    // "unpack <project.dmp> <project.json>", converts a saved beat to or from the binary project format; given
+    // "library ...", builds, searches or extracts from a pattern library (see LibraryTool). Otherwise opens the GUI,
+    // playing with the dedicated step scheduler instead of the Java sequencer if given "--scheduler".
     public static void main(String[] args) throws Exception {
-        new DrumMachineGui();
-        //new ConsoleApp();
+        if (args.length >= 3 && args[0].equals("render")) {
+            render(args[1], args[2], args.length > 3 ? Integer.parseInt(args[3]) : 1);
+        } else if (args.length >= 1 && args[0].equals("convert")) {
+            BatchConverter.main(Arrays.copyOfRange(args, 1, args.length));
+        } else if (args.length >= 2 && args[0].equals("song")) {
+            playSong(Arrays.copyOfRange(args, 1, args.length));
+        } else if (args.length >= 3 && args[0].equals("pack")) {
+            pack(args[1], args[2], args.length > 3 && args[3].equals("deflate"));
+        } else if (args.length >= 3 && args[0].equals("unpack")) {
+            unpack(args[1], args[2]);
+        } else if (args.length >= 1 && args[0].equals("library")) {
+            LibraryTool.main(Arrays.copyOfRange(args, 1, args.length));
+        } else {
+            new DrumMachineGui(Arrays.asList(args).contains("--scheduler"));
+            //new ConsoleApp();
+        }
+    }
+
+    // EFFECTS: plays a song made of the given sections, each a saved beat and the number of times to repeat it
+    //          separated by a colon, at the tempo of the first beat
+    private static void playSong(String[] sections) throws Exception {
+        Arrangement arrangement = null;
+        for (String section : sections) {
+            int colon = section.lastIndexOf(':');
+            DrumTrackList pattern = new JsonReader(colon < 0 ? section : section.substring(0, colon)).read();
+            if (arrangement == null) {
+                arrangement = new Arrangement(pattern.getBPM());
+            }
+            arrangement.addSection(new Section(pattern, colon < 0 ? 1 : Long.parseLong(section.substring(colon + 1))));
+        }
+        Transport transport = new Transport();
+        transport.open();
+        ArrangementPlayer player = new ArrangementPlayer(transport);
+        player.play(arrangement);
+        player.awaitEnd();
+        transport.close();
+    }
+
+    // EFFECTS: renders the beat saved in source, played loops times, to a WAV file at destination
+    private static void render(String source, String destination, int loops) throws Exception {
+        DrumTrackList tracks = new JsonReader(source).read();
+        long start = System.nanoTime();
+        long frames = new OfflineRenderer().render(tracks, loops, Paths.get(destination));
+        double seconds = frames / OfflineRenderer.DEFAULT_FORMAT.getFrameRate();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Rendered %.1f s of audio to %s in %.2f s (%.0fx real time)%n", seconds, destination,
+                elapsed, seconds / elapsed);
+    }
+
+    // EFFECTS: converts the beat saved as JSON in source to a binary project at destination, deflated if compress
+    private static void pack(String source, String destination, boolean compress) throws Exception {
+        BinaryWriter writer = new BinaryWriter(destination, compress);
+        writer.open();
+        writer.write(new JsonReader(source).read());
+        writer.close();
+    }
+
+    // EFFECTS: converts the binary project in source to a beat saved as JSON at destination
+    private static void unpack(String source, String destination) throws Exception {
+        JsonWriter writer = new JsonWriter(destination);
+        writer.open();
+        writer.write(new BinaryReader(source).read());
+        writer.close();
     }
-}
\ No newline at end of file
+}
@@ -2,17 +2,21 @@ package ui.gui;
 
 import model.*;
 import model.Instrument;
+import persistence.JournalReader;
+import persistence.JournalWriter;
 import persistence.JsonReader;
+import playback.PlaybackEngine;
+import playback.Transport;
 
 import javax.sound.midi.*;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 
-import persistence.JsonWriter;
+import persistence.ProjectSaver;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Paths;
 
 
 // Drum machine application
@@ -30,17 +34,30 @@ public class ConsoleApp {
             "Mute Cuica", "Open Cuica", "Mute Triangle", "Open Triangle");
 
     private DrumTrackList tracks;
-    private Sequencer sequencer;
+    private Transport transport;
+    private PlaybackEngine engine;
+    private final boolean useStepScheduler;
     private Scanner input;
 
-    private JsonWriter jsonWriter;
+    private ProjectSaver saver;
     private JsonReader jsonReader;
+    private JournalWriter journal;
+    private final EditHistory history = new EditHistory();
 
     private static final String JSON_STORE = "./data/tracks.json";
+    private static final String JITTER_STORE = "./data/jitter.txt";
+    private static final String JOURNAL_STORE = "./data/journal";
 
 
-    // EFFECTS: builds a new Drum Machine by running the application
+    // EFFECTS: builds a new Drum Machine by running the application, played by the Java sequencer
     public ConsoleApp() throws Exception {
+        this(false);
+    }
+
+    // EFFECTS: builds a new Drum Machine by running the application, played by the dedicated step scheduler if
+    //          useStepScheduler, otherwise by the Java sequencer
+    public ConsoleApp(boolean useStepScheduler) throws Exception {
+        this.useStepScheduler = useStepScheduler;
         runDrumMachine();
     }
 
@@ -59,6 +76,11 @@ public class ConsoleApp {
 
             if (command.equals("q")) {
                 System.out.println("Goodbye!");
+                engine.stop();
+                saveJitter();
+                saver.close();
+                journal.close();
+                transport.close();
                 keepGoing = false;
                 System.exit(0);
             } else {
@@ -68,24 +90,43 @@ public class ConsoleApp {
     }
 
     // MODIFIES: this
-    // EFFECTS: initializes the sequencer, asking for user input for the BPM
-    private void init() throws MidiUnavailableException, InvalidMidiDataException {
+    // EFFECTS: opens and warms up the transport, then initializes the tracklist from the journal of the last session,
+    //          or asks for user input for the BPM of a new one, and journals every change to it
+    private void init() throws MidiUnavailableException, InvalidMidiDataException, IOException {
         input = new Scanner(System.in);
-        System.out.println("Enter the bpm you would like for the drum machine");
-        tracks = new DrumTrackList(Integer.parseInt(input.nextLine()));
-        initSequencer(tracks);
+        transport = new Transport();
+        transport.open();
+        System.out.printf("Transport opened in %.1f ms, warmed up in %.1f ms%n",
+                transport.getOpenMillis(), transport.getWarmUpMillis());
+        tracks = recoverTracks();
+        if (tracks == null) {
+            System.out.println("Enter the bpm you would like for the drum machine");
+            tracks = new DrumTrackList(Integer.parseInt(input.nextLine()));
+        }
+        engine = transport.createEngine(useStepScheduler);
+        engine.load(tracks);
+        journal = new JournalWriter(Paths.get(JOURNAL_STORE));
+        journal.attach(tracks);
+        history.attach(tracks);
         jsonReader = new JsonReader(JSON_STORE);
-        jsonWriter = new JsonWriter(JSON_STORE);
+        saver = new ProjectSaver(JSON_STORE);
     }
 
-    // MODIFIES: this
-    // EFFECTS: initializes the sequencer with updated tracks
-    private void initSequencer(DrumTrackList tracks) throws MidiUnavailableException, InvalidMidiDataException {
-        sequencer = MidiSystem.getSequencer();
-        sequencer.open();
-        sequencer.setTempoInBPM(tracks.getBPM());
-        sequencer.setLoopCount(Sequencer.LOOP_CONTINUOUSLY);
-        sequencer.setSequence(tracks.getSequence());
+    // EFFECTS: returns the tracklist rebuilt from the journal of the last session, or null if there is none or it
+    //          cannot be read
+    private DrumTrackList recoverTracks() {
+        long start = System.nanoTime();
+        try {
+            DrumTrackList recovered = new JournalReader(Paths.get(JOURNAL_STORE)).recover();
+            if (recovered != null) {
+                System.out.printf("Recovered %d instruments from the journal in %.1f ms%n",
+                        recovered.getInstruments().size(), (System.nanoTime() - start) / 1e6);
+            }
+            return recovered;
+        } catch (Exception e) {
+            System.out.println("Unable to recover from journal " + JOURNAL_STORE + ": " + e.getMessage());
+            return null;
+        }
     }
 
     // EFFECTS: displays the user's options
@@ -99,8 +140,12 @@ public class ConsoleApp {
         System.out.println("\tp -> play the loop");
         System.out.println("\ts -> stop the loop");
         System.out.println("\tb -> change the bpm");
+        System.out.println("\tt -> change the number of steps");
+        System.out.println("\tu -> undo the last change");
+        System.out.println("\ty -> redo the last change undone");
         System.out.println("\tk -> save the current beat");
         System.out.println("\tl -> load a previous beat");
+        System.out.println("\tj -> show the playback jitter");
         System.out.println("\tq -> quit");
     }
 
@@ -126,12 +171,24 @@ public class ConsoleApp {
             case "b":
                 changeBPM();
                 break;
+            case "t":
+                changeSteps();
+                break;
+            case "u":
+                System.out.println(history.undo() ? "Undone" : "Nothing to undo");
+                break;
+            case "y":
+                System.out.println(history.redo() ? "Redone" : "Nothing to redo");
+                break;
             case "k":
                 saveTrackList();
                 break;
             case "l":
                 loadTrackList();
                 break;
+            case "j":
+                System.out.println(engine.getJitter().summary());
+                break;
             default:
                 System.out.println("Selection not valid");
                 break;
@@ -141,7 +198,6 @@ public class ConsoleApp {
     // MODIFIES: this
     // EFFECTS: adds track to the loop
     public void addTrack() throws Exception {
-        stopLoop();
         int instrumentNum = addInstrumentNum();
         String instrumentNotes = addInstrumentNotes();
         Instrument choice = new Instrument(instrumentNum, instrumentNotes);
@@ -177,7 +233,6 @@ public class ConsoleApp {
     // MODIFIES: this
     // EFFECTS: removes a track from the loop
     private void removeTrack()  {
-        stopLoop();
         System.out.println("Which track would you like to remove? Please type the instrument number.");
         printTrackList();
         int removeChoice = Integer.parseInt(input.nextLine());
@@ -187,15 +242,14 @@ public class ConsoleApp {
 
     // MODIFIES: this
     // EFFECTS: plays the drum loop
-    private void playLoop() throws MidiUnavailableException, InvalidMidiDataException {
-        initSequencer(this.tracks);
-        sequencer.start();
+    private void playLoop() {
+        engine.play();
     }
 
     // MODIFIES: this
     // EFFECTS: stops the drum loop
     private void stopLoop() {
-        sequencer.stop();
+        engine.stop();
     }
 
     // MODIFIES: this
@@ -208,15 +262,26 @@ public class ConsoleApp {
     }
 
     // MODIFIES: this
-    // EFFECTS: prompts user to modify a given track
-    private void changeTrack() throws Exception {
-        stopLoop();
+    // EFFECTS: changes the number of steps of every track; the loop keeps playing with the new length
+    private void changeSteps() {
+        System.out.println("Current number of steps is " + tracks.getSteps() + "\n");
+        System.out.println("Enter the new number of steps, from 1 to " + DrumTrackList.MAX_STEPS + ": ");
+        int steps = Integer.parseInt(input.nextLine());
+        if (steps < 1 || steps > DrumTrackList.MAX_STEPS) {
+            System.out.println("Selection not valid");
+        } else {
+            tracks.setSteps(steps);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: prompts user to modify a given track; the track is edited in place, so the loop keeps playing
+    private void changeTrack() {
         System.out.println("Select the instrument number of the track you would like to modify:");
         printTrackList();
         int choice = Integer.parseInt(input.nextLine());
         System.out.println("You have selected instrument " + choice);
         Instrument instrumentToModify = tracks.getInstruments().get(choice - 1);
-        tracks.removeTrack(choice - 1);
         System.out.println("Please choose what you would like to modify:");
         System.out.println("\ti for instrument type");
         System.out.println("\tn for instrument notes");
@@ -228,21 +293,29 @@ public class ConsoleApp {
             String newNotes = addInstrumentNotes();
             instrumentToModify.setInstrumentNotes(newNotes);
         }
-        tracks.addTrack(instrumentToModify);
     }
 
-    // EFFECTS: saves the tracklist to a file
+    // EFFECTS: saves the tracklist to a file, waiting until it is safely on disk
     private void saveTrackList() {
         try {
-            jsonWriter.open();
-            jsonWriter.write(tracks);
-            jsonWriter.close();
-            System.out.println("Saved current beat to " + JSON_STORE);
-        } catch (FileNotFoundException e) {
+            saver.save(tracks.snapshot());
+            saver.flush();
+            System.out.println("Saved current beat to " + JSON_STORE + " (" + saver.summary() + ")");
+        } catch (IOException e) {
             System.out.println("Unable to write to file " + JSON_STORE);
         }
     }
 
+    // EFFECTS: saves the playback jitter of the whole session to a file
+    private void saveJitter() {
+        try {
+            engine.getJitter().dump(Paths.get(JITTER_STORE));
+            System.out.println("Saved playback jitter to " + JITTER_STORE);
+        } catch (IOException e) {
+            System.out.println("Unable to write to file " + JITTER_STORE);
+        }
+    }
+
     // MODIFIES: this
     // EFFECTS: loads a tracklist from the JSON file
     // MODIFIES: this
@@ -250,6 +323,10 @@ public class ConsoleApp {
     private void loadTrackList() throws Exception {
         try {
             tracks = jsonReader.read();
+            engine.stop();
+            engine.load(tracks);
+            journal.attach(tracks);
+            history.attach(tracks);
             System.out.println("Loaded tracklist from  " + JSON_STORE);
         } catch (IOException e) {
             System.out.println("Unable to read from file: " + JSON_STORE);
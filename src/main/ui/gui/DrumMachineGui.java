@@ -1,27 +1,37 @@
 package ui.gui;
 
 import model.DrumTrackList;
+import model.EditHistory;
 import model.Event;
 import model.EventLog;
 import model.Instrument;
+import model.StepPattern;
+import persistence.JournalReader;
+import persistence.JournalWriter;
 import persistence.JsonReader;
-import persistence.JsonWriter;
+import persistence.ProjectSaver;
+import playback.PlaybackEngine;
+import playback.Transport;
 
 import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 import java.io.*;
-import java.util.ArrayList;
+import java.nio.file.Paths;
 import java.util.Iterator;
-import java.util.List;
 import javax.imageio.ImageIO;
 import javax.sound.midi.InvalidMidiDataException;
-import javax.sound.midi.MidiSystem;
 import javax.sound.midi.MidiUnavailableException;
-import javax.sound.midi.Sequencer;
 import javax.swing.*;
+import javax.swing.Timer;
 
 // Drum machine GUI application
 public class DrumMachineGui {
     private static final String JSON_STORE = "./data/tracks.json";
+    private static final String JITTER_STORE = "./data/jitter.txt";
+    private static final String JOURNAL_STORE = "./data/journal";
+    private static final int JITTER_REFRESH_MILLIS = 500;
+    private static final int SAVE_REFRESH_MILLIS = 500;
     private static final int DEFAULT_BPM = 90;
     private static final Color BACKGROUND_COLOR = Color.BLACK;
     private static final Color BOTTOM_COLOR = Color.GRAY;
@@ -29,29 +39,45 @@ public class DrumMachineGui {
     private static final Font FONT = new Font("Arial", Font.ITALIC, 15);
 
     private final JFrame frame;
-    private JPanel topPanel;
     private JPanel bottomPanel;
 
-    private final List<ToggleButtonRow> toggleButtonRows;
+    // the grid of steps of every instrument, painted as one component
+    private final StepGrid grid = new StepGrid();
+    private final Playhead playhead;
 
     private DrumTrackList tracks;
-    private Sequencer sequencer;
-    private final JsonWriter jsonWriter;
+    private final Transport transport;
+    private final PlaybackEngine engine;
+    private final ProjectSaver saver;
     private final JsonReader jsonReader;
+    private final JournalWriter journal;
+    private final EditHistory history = new EditHistory();
 
     // MODIFIES: this
-    // EFFECTS: constructs a new DrumMachineGui with empty tracklist of BPM 90; initializes panels
+    // EFFECTS: constructs a new DrumMachineGui with the tracklist left by the last session, or an empty one of BPM 90,
+    //          played by the Java sequencer
     public DrumMachineGui() throws InvalidMidiDataException, MidiUnavailableException, IOException {
-        // Initialize empty DrumTrackList with default bpm & sequencer which will play it
-        tracks = new DrumTrackList(DEFAULT_BPM);
-        initSequencer(tracks);
+        this(false);
+    }
 
-        // Initialize reader & writer to save and load files
+    // MODIFIES: this
+    // EFFECTS: constructs a new DrumMachineGui with the tracklist left by the last session, or an empty one of BPM 90;
+    //          initializes panels and journals every change. The tracklist is played by the dedicated step scheduler
+    //          if useStepScheduler, otherwise by the Java sequencer
+    public DrumMachineGui(boolean useStepScheduler)
+            throws InvalidMidiDataException, MidiUnavailableException, IOException {
+        // Recover the last DrumTrackList from the journal, open and warm up the transport, and choose the engine
+        tracks = recoverTracks();
+        transport = openTransport();
+        engine = transport.createEngine(useStepScheduler);
+        engine.load(tracks);
+        playhead = new Playhead(engine, grid);
+
+        // Initialize reader & background saver to load and save files, and the journal to record every change with
         jsonReader = new JsonReader(JSON_STORE);
-        jsonWriter = new JsonWriter(JSON_STORE);
-
-        // Create list of rows of toggle buttons to represent instruments
-        toggleButtonRows = new ArrayList<>();
+        saver = new ProjectSaver(JSON_STORE);
+        journal = openJournal(tracks);
+        history.attach(tracks);
 
         // Set up new frame with border layout
         frame = new JFrame("Drum Machine");
@@ -68,14 +94,7 @@ public class DrumMachineGui {
         frame.addWindowListener(new java.awt.event.WindowAdapter() {
                 @Override
                 public void windowClosing(java.awt.event.WindowEvent windowEvent) {
-                    for (Iterator<Event> it = EventLog.getInstance().iterator(); it.hasNext(); ) {
-                        // Print out the event
-                        Event e = it.next();
-                        System.out.println(e);
-                    }
-
-                    // Then exit the program
-                    System.exit(0);
+                    exit();
                 }
         });
         // Make frame visible
@@ -83,14 +102,18 @@ public class DrumMachineGui {
     }
 
     // MODIFIES: this
-    // EFFECTS: creates a new top panel, which will host ToggleButtonRows representing instruments
+    // EFFECTS: creates a scroll pane in the top of the frame, which shows the step grid of the instruments with their
+    //          names beside it
     private void initializeTopPanel() {
-        // Create new panel with GridLayout; there will be a single column, which is populated with an arbitrary number
-        // of ToggleButtonRows
-        topPanel = new JPanel(new GridLayout(0, 1, 10, 10));
+        // Show the tracks in the grid, and scroll it with the names of the instruments as its row header, so they stay
+        // in view however far the steps are scrolled
+        grid.setTracks(tracks);
+        JScrollPane topPanel = new JScrollPane(grid);
+        topPanel.setRowHeaderView(grid.getHeader());
 
         // Set the panel's color to the default
-        topPanel.setBackground(BACKGROUND_COLOR);
+        topPanel.getViewport().setBackground(BACKGROUND_COLOR);
+        topPanel.setBorder(BorderFactory.createEmptyBorder());
 
         // Add the panel to our main frame
         frame.add(topPanel, BorderLayout.CENTER);
@@ -130,13 +153,85 @@ public class DrumMachineGui {
         initializeAddRowButton();
         initializePlayButton();
         initializeStopButton();
+        initializeUndoButtons();
+        initializeStepsButton();
         initializeLoadButton();
         initializeSaveButton();
+        initializeAutosaveBox();
+        initializeJitterLabel();
+        initializePlayheadLabel();
+        initializeSaveLabel();
 
         // Add the bottom panel to our frame
         frame.add(bottomPanel, BorderLayout.SOUTH);
     }
 
+    // MODIFIES: this
+    // EFFECTS: creates a label showing the playback jitter, which is refreshed twice a second
+    private void initializeJitterLabel() {
+        // Create label in the bottom panel's text color and font, showing the engine's current jitter summary
+        JLabel jitterLabel = new JLabel(engine.getJitter().summary());
+        jitterLabel.setForeground(TEXT_COLOR);
+        jitterLabel.setFont(FONT);
+
+        // Refresh the label from a Swing timer, so it is only ever touched on the event thread
+        new Timer(JITTER_REFRESH_MILLIS, e -> jitterLabel.setText(engine.getJitter().summary())).start();
+
+        // add the label to the bottom panel
+        bottomPanel.add(jitterLabel);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: creates a label showing the frame rate and cost of the playhead, which is refreshed twice a second
+    private void initializePlayheadLabel() {
+        // Create label in the bottom panel's text color and font, showing the playhead's current summary
+        JLabel playheadLabel = new JLabel(playhead.summary());
+        playheadLabel.setForeground(TEXT_COLOR);
+        playheadLabel.setFont(FONT);
+
+        // Refresh the label from a Swing timer, like the playhead itself
+        new Timer(JITTER_REFRESH_MILLIS, e -> playheadLabel.setText(playhead.summary())).start();
+
+        // add the label to the bottom panel
+        bottomPanel.add(playheadLabel);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: creates a label showing how long saves take, which is refreshed twice a second
+    private void initializeSaveLabel() {
+        // Create label in the bottom panel's text color and font, showing the saver's current summary
+        JLabel saveLabel = new JLabel(saver.summary());
+        saveLabel.setForeground(TEXT_COLOR);
+        saveLabel.setFont(FONT);
+
+        // Refresh the label from a Swing timer, as saves finish on the saver's own thread
+        new Timer(SAVE_REFRESH_MILLIS, e -> saveLabel.setText(saver.summary())).start();
+
+        // add the label to the bottom panel
+        bottomPanel.add(saveLabel);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: creates a check box which turns autosave on and off
+    private void initializeAutosaveBox() {
+        // Create check box in the bottom panel's colors and font, with autosave off to begin with
+        JCheckBox autosaveBox = new JCheckBox("Autosave");
+        autosaveBox.setBackground(BOTTOM_COLOR);
+        autosaveBox.setForeground(TEXT_COLOR);
+        autosaveBox.setFocusPainted(false);
+        autosaveBox.setFont(FONT);
+
+        // Attach the saver to the track list while the box is ticked, so each burst of edits is saved once it ends
+        autosaveBox.addActionListener(e -> {
+            if (autosaveBox.isSelected()) {
+                saver.attach(tracks);
+            } else {
+                saver.detach();
+            }
+        });
+        bottomPanel.add(autosaveBox);
+    }
+
     // MODIFIES: this
     // EFFECTS: creates a button to add new rows/instruments
     private void initializeAddRowButton() {
@@ -222,6 +317,78 @@ public class DrumMachineGui {
         bottomPanel.add(stopButton);
     }
 
+    // MODIFIES: this
+    // EFFECTS: creates buttons to undo and redo changes, also bound to Ctrl+Z and Ctrl+Y anywhere in the window
+    private void initializeUndoButtons() {
+        // Create the two buttons in the same green, with the default text color and font
+        bottomPanel.add(makeHistoryButton("Undo", KeyEvent.VK_Z, this::undo));
+        bottomPanel.add(makeHistoryButton("Redo", KeyEvent.VK_Y, this::redo));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns a button with the given text which performs action when clicked, or when Ctrl and key are
+    //          pressed anywhere in the window
+    private JButton makeHistoryButton(String text, int key, Runnable action) {
+        JButton button = new JButton(text);
+        button.setBackground(new Color(30, 132, 73));
+        button.setForeground(TEXT_COLOR);
+        button.setFocusPainted(false);
+        button.setBorderPainted(false);
+        button.setFont(FONT);
+        button.setPreferredSize(new Dimension(70, 70));
+        button.addActionListener(e -> action.run());
+
+        // Bind the key in the root pane, so it works whichever component has the focus
+        JRootPane root = frame.getRootPane();
+        root.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+                .put(KeyStroke.getKeyStroke(key, InputEvent.CTRL_DOWN_MASK), text);
+        root.getActionMap().put(text, new AbstractAction() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                action.run();
+            }
+        });
+        return button;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: creates a button to change the number of steps
+    private void initializeStepsButton() {
+        // Create button to change the number of steps with
+        //   - text "Steps",
+        //   - teal color,
+        //   - default text color and font,
+        //   - no border or focus painting,
+        //   - preferred size which matches the size of the text
+        JButton stepsButton = new JButton("Steps");
+        stepsButton.setBackground(new Color(22, 160, 133));
+        stepsButton.setForeground(TEXT_COLOR);
+        stepsButton.setFocusPainted(false);
+        stepsButton.setBorderPainted(false);
+        stepsButton.setFont(FONT);
+        stepsButton.setPreferredSize(new Dimension(70, 70));
+
+        // add a lambda action listener calling the changeSteps function
+        stepsButton.addActionListener(e -> changeSteps());
+        bottomPanel.add(stepsButton);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: prompts for a new number of steps and changes every instrument to it; does nothing if the number is
+    //          not from 1 to DrumTrackList.MAX_STEPS
+    private void changeSteps() {
+        String input = JOptionPane.showInputDialog(frame, "Enter new number of steps (1 to "
+                + DrumTrackList.MAX_STEPS + "):", tracks.getSteps());
+        try {
+            int steps = Integer.parseInt(input.trim());
+            if (steps >= 1 && steps <= DrumTrackList.MAX_STEPS && steps != tracks.getSteps()) {
+                tracks.setSteps(steps);
+            }
+        } catch (NullPointerException | NumberFormatException e) {
+            // cancelled, or not a number: leave the steps as they are
+        }
+    }
+
     // MODIFIES: this
     // EFFECTS: creates a load button
     private void initializeLoadButton() {
@@ -269,153 +436,146 @@ public class DrumMachineGui {
         saveButton.setFont(FONT);
         saveButton.setPreferredSize(new Dimension(70, 70));
 
-        // Create lambda action listener for save method; throw exception iff save cannot find the right file
-        saveButton.addActionListener(e -> {
-            try {
-                save();
-            } catch (FileNotFoundException ex) {
-                throw new RuntimeException(ex);
-            } catch (Exception ex) {
-                throw new RuntimeException(ex);
-            }
-        });
+        // Create lambda action listener for save method; the file is written in the background, and a failure shows
+        // up in the save label
+        saveButton.addActionListener(e -> save());
         bottomPanel.add(saveButton);
     }
 
     // MODIFIES: this
-    // EFFECTS: adds a new row to the screen
+    // EFFECTS: prompts for an instrument number and adds an instrument with no notes to the track list, which the grid
+    //          shows as a new row; does nothing if the dialog is cancelled
     private void addNewRow() throws Exception {
-        // create a new row representing an instrument which will be situated on this gui
-        ToggleButtonRow row = new ToggleButtonRow(this);
-
-        // add the new row to our list of toggle button rows so that we can access and modify its state
-        toggleButtonRows.add(row);
-
         // prompt the user to choose an instrument number for the row
-        row.changeInstrumentNumber();
+        int number = grid.askInstrumentNumber();
+        if (number < 0) {
+            return;
+        }
 
-        // add the row to the top panel, revalidate and repaint
-        topPanel.add(row);
-        topPanel.revalidate();
-        topPanel.repaint();
+        // add the instrument to the live track list, so that edits are heard while the loop plays
+        tracks.addTrack(new Instrument(number, new StepPattern(tracks.getSteps())));
     }
 
     // MODIFIES: this
-    // EFFECTS: loads track list from buttons and plays it
-    private void playButtonClicked() throws Exception {
-        // stop the sequencer if it's already playing, so that we don't have multiple tracks playing over each other
-        sequencer.stop();
-
-        // reload the tracks to avoid MIDI funkiness
-        tracks = new DrumTrackList(this.DEFAULT_BPM);
-
-        for (ToggleButtonRow row: toggleButtonRows) {
-            tracks.addTrack(row.getInstrument());
+    // EFFECTS: plays the track list, which is kept up to date as rows are edited, and shows the step playing
+    private void playButtonClicked() {
+        // the sequence is edited in place, so a loop that is already playing just keeps going
+        if (engine.isRunning()) {
+            return;
         }
-
-        // load the new track list into the sequencer and begin playing
-        initSequencer(tracks);
-        sequencer.start();
+        engine.play();
+        playhead.start();
         DrumTrackList.play();
     }
 
     // MODIFIES: this
-    // EFFECTS: stops playback
+    // EFFECTS: stops playback and hides the playhead
     private void stopButtonClicked() {
-        sequencer.stop();
+        engine.stop();
+        playhead.stop();
         DrumTrackList.stop();
     }
 
     // MODIFIES: this
-    // EFFECTS: deletes all rows
-    public void deleteAllRows() {
-        for (ToggleButtonRow row : toggleButtonRows) {
-            topPanel.remove(row);
-        }
-        toggleButtonRows.clear();
-        topPanel.revalidate();
-        topPanel.repaint();
-    }
-
-    // MODIFIES: this, toggleButtonRows
     // EFFECTS: loads from a saved JSON file
     private void load() throws Exception {
-        // delete all rows so that we don't end up with extra ones
-        deleteAllRows();
-
-        // read the track list and write it, with each track in the list represented by a toggle button row
+        // read the track list and show it in the grid, with each track in the list as a row
+        engine.stop();
+        playhead.stop();
         tracks = jsonReader.read();
-        updateToggleButtons();
+        engine.load(tracks);
+        journal.attach(tracks);
+        history.attach(tracks);
+        if (saver.isAttached()) {
+            saver.attach(tracks);
+        }
+        grid.setTracks(tracks);
     }
 
     // MODIFIES: this
-    // EFFECTS: saves to a JSON file
-    private void save() throws Exception {
-        // reload the tracks to avoid MIDI funkiness
-        tracks = new DrumTrackList(this.DEFAULT_BPM);
+    // EFFECTS: saves a snapshot of the track list to a JSON file in the background
+    private void save() {
+        saver.save(tracks.snapshot());
+    }
 
-        for (ToggleButtonRow row: toggleButtonRows) {
-            tracks.addTrack(row.getInstrument());
+    // MODIFIES: this
+    // EFFECTS: undoes the last change to the track list, if any; the grid follows the instruments it restores
+    private void undo() {
+        try {
+            history.undo();
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
         }
-
-        jsonWriter.open();
-        jsonWriter.write(tracks);
-        jsonWriter.close();
     }
 
     // MODIFIES: this
-    // EFFECTS: updates the state of ToggleButtonRows to match tracks
-    private void updateToggleButtons() {
-        deleteAllRows();
-        for (int i = 0; i < tracks.getInstruments().size(); i++) {
-            // get the instrument notes and number
-            String buttonString = tracks.getInstruments().get(i).getInstrumentNotesString();
-            int instrumentNumber = tracks.getInstruments().get(i).getInstrumentNumber();
-
-            // create a new toggle button row which will be situated on this gui, add it to this panel
-            ToggleButtonRow newRow = new ToggleButtonRow(this);
-            topPanel.add(newRow);
-
-            // set the instrument number and button status on the new row
-            newRow.setInstrumentNumber(instrumentNumber);
-            newRow.updateButtons(buttonString);
+    // EFFECTS: redoes the last change undone, if any; the grid follows the instruments it restores
+    private void redo() {
+        try {
+            history.redo();
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
 
-            // add the new row to list of toggle button rows
-            toggleButtonRows.add(newRow);
+    // EFFECTS: prints out the event log, saves the session's playback jitter, finishes any save in progress, closes
+    //          the sequencer and synthesizer, then exits the program
+    private void exit() {
+        for (Iterator<Event> it = EventLog.getInstance().iterator(); it.hasNext(); ) {
+            // Print out the event
+            Event e = it.next();
+            System.out.println(e);
+        }
 
+        engine.stop();
+        try {
+            engine.getJitter().dump(Paths.get(JITTER_STORE));
+        } catch (IOException e) {
+            System.out.println("Unable to write to file " + JITTER_STORE);
+        }
+        try {
+            saver.close();
+        } catch (IOException e) {
+            System.out.println("Unable to write to file " + JSON_STORE);
         }
-        // revalidate and repaint top panel
-        topPanel.revalidate();
-        topPanel.repaint();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.out.println("Unable to write to journal " + JOURNAL_STORE);
+        }
+        transport.close();
+        System.exit(0);
     }
 
-    // MODIFIES: this
-    // EFFECTS: removes a row from the screen
-    public void removeRow(ToggleButtonRow row) {
-        // remove row from the panel
-        topPanel.remove(row);
-        toggleButtonRows.remove(row);
-
-        // revalidate and repaint top panel
-        topPanel.revalidate();
-        topPanel.repaint();
+    // EFFECTS: returns the tracklist rebuilt from the journal, or an empty one of BPM 90 if there is no journal or it
+    //          cannot be read
+    private static DrumTrackList recoverTracks() throws InvalidMidiDataException {
+        long start = System.nanoTime();
+        try {
+            DrumTrackList recovered = new JournalReader(Paths.get(JOURNAL_STORE)).recover();
+            if (recovered != null) {
+                EventLog.getInstance().logEvent(new Event(String.format("Recovered %d instruments from the journal"
+                        + " in %.1f ms", recovered.getInstruments().size(), (System.nanoTime() - start) / 1e6)));
+                return recovered;
+            }
+        } catch (Exception e) {
+            System.out.println("Unable to recover from journal " + JOURNAL_STORE + ": " + e.getMessage());
+        }
+        return new DrumTrackList(DEFAULT_BPM);
     }
 
-    // MODIFIES: this
-    // EFFECTS: initializes the sequencer with updated tracks
-    private void initSequencer(DrumTrackList tracks) throws MidiUnavailableException, InvalidMidiDataException {
-        // Initialize and open a new sequencer
-        sequencer = MidiSystem.getSequencer();
-        sequencer.open();
-
-        // Set the sequencer BPM to the track list BPM
-        sequencer.setTempoInBPM(tracks.getBPM());
-
-        // Set sequencer to loop
-        sequencer.setLoopCount(Sequencer.LOOP_CONTINUOUSLY);
+    // EFFECTS: opens the journal and starts journaling tracks
+    private static JournalWriter openJournal(DrumTrackList tracks) throws IOException {
+        JournalWriter journal = new JournalWriter(Paths.get(JOURNAL_STORE));
+        journal.attach(tracks);
+        return journal;
+    }
 
-        // Set sequencer to play the sequence defined by track list
-        sequencer.setSequence(tracks.getSequence());
+    // EFFECTS: opens and warms up the transport
+    private static Transport openTransport() throws MidiUnavailableException {
+        Transport transport = new Transport();
+        transport.open();
+        return transport;
     }
 
     // EFFECTS: returns the frame
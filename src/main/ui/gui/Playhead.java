@@ -0,0 +1,90 @@
+package ui.gui;
+
+import playback.PlaybackEngine;
+
+import javax.swing.Timer;
+
+// Represents the driver of the step grid's playhead. Rather than reacting to every note the engine sends, a Swing
+// timer polls the engine's playing step at no more than MAX_FPS frames a second; the timer coalesces ticks that fall
+// behind, and a frame where the step has not moved costs one read. When it has moved, the two columns concerned are
+// painted there and then, and the time this takes is added up, so the playhead's share of the event thread can be
+// shown next to the playback jitter and kept well clear of anything that could disturb the timing of the audio.
+public class Playhead {
+    public static final int MAX_FPS = 60;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final PlaybackEngine engine;
+    private final StepGrid grid;
+    private final Timer timer;
+    private long startedAt;
+    private long stoppedAt;
+    private long frames;
+    private long moves;
+    private long busyNanos;
+    private long maxNanos;
+
+    // EFFECTS: creates a playhead which shows the step engine is playing on grid, once started
+    public Playhead(PlaybackEngine engine, StepGrid grid) {
+        this.engine = engine;
+        this.grid = grid;
+        timer = new Timer(1000 / MAX_FPS, e -> update());
+        timer.setCoalesce(true);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts following the engine, unless already doing so, and forgets the cost of any earlier run
+    public void start() {
+        if (timer.isRunning()) {
+            return;
+        }
+        startedAt = System.nanoTime();
+        frames = 0;
+        moves = 0;
+        busyNanos = 0;
+        maxNanos = 0;
+        timer.start();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops following the engine and hides the playhead, ending the run that summary() describes
+    public void stop() {
+        if (timer.isRunning()) {
+            stoppedAt = System.nanoTime();
+        }
+        timer.stop();
+        grid.setPlayhead(-1);
+    }
+
+    // EFFECTS: returns true if the playhead is following the engine
+    public boolean isRunning() {
+        return timer.isRunning();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: moves the playhead to the step the engine is playing, and records how long that took
+    void update() {
+        long start = System.nanoTime();
+        frames++;
+        int step = engine.getPlayingStep();
+        if (step != grid.getPlayhead()) {
+            grid.setPlayhead(step);
+            moves++;
+        }
+        long elapsed = System.nanoTime() - start;
+        busyNanos += elapsed;
+        maxNanos = Math.max(maxNanos, elapsed);
+    }
+
+    // EFFECTS: returns a one line summary of the frames polled from when the playhead was last started until now, or
+    //          until it was stopped, and the share of the event thread they took
+    public String summary() {
+        if (frames == 0) {
+            return "playhead idle";
+        }
+        long window = (timer.isRunning() ? System.nanoTime() : stoppedAt) - startedAt;
+        double seconds = (double) window / NANOS_PER_SECOND;
+        return String.format("playhead %.0f fps, %d moves, max %.2f ms, %.2f%% busy", frames / seconds, moves,
+                maxNanos / 1e6, 100.0 * busyNanos / window);
+    }
+}
@@ -0,0 +1,379 @@
+package ui.gui;
+
+import model.DrumTrackList;
+import model.Instrument;
+import model.StepPattern;
+import model.TrackListObserver;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+// Represents the steps of every instrument of a track list as one grid, painted by a single component in place of a
+// row of toggle buttons per instrument. Only the cells inside the clip are painted, so inside a scroll pane a project
+// of thousands of rows and steps costs no more to draw than the part on screen, and a changed note repaints only its
+// own cell. Clicking a cell toggles its note, and dragging carries the same value on to every cell passed over. The
+// header, shown beside the rows in the scroll pane, paints each instrument's name with buttons to change or remove it.
+// The step playing is marked by a playhead laid over its column; moving it repaints just the two columns concerned,
+// and only where they are in view.
+public class StepGrid extends JComponent implements Scrollable, TrackListObserver {
+    private static final long serialVersionUID = 1L;
+    static final int STEP_WIDTH = 24;
+    static final int ROW_HEIGHT = 32;
+    static final int GAP = 3;
+    private static final int NAME_WIDTH = 170;
+    private static final int BUTTON_WIDTH = 70;
+    private static final int LOWEST_INSTRUMENT = 35;
+    private static final int HIGHEST_INSTRUMENT = 81;
+    private static final Font FONT = new Font("Arial", Font.PLAIN, 15);
+    private static final Color BACKGROUND_COLOR = Color.BLACK;
+    private static final Color FONT_COLOR = Color.WHITE;
+    private static final Color REST_COLOR = Color.GRAY;
+    private static final Color BEAT_COLOR = Color.DARK_GRAY;
+    private static final Color NOTE_COLOR = new Color(241, 196, 15);
+    private static final Color CHANGE_COLOR = new Color(241, 15, 203);
+    private static final Color REMOVE_COLOR = new Color(105, 15, 241);
+    private static final Color PLAYHEAD_COLOR = new Color(255, 255, 255, 90);
+
+    private final Header header = new Header();
+    private DrumTrackList tracks;
+    private boolean dragValue;
+    private int dragRow = -1;
+    private int dragStep = -1;
+    private int playhead = -1;
+
+    // MODIFIES: this
+    // EFFECTS: creates an empty grid, which shows nothing until it is given a track list
+    public StepGrid() {
+        setOpaque(true);
+        setBackground(BACKGROUND_COLOR);
+        MouseAdapter mouse = new MouseAdapter() {
+            // MODIFIES: this, the instrument of the row pressed
+            // EFFECTS: toggles the note under the mouse and starts a drag which gives its new value to the cells
+            //          dragged over
+            @Override
+            public void mousePressed(MouseEvent e) {
+                press(e.getX(), e.getY());
+            }
+
+            // MODIFIES: this, the instrument of the row dragged over
+            // EFFECTS: gives the cell under the mouse the value of the cell first pressed
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                drag(e.getX(), e.getY());
+            }
+
+            // MODIFIES: this
+            // EFFECTS: ends the drag
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                dragRow = -1;
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+    }
+
+    // MODIFIES: this, tracks
+    // EFFECTS: stops following the previous track list, if any, and shows and edits tracks instead
+    public void setTracks(DrumTrackList tracks) {
+        if (this.tracks != null) {
+            this.tracks.removeObserver(this);
+        }
+        this.tracks = tracks;
+        tracks.addObserver(this);
+        resized();
+    }
+
+    // EFFECTS: returns the header which names the instruments, to be shown as the scroll pane's row header
+    public JComponent getHeader() {
+        return header;
+    }
+
+    // EFFECTS: asks for an instrument number in a dialog over this grid, and returns it, or -1 if the dialog was
+    //          cancelled or the answer is not a drum from 35 to 81
+    public int askInstrumentNumber() {
+        String input = JOptionPane.showInputDialog(this, "Enter new instrument number (" + LOWEST_INSTRUMENT + " to "
+                + HIGHEST_INSTRUMENT + "):");
+        try {
+            int number = Integer.parseInt(input.trim());
+            return number >= LOWEST_INSTRUMENT && number <= HIGHEST_INSTRUMENT ? number : -1;
+        } catch (NullPointerException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // EFFECTS: returns the size needed to show every step of every instrument
+    @Override
+    public Dimension getPreferredSize() {
+        int steps = 0;
+        int rows = 0;
+        if (tracks != null) {
+            for (Instrument instrument : tracks.getInstruments()) {
+                steps = Math.max(steps, instrument.getPattern().length());
+            }
+            rows = tracks.getInstruments().size();
+        }
+        return new Dimension(steps * STEP_WIDTH + GAP, rows * ROW_HEIGHT + GAP);
+    }
+
+    // EFFECTS: returns the step the playhead is on, or -1 if it is hidden
+    public int getPlayhead() {
+        return playhead;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: moves the playhead to the given step, or hides it if step is -1, and paints the columns it left and
+    //          reached straight away, as far as they are visible
+    public void setPlayhead(int step) {
+        if (step == playhead) {
+            return;
+        }
+        int previous = playhead;
+        playhead = step;
+        paintColumn(previous);
+        paintColumn(step);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: paints the visible part of the column of the given step straight away, if there is one
+    private void paintColumn(int step) {
+        Rectangle column = new Rectangle(step * STEP_WIDTH, 0, STEP_WIDTH + GAP, getHeight()).intersection(
+                getVisibleRect());
+        if (step >= 0 && !column.isEmpty()) {
+            paintImmediately(column);
+        }
+    }
+
+    // EFFECTS: returns the bounds of the cell of the given step in the given row
+    Rectangle cellBounds(int row, int step) {
+        return new Rectangle(step * STEP_WIDTH + GAP, row * ROW_HEIGHT + GAP, STEP_WIDTH - GAP, ROW_HEIGHT - GAP);
+    }
+
+    // EFFECTS: paints the background, then every cell which falls inside the clip, then the playhead if it does
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (tracks == null) {
+            return;
+        }
+        int lastRow = Math.min(tracks.getInstruments().size() - 1, (clip.y + clip.height) / ROW_HEIGHT);
+        int firstStep = Math.max(0, clip.x / STEP_WIDTH);
+        int lastStep = (clip.x + clip.width) / STEP_WIDTH;
+        for (int row = Math.max(0, clip.y / ROW_HEIGHT); row <= lastRow; row++) {
+            StepPattern pattern = tracks.getInstruments().get(row).getPattern();
+            for (int step = firstStep; step <= lastStep && step < pattern.length(); step++) {
+                paintCell(g, row, step, pattern.get(step));
+            }
+        }
+        if (playhead >= firstStep && playhead <= lastStep) {
+            g.setColor(PLAYHEAD_COLOR);
+            g.fillRect(playhead * STEP_WIDTH + GAP, clip.y, STEP_WIDTH - GAP, clip.height);
+        }
+    }
+
+    // MODIFIES: g
+    // EFFECTS: paints the cell of the given step in the given row, with the first step of each beat set apart
+    private void paintCell(Graphics g, int row, int step, boolean on) {
+        if (on) {
+            g.setColor(NOTE_COLOR);
+        } else {
+            g.setColor(step % DrumTrackList.STEPS_PER_QUARTER == 0 ? REST_COLOR : BEAT_COLOR);
+        }
+        g.fillRect(step * STEP_WIDTH + GAP, row * ROW_HEIGHT + GAP, STEP_WIDTH - GAP, ROW_HEIGHT - GAP);
+    }
+
+    // MODIFIES: this, the instrument of the row pressed
+    // EFFECTS: toggles the note of the cell at x, y, if any, and carries its new value on to the cells dragged over
+    private void press(int x, int y) {
+        int row = y / ROW_HEIGHT;
+        int step = x / STEP_WIDTH;
+        if (hasCell(row, step)) {
+            Instrument instrument = tracks.getInstruments().get(row);
+            dragValue = !instrument.isNoteOn(step);
+            dragRow = row;
+            dragStep = step;
+            instrument.setNote(step, dragValue);
+        }
+    }
+
+    // MODIFIES: this, the instrument of the row dragged over
+    // EFFECTS: gives the cell at x, y, if any, the value of the cell first pressed, unless it has it already
+    private void drag(int x, int y) {
+        int row = y / ROW_HEIGHT;
+        int step = x / STEP_WIDTH;
+        if (dragRow < 0 || (row == dragRow && step == dragStep) || !hasCell(row, step)) {
+            return;
+        }
+        dragRow = row;
+        dragStep = step;
+        Instrument instrument = tracks.getInstruments().get(row);
+        if (instrument.isNoteOn(step) != dragValue) {
+            instrument.setNote(step, dragValue);
+        }
+    }
+
+    // EFFECTS: returns true if there is a cell at the given row and step
+    private boolean hasCell(int row, int step) {
+        return tracks != null && row >= 0 && row < tracks.getInstruments().size() && step >= 0
+                && step < tracks.getInstruments().get(row).getPattern().length();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: lays out and repaints the grid and its header again, after the rows or steps have changed
+    private void resized() {
+        revalidate();
+        repaint();
+        header.revalidate();
+        header.repaint();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: resizes the grid and its header to show the new track
+    @Override
+    public void trackAdded(DrumTrackList tracks, int index) {
+        resized();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: resizes the grid and its header to drop the removed track
+    @Override
+    public void trackRemoved(DrumTrackList tracks, int index) {
+        resized();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: repaints the changed cell
+    @Override
+    public void noteChanged(DrumTrackList tracks, int index, int step) {
+        repaint(cellBounds(index, step));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: resizes and repaints the grid and its header to show the changed instrument
+    @Override
+    public void instrumentChanged(DrumTrackList tracks, int index) {
+        resized();
+    }
+
+    // EFFECTS: does nothing, since the grid does not show the tempo
+    @Override
+    public void bpmChanged(DrumTrackList tracks) {
+    }
+
+    // MODIFIES: this
+    // EFFECTS: resizes the grid to the new number of steps
+    @Override
+    public void stepsChanged(DrumTrackList tracks) {
+        resized();
+    }
+
+    // EFFECTS: returns the preferred size, so the scroll pane shows the whole grid when there is room
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    // EFFECTS: returns one step's width when scrolling horizontally, and one row's height when scrolling vertically
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.HORIZONTAL ? STEP_WIDTH : ROW_HEIGHT;
+    }
+
+    // EFFECTS: returns the visible width when scrolling horizontally, and the visible height when scrolling
+    //          vertically, so a block scroll moves one screenful
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.HORIZONTAL ? visibleRect.width : visibleRect.height;
+    }
+
+    // EFFECTS: returns false, so the grid keeps its own width and scrolls horizontally
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    // EFFECTS: returns false, so the grid keeps its own height and scrolls vertically
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+
+    // Represents the column beside the grid which names the instrument of each row, with a button to change the
+    // instrument and one to remove it; like the grid, it paints only the rows inside the clip
+    private class Header extends JComponent {
+        private static final long serialVersionUID = 1L;
+
+        // MODIFIES: this
+        // EFFECTS: creates a header which changes or removes the instrument of the row whose button is clicked
+        Header() {
+            setOpaque(true);
+            setBackground(BACKGROUND_COLOR);
+            setFont(FONT);
+            addMouseListener(new MouseAdapter() {
+                // MODIFIES: the track list
+                // EFFECTS: changes or removes the instrument of the row under the mouse if one of its buttons was
+                //          clicked
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    click(e.getX(), e.getY() / ROW_HEIGHT);
+                }
+            });
+        }
+
+        // EFFECTS: returns the width of a name and two buttons, and the height of the grid
+        @Override
+        public Dimension getPreferredSize() {
+            return new Dimension(NAME_WIDTH + 2 * BUTTON_WIDTH, StepGrid.this.getPreferredSize().height);
+        }
+
+        // EFFECTS: paints the background, then the name and buttons of every row which falls inside the clip
+        @Override
+        protected void paintComponent(Graphics g) {
+            Rectangle clip = g.getClipBounds();
+            g.setColor(getBackground());
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+            if (tracks == null) {
+                return;
+            }
+            int lastRow = Math.min(tracks.getInstruments().size() - 1, (clip.y + clip.height) / ROW_HEIGHT);
+            for (int row = Math.max(0, clip.y / ROW_HEIGHT); row <= lastRow; row++) {
+                int top = row * ROW_HEIGHT + GAP;
+                int baseline = top + (ROW_HEIGHT - GAP + g.getFontMetrics().getAscent()) / 2 - 2;
+                g.setColor(FONT_COLOR);
+                g.drawString(tracks.getInstruments().get(row).getInstrumentName(), GAP, baseline);
+                paintButton(g, NAME_WIDTH, top, baseline, CHANGE_COLOR, "Change");
+                paintButton(g, NAME_WIDTH + BUTTON_WIDTH, top, baseline, REMOVE_COLOR, "Remove");
+            }
+        }
+
+        // MODIFIES: g
+        // EFFECTS: paints a button of the given color and text with its left edge at x
+        private void paintButton(Graphics g, int x, int top, int baseline, Color color, String text) {
+            g.setColor(color);
+            g.fillRect(x, top, BUTTON_WIDTH - GAP, ROW_HEIGHT - GAP);
+            g.setColor(FONT_COLOR);
+            g.drawString(text, x + GAP * 2, baseline);
+        }
+
+        // MODIFIES: the track list
+        // EFFECTS: changes the instrument of row if its change button was clicked, or removes it if its remove
+        //          button was
+        private void click(int x, int row) {
+            if (tracks == null || row >= tracks.getInstruments().size()) {
+                return;
+            }
+            if (x >= NAME_WIDTH && x < NAME_WIDTH + BUTTON_WIDTH) {
+                int number = askInstrumentNumber();
+                if (number > 0) {
+                    tracks.getInstruments().get(row).setInstrument(number);
+                }
+            } else if (x >= NAME_WIDTH + BUTTON_WIDTH) {
+                tracks.removeTrack(row);
+            }
+        }
+    }
+}
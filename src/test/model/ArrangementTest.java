@@ -0,0 +1,73 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArrangementTest {
+    DrumTrackList verse;
+    DrumTrackList chorus;
+    DrumTrackList fill;
+    Arrangement arrangement;
+
+    @BeforeEach
+    public void init() throws Exception {
+        verse = new DrumTrackList(100);
+        chorus = new DrumTrackList(100);
+        fill = new DrumTrackList(100);
+        arrangement = new Arrangement(100);
+    }
+
+    @Test
+    public void constructorTest() {
+        assertEquals(100, arrangement.getBpm());
+        assertTrue(arrangement.getSections().isEmpty());
+        assertEquals(0, arrangement.getLengthInBars());
+        assertFalse(arrangement.iterator().hasNext());
+        arrangement.setBpm(140);
+        assertEquals(140, arrangement.getBpm());
+    }
+
+    @Test
+    public void iteratorTest() {
+        arrangement.addSection(new Section(verse, 2));
+        arrangement.addSection(new Section(chorus, 1));
+        Iterator<DrumTrackList> bars = arrangement.iterator();
+        assertSame(verse, bars.next());
+        assertSame(verse, bars.next());
+        assertSame(chorus, bars.next());
+        assertFalse(bars.hasNext());
+        assertThrows(NoSuchElementException.class, bars::next);
+        assertEquals(3, arrangement.getLengthInBars());
+    }
+
+    @Test
+    public void variationTest() {
+        Section section = new Section(verse, 8);
+        section.setVariation(fill, 4);
+        assertSame(fill, section.getVariation());
+        arrangement.addSection(section);
+        int bar = 0;
+        for (DrumTrackList pattern : arrangement) {
+            assertSame(bar == 3 || bar == 7 ? fill : verse, pattern);
+            bar++;
+        }
+        assertEquals(8, bar);
+    }
+
+    @Test
+    public void longSongTest() {
+        arrangement.addSection(new Section(verse, 1_000_000_000L));
+        arrangement.addSection(new Section(chorus, 1_000_000_000L));
+        assertEquals(2_000_000_000L, arrangement.getLengthInBars());
+        Iterator<DrumTrackList> bars = arrangement.iterator();
+        assertSame(verse, bars.next());
+        arrangement.removeSection(0);
+        assertEquals(1, arrangement.getSections().size());
+        assertSame(chorus, arrangement.iterator().next());
+    }
+}
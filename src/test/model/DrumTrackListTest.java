@@ -3,7 +3,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiEvent;
 import javax.sound.midi.Sequence;
+import javax.sound.midi.ShortMessage;
 import javax.sound.midi.Track;
 
 import java.util.ArrayList;
@@ -23,7 +25,7 @@ public class DrumTrackListTest {
         instrument1 = new Instrument(45, "x-x-x-x-x-x");
         instrument2 = new Instrument(35, "-x-x-x-x-x-x");
         instrument3 = new Instrument(60, "------------");
-        drumTrackList = new DrumTrackList(120);
+        drumTrackList = new DrumTrackList(120, 12, DrumTrackList.DEFAULT_TICKS_PER_STEP);
     }
 
     @Test
@@ -66,4 +68,242 @@ public class DrumTrackListTest {
         assertEquals(drumTrackList.getInstruments().size(), 0);
         assertEquals(drumTrackList.getTracks().size(), 0);
     }
+
+    @Test
+    public void setNoteUpdatesTrackInPlaceTest() throws Exception {
+        drumTrackList.addTrack(instrument3);
+        Track track = drumTrackList.getTracks().get(0);
+        assertEquals(1, track.size());
+        assertEquals(12, drumTrackList.getSequence().getTickLength());
+
+        instrument3.setNote(2, true);
+        assertEquals(drumTrackList.getTracks().get(0), track);
+        assertEquals(2, track.size());
+        assertEquals(ShortMessage.NOTE_ON, noteCommandAt(track, 2));
+        assertEquals(-1, noteCommandAt(track, 1));
+
+        instrument3.setNote(2, false);
+        assertEquals(-1, noteCommandAt(track, 2));
+        assertEquals(1, track.size());
+        assertEquals(12, drumTrackList.getSequence().getTickLength());
+    }
+
+    @Test
+    public void setInstrumentUpdatesTrackInPlaceTest() throws Exception {
+        drumTrackList.addTrack(instrument1);
+        Track track = drumTrackList.getTracks().get(0);
+        assertEquals(7, track.size());
+
+        instrument1.setInstrument(50);
+        assertEquals(7, track.size());
+        ShortMessage message = (ShortMessage) track.get(0).getMessage();
+        assertEquals(50, message.getData1());
+
+        instrument1.setInstrumentNotes("x-");
+        assertEquals(2, track.size());
+        assertEquals(12, track.ticks());
+    }
+
+    @Test
+    public void compileReusesEventsTest() throws Exception {
+        drumTrackList.addTrack(instrument1);
+        drumTrackList.addTrack(instrument2);
+        MidiEvent first = drumTrackList.getTracks().get(0).get(0);
+
+        drumTrackList.compile();
+        assertSame(first, drumTrackList.getTracks().get(0).get(0));
+        assertEquals(7, drumTrackList.getTracks().get(0).size());
+        assertEquals(7, drumTrackList.getTracks().get(1).size());
+    }
+
+    @Test
+    public void removedInstrumentNoLongerPatchesTrackTest() throws Exception {
+        drumTrackList.addTrack(instrument1);
+        drumTrackList.addTrack(instrument2);
+        drumTrackList.removeTrack(0);
+
+        instrument1.setNote(0, false);
+        assertEquals(1, drumTrackList.getTracks().size());
+        assertEquals(instrument2, drumTrackList.getInstruments().get(0));
+    }
+
+    @Test
+    public void resolutionTest() throws Exception {
+        drumTrackList = new DrumTrackList(120, 16, 24);
+        assertEquals(96, drumTrackList.getSequence().getResolution());
+        assertEquals(16, drumTrackList.getSteps());
+        assertEquals(24, drumTrackList.getTicksPerStep());
+        drumTrackList.addTrack(instrument1);
+        Track track = drumTrackList.getTracks().get(0);
+        assertEquals(ShortMessage.NOTE_ON, noteCommandAt(track, 48));
+        assertEquals(-1, noteCommandAt(track, 2));
+        assertEquals(16 * 24, drumTrackList.getSequence().getTickLength());
+        instrument1.setNote(1, true);
+        assertEquals(ShortMessage.NOTE_ON, noteCommandAt(track, 24));
+    }
+
+    @Test
+    public void setStepsTest() throws Exception {
+        drumTrackList.addTrack(instrument1);
+        drumTrackList.addTrack(instrument2);
+        assertEquals(12, drumTrackList.getSteps());
+        drumTrackList.setSteps(4);
+        assertEquals(4, drumTrackList.getSteps());
+        assertEquals("x-x-", instrument1.getInstrumentNotesString());
+        assertEquals("-x-x", instrument2.getInstrumentNotesString());
+        assertEquals(2, drumTrackList.getTracks().get(0).size() - 1);
+        assertEquals(4, drumTrackList.getSequence().getTickLength());
+
+        drumTrackList.setSteps(DrumTrackList.MAX_STEPS);
+        assertEquals("x-x-", instrument1.getInstrumentNotesString().substring(0, 4));
+        assertEquals(2, instrument1.getPattern().countNotes());
+        assertEquals(DrumTrackList.MAX_STEPS, drumTrackList.getSequence().getTickLength());
+        instrument2.setNote(DrumTrackList.MAX_STEPS - 1, true);
+        Track track = drumTrackList.getTracks().get(1);
+        assertEquals(ShortMessage.NOTE_ON, noteCommandAt(track, DrumTrackList.MAX_STEPS - 1));
+        assertEquals(4, track.size());
+    }
+
+    @Test
+    public void addTrackMatchesStepsTest() throws Exception {
+        drumTrackList = new DrumTrackList(120);
+        drumTrackList.addTrack(instrument1);
+        drumTrackList.addTrack(new Instrument(36, "x-"));
+        assertEquals("x-x-x-x-", instrument1.getInstrumentNotesString());
+        assertEquals("x-------", drumTrackList.getInstruments().get(1).getInstrumentNotesString());
+        assertEquals(8, drumTrackList.getSequence().getTickLength());
+
+        StepPattern tooLong = new StepPattern(DrumTrackList.MAX_STEPS + 1);
+        tooLong.set(DrumTrackList.MAX_STEPS, true);
+        instrument1.setPattern(tooLong);
+        assertEquals(8, instrument1.getPattern().length());
+        assertEquals(0, instrument1.getPattern().countNotes());
+        instrument1.setInstrumentNotes("--x");
+        assertEquals("--x-----", instrument1.getInstrumentNotesString());
+        assertEquals(ShortMessage.NOTE_ON, noteCommandAt(drumTrackList.getTracks().get(0), 2));
+        assertEquals(8, drumTrackList.snapshot().getLoopLength());
+    }
+
+    @Test
+    public void longPatternBeyondCachedTicksTest() throws Exception {
+        drumTrackList = new DrumTrackList(120, DrumTrackList.MAX_STEPS, DrumTrackList.MAX_TICKS_PER_STEP);
+        StepPattern pattern = new StepPattern(DrumTrackList.MAX_STEPS);
+        pattern.set(0, true);
+        pattern.set(DrumTrackList.MAX_STEPS - 1, true);
+        drumTrackList.addTrack(new Instrument(36, pattern));
+        Track track = drumTrackList.getTracks().get(0);
+        long lastTick = (long) (DrumTrackList.MAX_STEPS - 1) * DrumTrackList.MAX_TICKS_PER_STEP;
+        assertTrue(lastTick >= NoteMessage.CACHED_TICKS);
+        assertEquals(ShortMessage.NOTE_ON, noteCommandAt(track, lastTick));
+        assertEquals(lastTick + DrumTrackList.MAX_TICKS_PER_STEP, drumTrackList.getSequence().getTickLength());
+
+        drumTrackList.getInstruments().get(0).setNote(DrumTrackList.MAX_STEPS - 1, false);
+        assertEquals(-1, noteCommandAt(track, lastTick));
+        assertEquals(2, track.size());
+    }
+
+    @Test
+    public void recompileAfterNumberAndLengthChangeTest() throws Exception {
+        drumTrackList.addTrack(instrument1);
+        Track track = drumTrackList.getTracks().get(0);
+        instrument1.setInstrumentNotes("x--x-x");
+        instrument1.setInstrument(38);
+        assertEquals(4, track.size());
+        for (int i = 0; i < track.size() - 1; i++) {
+            assertEquals(38, ((ShortMessage) track.get(i).getMessage()).getData1());
+        }
+        assertEquals(ShortMessage.NOTE_ON, noteCommandAt(track, 3));
+        assertEquals(-1, noteCommandAt(track, 2));
+        assertEquals(12, track.ticks());
+    }
+
+    @Test
+    public void lanesTest() throws Exception {
+        drumTrackList = new DrumTrackList(120, 12, 12);
+        drumTrackList.addTrack(instrument1);
+        Track track = drumTrackList.getTracks().get(0);
+        instrument1.setVelocity(0, 64);
+        assertEquals(64, velocityAt(track, 0));
+        instrument1.setAccent(0, true);
+        assertEquals(64 + StepPattern.ACCENT_BOOST, velocityAt(track, 0));
+        instrument1.setOffset(2, 5);
+        assertEquals(-1, noteCommandAt(track, 24));
+        assertEquals(DrumTrackList.VELOCITY, velocityAt(track, 29));
+        instrument1.setOffset(2, -StepPattern.MAX_OFFSET);
+        assertEquals(ShortMessage.NOTE_ON, noteCommandAt(track, 13));
+        instrument1.setOffset(0, -3);
+        assertEquals(ShortMessage.NOTE_ON, noteCommandAt(track, 0));
+        instrument1.setProbability(2, 0);
+        assertEquals(6, track.size());
+        instrument1.setProbability(2, 50);
+        assertEquals(7, track.size());
+        instrument1.setVelocity(1, 10);
+        assertEquals(7, track.size());
+        assertEquals(12 * 12, drumTrackList.getSequence().getTickLength());
+
+        DrumTrackList copy = drumTrackList.snapshot().toTrackList();
+        Track copied = copy.getTracks().get(0);
+        assertEquals(64 + StepPattern.ACCENT_BOOST, velocityAt(copied, 0));
+        assertEquals(ShortMessage.NOTE_ON, noteCommandAt(copied, 13));
+    }
+
+    @Test
+    public void lanesOnSameTickTest() throws Exception {
+        drumTrackList = new DrumTrackList(120, 4, 4);
+        Instrument kick = new Instrument(36, "xx--");
+        drumTrackList.addTrack(kick);
+        Track track = drumTrackList.getTracks().get(0);
+        kick.setOffset(0, 3);
+        kick.setOffset(1, -1);
+        assertEquals(3, track.size());
+        kick.setNote(0, false);
+        assertEquals(ShortMessage.NOTE_ON, noteCommandAt(track, 3));
+        assertEquals(2, track.size());
+        kick.setNote(0, true);
+        kick.setNote(1, false);
+        assertEquals(ShortMessage.NOTE_ON, noteCommandAt(track, 3));
+        assertEquals(2, track.size());
+
+        StepPattern both = kick.getPattern().copy();
+        both.set(1, true);
+        kick.setPattern(both);
+        assertEquals(3, track.size());
+        kick.setPattern(StepPattern.fromString("-x--"));
+        assertEquals(ShortMessage.NOTE_ON, noteCommandAt(track, 4));
+        assertEquals(2, track.size());
+    }
+
+    @Test
+    public void lanesPatchedByCompileTest() throws Exception {
+        drumTrackList.addTrack(instrument1);
+        Track track = drumTrackList.getTracks().get(0);
+        StepPattern pattern = instrument1.getPattern().copy();
+        pattern.setVelocity(2, 90);
+        instrument1.setPattern(pattern);
+        assertEquals(90, velocityAt(track, 2));
+        assertEquals(DrumTrackList.VELOCITY, velocityAt(track, 0));
+        assertEquals(7, track.size());
+    }
+
+    // EFFECTS: returns the velocity of the note event at the given tick of track, or -1 if there is none
+    private int velocityAt(Track track, long tick) {
+        for (int i = 0; i < track.size(); i++) {
+            MidiEvent event = track.get(i);
+            if (event.getTick() == tick && event.getMessage() instanceof ShortMessage) {
+                return ((ShortMessage) event.getMessage()).getData2();
+            }
+        }
+        return -1;
+    }
+
+    // EFFECTS: returns the command of the note event at the given tick of track, or -1 if there is none
+    private int noteCommandAt(Track track, long tick) {
+        for (int i = 0; i < track.size(); i++) {
+            MidiEvent event = track.get(i);
+            if (event.getTick() == tick && event.getMessage() instanceof ShortMessage) {
+                return ((ShortMessage) event.getMessage()).getCommand();
+            }
+        }
+        return -1;
+    }
 }
@@ -0,0 +1,180 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EditHistoryTest {
+    DrumTrackList tracks;
+    EditHistory history;
+
+    @BeforeEach
+    void init() throws Exception {
+        tracks = new DrumTrackList(120);
+        tracks.addTrack(new Instrument(36, "x---x---"));
+        tracks.addTrack(new Instrument(42, "--x---x-"));
+        history = new EditHistory();
+        history.attach(tracks);
+    }
+
+    @Test
+    void testNothingToUndo() throws Exception {
+        assertEquals(0, history.getUndoCount());
+        assertFalse(history.undo());
+        assertFalse(history.redo());
+        assertEquals(0, history.undo(10));
+    }
+
+    @Test
+    void testUndoRedoNote() throws Exception {
+        Instrument kick = tracks.getInstruments().get(0);
+        kick.setNote(1, true);
+        kick.setNote(2, true);
+        assertEquals(2, history.getUndoCount());
+
+        assertTrue(history.undo());
+        assertEquals("xx--x---", kick.getInstrumentNotesString());
+        assertEquals(1, history.getUndoCount());
+        assertEquals(1, history.getRedoCount());
+        assertTrue(history.undo());
+        assertEquals("x---x---", kick.getInstrumentNotesString());
+        assertFalse(history.undo());
+
+        assertTrue(history.redo());
+        assertTrue(history.redo());
+        assertEquals("xxx-x---", kick.getInstrumentNotesString());
+        assertFalse(history.redo());
+        assertEquals(2, history.getUndoCount());
+    }
+
+    @Test
+    void testNewChangeClearsRedo() throws Exception {
+        tracks.setBPM(90);
+        history.undo();
+        assertEquals(120, tracks.getBPM());
+        tracks.getInstruments().get(1).setInstrument(38);
+        assertEquals(0, history.getRedoCount());
+        assertFalse(history.redo());
+        assertTrue(history.undo());
+        assertEquals(42, tracks.getInstruments().get(1).getInstrumentNumber());
+        assertEquals(120, tracks.getBPM());
+    }
+
+    @Test
+    void testUndoTracksAddedAndRemoved() throws Exception {
+        tracks.removeTrack(0);
+        tracks.addTrack(new Instrument(49, "x"));
+        assertEquals(2, history.undo(2));
+        assertEquals(2, tracks.getInstruments().size());
+        assertEquals(36, tracks.getInstruments().get(0).getInstrumentNumber());
+        assertEquals("x---x---", tracks.getInstruments().get(0).getInstrumentNotesString());
+        assertEquals(42, tracks.getInstruments().get(1).getInstrumentNumber());
+
+        assertEquals(2, history.redo(5));
+        assertEquals(2, tracks.getInstruments().size());
+        assertEquals(42, tracks.getInstruments().get(0).getInstrumentNumber());
+        assertEquals(49, tracks.getInstruments().get(1).getInstrumentNumber());
+        assertEquals("x-------", tracks.getInstruments().get(1).getInstrumentNotesString());
+    }
+
+    @Test
+    void testJumpBack() throws Exception {
+        Instrument hat = tracks.getInstruments().get(1);
+        for (int i = 0; i < 500; i++) {
+            hat.setNote(i % 8, !hat.isNoteOn(i % 8));
+        }
+        assertEquals(500, history.undo(500));
+        assertEquals("--x---x-", hat.getInstrumentNotesString());
+        assertEquals(250, history.redo(250));
+        assertEquals(250, history.getUndoCount());
+        assertEquals(250, history.getRedoCount());
+    }
+
+    @Test
+    void testRestoreTouchesOnlyChangedInstruments() throws Exception {
+        ProjectSnapshot before = tracks.snapshot();
+        tracks.getInstruments().get(1).setNote(0, true);
+        Counter counter = new Counter();
+        tracks.addObserver(counter);
+        history.undo();
+        assertEquals(1, counter.instrumentsChanged);
+        assertEquals(0, counter.bpmsChanged);
+        ProjectSnapshot after = tracks.snapshot();
+        assertSame(before.getTracks().get(0), after.getTracks().get(0));
+        assertSame(before.getTracks().get(1), after.getTracks().get(1));
+        assertEquals(1, history.getRedoCount());
+    }
+
+    @Test
+    void testUndoSteps() throws Exception {
+        tracks.setSteps(4);
+        tracks.getInstruments().get(0).setNote(1, true);
+        assertEquals(2, history.getUndoCount());
+        assertEquals(2, history.undo(2));
+        assertEquals(8, tracks.getSteps());
+        assertEquals("x---x---", tracks.getInstruments().get(0).getInstrumentNotesString());
+        assertEquals("--x---x-", tracks.getInstruments().get(1).getInstrumentNotesString());
+        assertTrue(history.redo());
+        assertEquals(4, tracks.getSteps());
+        assertEquals("x---", tracks.getInstruments().get(0).getInstrumentNotesString());
+    }
+
+    @Test
+    void testLimit() throws Exception {
+        history = new EditHistory(3);
+        history.attach(tracks);
+        for (int bpm = 100; bpm < 110; bpm++) {
+            tracks.setBPM(bpm);
+        }
+        assertEquals(3, history.getUndoCount());
+        assertEquals(3, history.undo(10));
+        assertEquals(106, tracks.getBPM());
+    }
+
+    @Test
+    void testAttachForgets() throws Exception {
+        tracks.setBPM(100);
+        DrumTrackList other = new DrumTrackList(80);
+        history.attach(other);
+        assertEquals(0, history.getUndoCount());
+        tracks.setBPM(60);
+        assertEquals(0, history.getUndoCount());
+        other.setBPM(70);
+        assertTrue(history.undo());
+        assertEquals(80, other.getBPM());
+        assertEquals(60, tracks.getBPM());
+    }
+
+    // Counts the changes a track list reports
+    static class Counter implements TrackListObserver {
+        int instrumentsChanged;
+        int bpmsChanged;
+
+        @Override
+        public void trackAdded(DrumTrackList tracks, int index) {
+        }
+
+        @Override
+        public void trackRemoved(DrumTrackList tracks, int index) {
+        }
+
+        @Override
+        public void noteChanged(DrumTrackList tracks, int index, int step) {
+        }
+
+        @Override
+        public void instrumentChanged(DrumTrackList tracks, int index) {
+            instrumentsChanged++;
+        }
+
+        @Override
+        public void bpmChanged(DrumTrackList tracks) {
+            bpmsChanged++;
+        }
+
+        @Override
+        public void stepsChanged(DrumTrackList tracks) {
+        }
+    }
+}
@@ -51,4 +51,67 @@ public class EventLogTest {
 		assertEquals("Event log cleared.", itr.next().getDescription());
 		assertFalse(itr.hasNext());
 	}
+
+	@Test
+	public void testRetention() {
+		EventLog el = EventLog.getInstance();
+		el.setRetention(5);
+		try {
+			assertEquals(8, el.getRetention());
+			List<Event> logged = new ArrayList<Event>();
+			for (int i = 0; i < 20; i++) {
+				Event e = new Event("B" + i);
+				logged.add(e);
+				el.logEvent(e);
+			}
+			List<Event> l = new ArrayList<Event>();
+			for (Event next : el) {
+				l.add(next);
+			}
+			assertEquals(logged.subList(12, 20), l);
+		} finally {
+			el.setRetention(EventLog.DEFAULT_RETENTION);
+		}
+	}
+
+	@Test
+	public void testSetRetentionKeepsEvents() {
+		EventLog el = EventLog.getInstance();
+		el.setRetention(EventLog.DEFAULT_RETENTION * 2);
+		try {
+			List<Event> l = new ArrayList<Event>();
+			for (Event next : el) {
+				l.add(next);
+			}
+			assertTrue(l.contains(e1));
+			assertTrue(l.contains(e3));
+		} finally {
+			el.setRetention(EventLog.DEFAULT_RETENTION);
+		}
+	}
+
+	@Test
+	public void testConcurrentLogEvent() throws InterruptedException {
+		EventLog el = EventLog.getInstance();
+		el.clear();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			String name = "T" + t;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 500; i++) {
+					el.logEvent(new Event(name));
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		int count = 0;
+		for (Event next : el) {
+			assertNotNull(next);
+			count++;
+		}
+		assertEquals(2001, count);
+	}
 }
@@ -3,10 +3,14 @@ package model;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Unit tests for the Event class
@@ -35,4 +39,36 @@ public class EventTest {
 	public void testToString() {
 		assertEquals(d.toString() + "\n" + "Sensor open at door", e.toString());
 	}
+
+	@Test
+	public void testTypedEvent() {
+		Event typed = new Event(EventKind.NOTE_SET, 36, 4, "on");
+		assertEquals(EventKind.NOTE_SET, typed.getKind());
+		assertEquals("Set step 4 of instrument number 36 on", typed.getDescription());
+		assertEquals("Set bpm to 120", new Event(EventKind.BPM_SET, 120).getDescription());
+		assertEquals("Playing...", new Event(EventKind.PLAYING).getDescription());
+		assertTrue(typed.getNanoTime() >= e.getNanoTime());
+		assertFalse(typed.getDate().before(e.getDate()));
+	}
+
+	@Test
+	public void testStepParameterEvents() {
+		Instrument kick = new Instrument(36, "x---");
+		EventLog log = EventLog.getInstance();
+		log.clear();
+		kick.setVelocity(1, 90);
+		kick.setAccent(1, true);
+		kick.setProbability(1, 50);
+		kick.setOffset(1, -3);
+		kick.setPattern(new StepPattern(16));
+		List<String> descriptions = new ArrayList<>();
+		for (Event event : log) {
+			descriptions.add(event.getDescription());
+		}
+		assertTrue(descriptions.contains("Set velocity of step 1 of instrument number 36 to 90"));
+		assertTrue(descriptions.contains("Set accent of step 1 of instrument number 36 on"));
+		assertTrue(descriptions.contains("Set probability of step 1 of instrument number 36 to 50%"));
+		assertTrue(descriptions.contains("Set offset of step 1 of instrument number 36 to -3 ticks"));
+		assertTrue(descriptions.contains("Set instrument notes to 16 steps"));
+	}
 }
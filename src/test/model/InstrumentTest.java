@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class InstrumentTest {
     Instrument instrument1;
@@ -46,4 +48,15 @@ class InstrumentTest {
         assertEquals(instrument1.getInstrumentName(), "Crash Cymbal 1");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void setNoteTest() {
+        instrument3.setNote(1, true);
+        assertArrayEquals(instrument3.getInstrumentNotesList(), "xxx-x-x".toCharArray());
+        assertEquals(instrument3.getInstrumentNotesString(), "xxx-x-x");
+        assertTrue(instrument3.isNoteOn(1));
+        instrument3.setNote(0, false);
+        assertFalse(instrument3.isNoteOn(0));
+        assertEquals(instrument3.getInstrumentNotesString(), "-xx-x-x");
+    }
+
+}
@@ -0,0 +1,55 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.ShortMessage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteMessageTest {
+
+    @Test
+    public void ofTest() {
+        NoteMessage message = NoteMessage.of(true, 38, 100);
+        assertSame(message, NoteMessage.of(true, 38, 100));
+        assertNotSame(message, NoteMessage.of(false, 38, 100));
+        assertNotSame(message, NoteMessage.of(true, 38, 99));
+        assertEquals(ShortMessage.NOTE_ON, message.getCommand());
+        assertEquals(NoteMessage.DRUM_CHANNEL, message.getChannel());
+        assertEquals(38, message.getData1());
+        assertEquals(100, message.getData2());
+        assertEquals(ShortMessage.NOTE_OFF, NoteMessage.of(false, 38, 100).getCommand());
+    }
+
+    @Test
+    public void eventAtTest() {
+        NoteMessage message = NoteMessage.of(true, 40, 100);
+        MidiEvent event = message.eventAt(5);
+        assertSame(event, message.eventAt(5));
+        assertSame(message, event.getMessage());
+        assertEquals(5, event.getTick());
+        assertEquals(300, message.eventAt(300).getTick());
+        assertSame(event, message.eventAt(5));
+    }
+
+    @Test
+    public void eventBeyondCacheTest() {
+        NoteMessage message = NoteMessage.of(true, 41, 100);
+        MidiEvent last = message.eventAt(NoteMessage.CACHED_TICKS - 1);
+        assertSame(last, message.eventAt(NoteMessage.CACHED_TICKS - 1));
+        MidiEvent beyond = message.eventAt(NoteMessage.CACHED_TICKS);
+        assertEquals(NoteMessage.CACHED_TICKS, beyond.getTick());
+        assertSame(message, beyond.getMessage());
+        assertNotSame(beyond, message.eventAt(NoteMessage.CACHED_TICKS));
+    }
+
+    @Test
+    public void immutableTest() {
+        NoteMessage message = NoteMessage.of(true, 42, 100);
+        assertThrows(UnsupportedOperationException.class, () -> message.setMessage(ShortMessage.NOTE_OFF, 9, 42, 1));
+        assertThrows(UnsupportedOperationException.class, () -> message.setMessage(0x80, 42, 1));
+        assertThrows(UnsupportedOperationException.class, () -> message.setMessage(0xF8));
+        assertEquals(100, message.getData2());
+    }
+}
@@ -0,0 +1,95 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectSnapshotTest {
+    DrumTrackList tracks;
+
+    @BeforeEach
+    void init() throws Exception {
+        tracks = new DrumTrackList(120);
+        tracks.addTrack(new Instrument(36, "x---x---"));
+        tracks.addTrack(new Instrument(42, "--x---x-"));
+    }
+
+    @Test
+    void testSnapshot() {
+        ProjectSnapshot snapshot = tracks.snapshot();
+        assertEquals(120, snapshot.getBPM());
+        assertEquals(2, snapshot.getTracks().size());
+        ProjectSnapshot.Track track = snapshot.getTracks().get(1);
+        assertEquals(42, track.getInstrumentNumber());
+        assertEquals(8, track.length());
+        assertTrue(track.isNoteOn(2));
+        assertFalse(track.isNoteOn(3));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getTracks().remove(0));
+    }
+
+    @Test
+    void testStepsAndResolution() throws Exception {
+        DrumTrackList fine = new DrumTrackList(100, 32, 12);
+        fine.addTrack(new Instrument(36, new StepPattern(32)));
+        ProjectSnapshot snapshot = fine.snapshot();
+        assertEquals(32, snapshot.getSteps());
+        assertEquals(12, snapshot.getTicksPerStep());
+        DrumTrackList copy = snapshot.toTrackList();
+        assertEquals(32, copy.getSteps());
+        assertEquals(48, copy.getSequence().getResolution());
+    }
+
+    @Test
+    void testLoopLength() throws Exception {
+        assertEquals(8, tracks.snapshot().getLoopLength());
+        tracks.addTrack(new Instrument(49, "x---------------"));
+        assertEquals(8, tracks.snapshot().getLoopLength());
+        tracks.setSteps(16);
+        assertEquals(16, tracks.snapshot().getLoopLength());
+        assertEquals(0, new DrumTrackList(120).snapshot().getLoopLength());
+    }
+
+    @Test
+    void testUnchangedByLaterEdits() throws Exception {
+        ProjectSnapshot snapshot = tracks.snapshot();
+        tracks.getInstruments().get(0).setNote(1, true);
+        tracks.getInstruments().get(1).setInstrument(38);
+        tracks.setBPM(90);
+        tracks.addTrack(new Instrument(49, "x"));
+        assertEquals(120, snapshot.getBPM());
+        assertEquals(2, snapshot.getTracks().size());
+        assertFalse(snapshot.getTracks().get(0).isNoteOn(1));
+        assertEquals(42, snapshot.getTracks().get(1).getInstrumentNumber());
+    }
+
+    @Test
+    void testSharesUnchangedTracks() {
+        ProjectSnapshot first = tracks.snapshot();
+        tracks.getInstruments().get(1).setNote(0, true);
+        ProjectSnapshot second = tracks.snapshot();
+        assertSame(first.getTracks().get(0), second.getTracks().get(0));
+        assertNotSame(first.getTracks().get(1), second.getTracks().get(1));
+        assertTrue(second.getTracks().get(1).isNoteOn(0));
+
+        tracks.getInstruments().get(0).setInstrumentNotes("xxxx");
+        ProjectSnapshot third = tracks.snapshot();
+        assertNotSame(second.getTracks().get(0), third.getTracks().get(0));
+        assertSame(second.getTracks().get(1), third.getTracks().get(1));
+    }
+
+    @Test
+    void testToTrackList() throws Exception {
+        DrumTrackList copy = tracks.snapshot().toTrackList();
+        assertEquals(120, copy.getBPM());
+        assertEquals(8, copy.getSteps());
+        List<Instrument> instruments = copy.getInstruments();
+        assertEquals(2, instruments.size());
+        assertEquals(36, instruments.get(0).getInstrumentNumber());
+        assertEquals("--x---x-", instruments.get(1).getInstrumentNotesString());
+        instruments.get(0).setNote(1, true);
+        assertFalse(tracks.getInstruments().get(0).isNoteOn(1));
+    }
+}
@@ -0,0 +1,173 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StepPatternTest {
+    StepPattern pattern1;
+    StepPattern pattern2;
+
+    @BeforeEach
+    public void init() {
+        pattern1 = StepPattern.fromString("x-x-");
+        pattern2 = new StepPattern(200);
+    }
+
+    @Test
+    public void constructorTest() {
+        assertEquals(4, pattern1.length());
+        assertTrue(pattern1.get(0));
+        assertFalse(pattern1.get(1));
+        assertEquals("x-x-", pattern1.toString());
+        assertEquals(200, pattern2.length());
+        assertEquals(0, pattern2.countNotes());
+        assertEquals(0, new StepPattern(0).length());
+    }
+
+    @Test
+    public void setAndToggleTest() {
+        pattern2.set(150, true);
+        assertTrue(pattern2.get(150));
+        assertFalse(pattern2.get(86));
+        assertFalse(pattern2.toggle(150));
+        assertTrue(pattern2.toggle(199));
+        pattern2.set(199, false);
+        assertEquals(0, pattern2.countNotes());
+    }
+
+    @Test
+    public void nextNoteTest() {
+        pattern2.set(3, true);
+        pattern2.set(64, true);
+        pattern2.set(199, true);
+        assertEquals(3, pattern2.nextNote(0));
+        assertEquals(64, pattern2.nextNote(4));
+        assertEquals(199, pattern2.nextNote(65));
+        assertEquals(-1, pattern2.nextNote(200));
+        assertEquals(-1, new StepPattern(10).nextNote(0));
+    }
+
+    @Test
+    public void nextDifferenceTest() {
+        StepPattern other = pattern2.copy();
+        assertEquals(-1, pattern2.nextDifference(other, 0));
+        other.set(5, true);
+        other.set(130, true);
+        assertEquals(5, pattern2.nextDifference(other, 0));
+        assertEquals(130, pattern2.nextDifference(other, 6));
+        assertEquals(-1, pattern2.nextDifference(other, 131));
+        assertEquals(2, pattern1.nextDifference(StepPattern.fromString("x---xx"), 1));
+        assertEquals(4, StepPattern.fromString("x-").nextDifference(StepPattern.fromString("x---x"), 1));
+        assertEquals(-1, StepPattern.fromString("x-").nextDifference(StepPattern.fromString("x-----"), 0));
+    }
+
+    @Test
+    public void resizedTest() {
+        pattern2.set(3, true);
+        pattern2.set(150, true);
+        StepPattern shorter = pattern2.resized(100);
+        assertEquals(100, shorter.length());
+        assertEquals(1, shorter.countNotes());
+        StepPattern longer = shorter.resized(300);
+        assertEquals(300, longer.length());
+        assertFalse(longer.get(150));
+        assertEquals(-1, longer.nextNote(4));
+        assertEquals("x-x-----", pattern1.resized(8).toString());
+        assertEquals("x", pattern1.resized(1).toString());
+    }
+
+    @Test
+    public void copyAndEqualsTest() {
+        StepPattern copy = pattern1.copy();
+        assertEquals(pattern1, copy);
+        assertEquals(pattern1.hashCode(), copy.hashCode());
+        copy.toggle(1);
+        assertNotEquals(pattern1, copy);
+        assertNotEquals(pattern1, StepPattern.fromString("x-x-x-"));
+        assertArrayEquals("xxx-".toCharArray(), copy.toCharArray());
+    }
+
+    @Test
+    public void lanesTest() {
+        assertFalse(pattern2.hasLanes());
+        assertEquals(StepPattern.DEFAULT_VELOCITY, pattern2.getVelocity(7));
+        assertEquals(StepPattern.MAX_PROBABILITY, pattern2.getProbability(7));
+        assertEquals(0, pattern2.getOffset(7));
+        assertFalse(pattern2.isAccented(7));
+        pattern2.setVelocity(7, StepPattern.DEFAULT_VELOCITY);
+        pattern2.setAccent(7, false);
+        pattern2.setProbability(7, StepPattern.MAX_PROBABILITY);
+        pattern2.setOffset(7, 0);
+        assertFalse(pattern2.hasLanes());
+
+        pattern2.setVelocity(7, 60);
+        pattern2.setAccent(199, true);
+        pattern2.setProbability(8, 25);
+        pattern2.setOffset(9, -5);
+        assertTrue(pattern2.hasLanes());
+        assertEquals(60, pattern2.getVelocity(7));
+        assertEquals(StepPattern.DEFAULT_VELOCITY, pattern2.getVelocity(6));
+        assertTrue(pattern2.isAccented(199));
+        assertFalse(pattern2.isAccented(198));
+        assertEquals(25, pattern2.getProbability(8));
+        assertEquals(-5, pattern2.getOffset(9));
+        assertEquals(60, pattern2.getPlayedVelocity(7));
+        assertEquals(StepPattern.MAX_VELOCITY, pattern2.getPlayedVelocity(199));
+        pattern2.setAccent(7, true);
+        assertEquals(60 + StepPattern.ACCENT_BOOST, pattern2.getPlayedVelocity(7));
+    }
+
+    @Test
+    public void lanesDifferenceTest() {
+        StepPattern other = pattern2.copy();
+        other.setVelocity(150, 30);
+        assertEquals(150, pattern2.nextDifference(other, 0));
+        assertEquals(150, other.nextDifference(pattern2, 0));
+        assertNotEquals(pattern2, other);
+        pattern2.setVelocity(150, 30);
+        assertEquals(-1, pattern2.nextDifference(other, 0));
+        assertEquals(pattern2, other);
+        assertEquals(pattern2.hashCode(), other.hashCode());
+
+        other.setOffset(40, 3);
+        other.setAccent(90, true);
+        other.setProbability(120, 0);
+        other.set(100, true);
+        assertEquals(40, pattern2.nextDifference(other, 0));
+        assertEquals(90, pattern2.nextDifference(other, 41));
+        assertEquals(100, pattern2.nextDifference(other, 91));
+        assertEquals(120, pattern2.nextDifference(other, 101));
+        assertEquals(-1, pattern2.nextDifference(other, 121));
+
+        for (int step = 0; step < other.length(); step++) {
+            pattern2.copyStep(other, step);
+        }
+        assertEquals(other, pattern2);
+        StepPattern unset = new StepPattern(200);
+        unset.copyStep(new StepPattern(200), 5);
+        assertFalse(unset.hasLanes());
+    }
+
+    @Test
+    public void lanesResizedAndCopiedTest() {
+        pattern2.setVelocity(10, 50);
+        pattern2.setAccent(150, true);
+        pattern2.setProbability(150, 70);
+        pattern2.setOffset(10, 2);
+        StepPattern shorter = pattern2.resized(100);
+        assertEquals(50, shorter.getVelocity(10));
+        assertEquals(2, shorter.getOffset(10));
+        StepPattern longer = shorter.resized(300);
+        assertFalse(longer.isAccented(150));
+        assertEquals(StepPattern.MAX_PROBABILITY, longer.getProbability(150));
+        assertEquals(StepPattern.DEFAULT_VELOCITY, longer.getVelocity(299));
+        assertEquals(-1, longer.nextDifference(shorter, 0));
+
+        StepPattern copy = pattern2.copy();
+        assertEquals(pattern2, copy);
+        copy.setVelocity(10, 51);
+        assertEquals(50, pattern2.getVelocity(10));
+    }
+}
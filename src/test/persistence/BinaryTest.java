@@ -0,0 +1,323 @@
+package persistence;
+
+import model.DrumTrackList;
+import model.Instrument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryTest extends JsonTest {
+    static final String FILE = "./data/testBinaryDrumTrackList.dmp";
+    static final String JSON = "./data/testBinaryDrumTrackList.json";
+
+    @AfterEach
+    void deleteFiles() throws IOException {
+        Files.deleteIfExists(Paths.get(FILE));
+        Files.deleteIfExists(Paths.get(JSON));
+    }
+
+    @Test
+    void testRoundTrip() throws Exception {
+        write(general(), false);
+        checkGeneral(new BinaryReader(FILE).read());
+    }
+
+    @Test
+    void testRoundTripDeflated() throws Exception {
+        write(general(), true);
+        checkGeneral(new BinaryReader(FILE).read());
+    }
+
+    @Test
+    void testRoundTripSteps() throws Exception {
+        for (boolean compress : new boolean[] {false, true}) {
+            DrumTrackList tracks = sixteenths();
+            write(tracks, compress);
+            checkTracks(tracks, new BinaryReader(FILE).read());
+        }
+    }
+
+    @Test
+    void testReadVersion1() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(BinaryFormat.MAGIC);
+        out.writeShort(BinaryFormat.VERSION_1);
+        out.writeShort(0);
+        out.writeInt(85);
+        out.writeInt(1);
+        out.writeInt(BinaryFormat.OFFSET_SIZE + 2 * Integer.BYTES + Long.BYTES);
+        out.writeInt(BinaryFormat.OFFSET_SIZE);
+        out.writeInt(35);
+        out.writeInt(4);
+        out.writeLong(0b101);
+        Files.write(Paths.get(FILE), bytes.toByteArray());
+
+        BinaryProject project = new BinaryReader(FILE).load();
+        assertEquals(0, project.getSteps());
+        assertEquals(DrumTrackList.DEFAULT_TICKS_PER_STEP, project.getTicksPerStep());
+        DrumTrackList tracks = project.toTrackList();
+        assertEquals(85, tracks.getBPM());
+        assertEquals(4, tracks.getSteps());
+        checkInstrument(tracks.getInstruments().get(0), 35, "x-x-");
+        assertFalse(tracks.getInstruments().get(0).getPattern().hasLanes());
+    }
+
+    @Test
+    void testReadVersion2() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(BinaryFormat.MAGIC);
+        out.writeShort(2);
+        out.writeShort(0);
+        out.writeInt(85);
+        out.writeInt(16);
+        out.writeInt(4);
+        out.writeInt(1);
+        out.writeInt(BinaryFormat.OFFSET_SIZE + 2 * Integer.BYTES + Long.BYTES);
+        out.writeInt(BinaryFormat.OFFSET_SIZE);
+        out.writeInt(35);
+        out.writeInt(16);
+        out.writeLong(0b101);
+        Files.write(Paths.get(FILE), bytes.toByteArray());
+
+        DrumTrackList tracks = new BinaryReader(FILE).read();
+        assertEquals(16, tracks.getSteps());
+        assertEquals(4, tracks.getTicksPerStep());
+        checkInstrument(tracks.getInstruments().get(0), 35, "x-x-------------");
+        assertFalse(tracks.getInstruments().get(0).getPattern().hasLanes());
+    }
+
+    @Test
+    void testReadMismatchedSteps() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(BinaryFormat.MAGIC);
+        out.writeShort(2);
+        out.writeShort(0);
+        out.writeInt(85);
+        out.writeInt(16);
+        out.writeInt(4);
+        out.writeInt(1);
+        out.writeInt(BinaryFormat.OFFSET_SIZE + 2 * Integer.BYTES + Long.BYTES);
+        out.writeInt(BinaryFormat.OFFSET_SIZE);
+        out.writeInt(35);
+        out.writeInt(4);
+        out.writeLong(0b101);
+        Files.write(Paths.get(FILE), bytes.toByteArray());
+
+        BinaryProject project = new BinaryReader(FILE).load();
+        assertThrows(IOException.class, () -> project.getPattern(0));
+        assertThrows(IOException.class, project::toTrackList);
+    }
+
+    @Test
+    void testRoundTripLanes() throws Exception {
+        for (boolean compress : new boolean[] {false, true}) {
+            DrumTrackList tracks = lanes();
+            write(tracks, compress);
+            checkTracks(tracks, new BinaryReader(FILE).read());
+        }
+    }
+
+    @Test
+    void testEmpty() throws Exception {
+        write(new DrumTrackList(120), true);
+        DrumTrackList tracks = new BinaryReader(FILE).read();
+        assertEquals(120, tracks.getBPM());
+        assertEquals(0, tracks.getInstruments().size());
+    }
+
+    @Test
+    void testLoadDecodesLazily() throws Exception {
+        write(general(), false);
+        BinaryProject project = new BinaryReader(FILE).load();
+        assertEquals(85, project.getBPM());
+        assertEquals(3, project.size());
+        assertEquals(42, project.getInstrumentNumber(2));
+        assertEquals(padded("x-x-"), project.getPattern(0).toString());
+        checkInstrument(project.getInstrument(1), 60, longNotes());
+    }
+
+    @Test
+    void testDeflatedIsSmaller() throws Exception {
+        DrumTrackList tracks = new DrumTrackList(120);
+        for (int i = 0; i < 200; i++) {
+            tracks.addTrack(new Instrument(36, "x---x---x---x---"));
+        }
+        write(tracks, false);
+        long plain = Files.size(Paths.get(FILE));
+        write(tracks, true);
+        assertTrue(Files.size(Paths.get(FILE)) < plain / 4);
+        assertEquals(200, new BinaryReader(FILE).read().getInstruments().size());
+    }
+
+    @Test
+    void testJsonConvertsLosslessly() throws Exception {
+        for (DrumTrackList tracks : new DrumTrackList[] {general(), sixteenths(), lanes()}) {
+            JsonWriter json = new JsonWriter(JSON);
+            json.open();
+            json.write(tracks);
+            json.close();
+            byte[] original = Files.readAllBytes(Paths.get(JSON));
+
+            write(new JsonReader(JSON).read(), true);
+            json.open();
+            json.write(new BinaryReader(FILE).read());
+            json.close();
+            assertArrayEquals(original, Files.readAllBytes(Paths.get(JSON)));
+        }
+    }
+
+    @Test
+    void testNotBinary() {
+        assertThrows(IOException.class, () -> new BinaryReader("./data/testReaderGeneralDrumTrackList.json").read());
+        assertThrows(IOException.class, () -> new BinaryReader("./data/noSuchFile.dmp").read());
+    }
+
+    @Test
+    void testUnknownVersion() throws Exception {
+        write(general(), false);
+        byte[] bytes = Files.readAllBytes(Paths.get(FILE));
+        bytes[Integer.BYTES + 1] = 99;
+        Files.write(Paths.get(FILE), bytes);
+        assertThrows(IOException.class, () -> new BinaryReader(FILE).load());
+    }
+
+    @Test
+    void testTruncated() throws Exception {
+        for (boolean compress : new boolean[] {false, true}) {
+            write(general(), compress);
+            Path file = Paths.get(FILE);
+            byte[] bytes = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+            assertThrows(IOException.class, () -> new BinaryReader(FILE).read());
+        }
+    }
+
+    @Test
+    void testCorruptRecord() throws Exception {
+        write(general(), false);
+        Path file = Paths.get(FILE);
+        byte[] bytes = Files.readAllBytes(file);
+        int firstRecord = BinaryFormat.HEADER_SIZE + 3 * BinaryFormat.OFFSET_SIZE;
+        bytes[firstRecord + Integer.BYTES + 3] = 2;
+        Files.write(file, bytes);
+        BinaryProject project = new BinaryReader(FILE).load();
+        assertThrows(IOException.class, () -> project.getPattern(0));
+        assertEquals(42, project.getInstrumentNumber(2));
+
+        bytes[firstRecord + Integer.BYTES + 3] = 65;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> new BinaryReader(FILE).load().getPattern(0));
+
+        bytes[firstRecord + 3] = 99;
+        bytes[firstRecord + Integer.BYTES + 3] = 4;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> new BinaryReader(FILE).read());
+    }
+
+    @Test
+    void testCorruptSteps() throws Exception {
+        write(sixteenths(), false);
+        Path file = Paths.get(FILE);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[BinaryFormat.HEADER_SIZE - 3 * Integer.BYTES] = 1;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> new BinaryReader(FILE).load());
+    }
+
+    @Test
+    void testCorruptLanes() throws Exception {
+        write(lanes(), false);
+        Path file = Paths.get(FILE);
+        byte[] bytes = Files.readAllBytes(file);
+        int lanes = BinaryFormat.HEADER_SIZE + 2 * BinaryFormat.OFFSET_SIZE + 2 * Integer.BYTES + Long.BYTES;
+        bytes[lanes + 1] = 0;
+        Files.write(file, bytes);
+        BinaryProject project = new BinaryReader(FILE).load();
+        assertThrows(IOException.class, () -> project.getPattern(0));
+        assertEquals(2, project.getPattern(1).getProbability(0));
+
+        bytes[lanes] = 0;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> new BinaryReader(FILE).load().getPattern(0));
+    }
+
+    private DrumTrackList general() throws Exception {
+        DrumTrackList tracks = new DrumTrackList(85, 100, DrumTrackList.DEFAULT_TICKS_PER_STEP);
+        tracks.addTrack(new Instrument(35, "x-x-"));
+        tracks.addTrack(new Instrument(60, longNotes()));
+        tracks.addTrack(new Instrument(42, ""));
+        return tracks;
+    }
+
+    private void checkGeneral(DrumTrackList tracks) {
+        assertEquals(85, tracks.getBPM());
+        List<Instrument> instruments = tracks.getInstruments();
+        assertEquals(3, instruments.size());
+        checkInstrument(instruments.get(0), 35, padded("x-x-"));
+        checkInstrument(instruments.get(1), 60, longNotes());
+        checkInstrument(instruments.get(2), 42, padded(""));
+    }
+
+    private DrumTrackList sixteenths() throws Exception {
+        DrumTrackList tracks = new DrumTrackList(96, 16, 4);
+        tracks.addTrack(new Instrument(36, "x---x---x---x--x"));
+        tracks.addTrack(new Instrument(42, "x-x-x-x-x-x-x-x-"));
+        return tracks;
+    }
+
+    private DrumTrackList lanes() throws Exception {
+        DrumTrackList tracks = sixteenths();
+        Instrument kick = tracks.getInstruments().get(0);
+        kick.setVelocity(0, 127);
+        kick.setAccent(4, true);
+        kick.setOffset(15, -3);
+        Instrument hat = tracks.getInstruments().get(1);
+        hat.setProbability(0, 2);
+        hat.setVelocity(14, 1);
+        return tracks;
+    }
+
+    private void checkTracks(DrumTrackList expected, DrumTrackList tracks) {
+        assertEquals(expected.getBPM(), tracks.getBPM());
+        assertEquals(expected.getSteps(), tracks.getSteps());
+        assertEquals(expected.getTicksPerStep(), tracks.getTicksPerStep());
+        assertEquals(expected.getInstruments().size(), tracks.getInstruments().size());
+        for (int i = 0; i < tracks.getInstruments().size(); i++) {
+            Instrument instrument = tracks.getInstruments().get(i);
+            assertEquals(expected.getInstruments().get(i).getInstrumentNumber(), instrument.getInstrumentNumber());
+            assertEquals(expected.getInstruments().get(i).getPattern(), instrument.getPattern());
+        }
+    }
+
+    private String longNotes() {
+        StringBuilder notes = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            notes.append(i % 3 == 0 || i == 99 ? 'x' : '-');
+        }
+        return notes.toString();
+    }
+
+    private String padded(String notes) {
+        return notes + "-".repeat(100 - notes.length());
+    }
+
+    private void write(DrumTrackList tracks, boolean compress) throws IOException {
+        BinaryWriter writer = new BinaryWriter(FILE, compress);
+        writer.open();
+        writer.write(tracks);
+        writer.close();
+    }
+}
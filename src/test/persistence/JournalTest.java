@@ -0,0 +1,230 @@
+package persistence;
+
+import model.DrumTrackList;
+import model.Instrument;
+import model.StepPattern;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest extends JsonTest {
+    Path directory;
+
+    @BeforeEach
+    void init() throws IOException {
+        directory = Paths.get("./data/testJournal");
+        clear();
+    }
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        clear();
+        Files.deleteIfExists(directory);
+    }
+
+    // EFFECTS: deletes every file in the journal directory, if it exists
+    void clear() throws IOException {
+        if (Files.isDirectory(directory)) {
+            for (Path file : files()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void testRecoverNothing() throws Exception {
+        assertNull(new JournalReader(directory).recover());
+        assertEquals(0, new JournalReader(directory).findLastSequence());
+    }
+
+    @Test
+    void testRecoverEveryChange() throws Exception {
+        DrumTrackList tracks = new DrumTrackList(100, 4, DrumTrackList.DEFAULT_TICKS_PER_STEP);
+        tracks.addTrack(new Instrument(36, "x---"));
+        JournalWriter journal = new JournalWriter(directory);
+        journal.attach(tracks);
+        tracks.addTrack(new Instrument(42, "--x-"));
+        tracks.addTrack(new Instrument(38, "----"));
+        tracks.getInstruments().get(0).setNote(2, true);
+        tracks.getInstruments().get(1).setInstrument(46);
+        tracks.getInstruments().get(1).setInstrumentNotes("x--x");
+        tracks.removeTrack(2);
+        tracks.setBPM(130);
+        journal.close();
+
+        DrumTrackList recovered = new JournalReader(directory).recover();
+        assertEquals(130, recovered.getBPM());
+        assertEquals(2, recovered.getInstruments().size());
+        checkInstrument(recovered.getInstruments().get(0), 36, "x-x-");
+        checkInstrument(recovered.getInstruments().get(1), 46, "x--x");
+        assertEquals(journal.getLastSequence(), new JournalReader(directory).findLastSequence());
+    }
+
+    @Test
+    void testSnapshotReplacesSegments() throws Exception {
+        DrumTrackList tracks = new DrumTrackList(100, 4, DrumTrackList.DEFAULT_TICKS_PER_STEP);
+        tracks.addTrack(new Instrument(36, "----"));
+        JournalWriter journal = new JournalWriter(directory, 3);
+        journal.attach(tracks);
+        for (int i = 0; i < 10; i++) {
+            tracks.getInstruments().get(0).setNote(i % 4, i % 2 == 0);
+        }
+        journal.flush();
+        assertEquals(2, files().size());
+        journal.close();
+
+        checkInstrument(new JournalReader(directory).recover().getInstruments().get(0), 36, "x-x-");
+    }
+
+    @Test
+    void testNumberingCarriesOn() throws Exception {
+        DrumTrackList tracks = new DrumTrackList(100);
+        JournalWriter journal = new JournalWriter(directory);
+        journal.attach(tracks);
+        tracks.setBPM(110);
+        journal.close();
+
+        DrumTrackList recovered = new JournalReader(directory).recover();
+        journal = new JournalWriter(directory);
+        assertEquals(2, journal.getLastSequence());
+        journal.attach(recovered);
+        recovered.setBPM(120);
+        journal.close();
+        assertEquals(120, new JournalReader(directory).recover().getBPM());
+    }
+
+    @Test
+    void testTornRecordIgnored() throws Exception {
+        DrumTrackList tracks = new DrumTrackList(100);
+        JournalWriter journal = new JournalWriter(directory);
+        journal.attach(tracks);
+        tracks.setBPM(110);
+        tracks.setBPM(120);
+        journal.close();
+
+        Path segment = files().stream().filter(JournalFormat::isSegment).findFirst().get();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+        assertEquals(110, new JournalReader(directory).recover().getBPM());
+    }
+
+    @Test
+    void testRecoverSteps() throws Exception {
+        DrumTrackList tracks = new DrumTrackList(100, 16, 6);
+        tracks.addTrack(new Instrument(36, "x---x---x---x---"));
+        JournalWriter journal = new JournalWriter(directory);
+        journal.attach(tracks);
+        tracks.setSteps(6);
+        tracks.getInstruments().get(0).setNote(5, true);
+        journal.close();
+
+        DrumTrackList recovered = new JournalReader(directory).recover();
+        assertEquals(6, recovered.getSteps());
+        assertEquals(6, recovered.getTicksPerStep());
+        checkInstrument(recovered.getInstruments().get(0), 36, "x---xx");
+    }
+
+    @Test
+    void testRecoverLanes() throws Exception {
+        DrumTrackList tracks = new DrumTrackList(100, 4, 12);
+        Instrument kick = new Instrument(36, "x-x-");
+        kick.setVelocity(0, 70);
+        kick.setOffset(2, -4);
+        tracks.addTrack(kick);
+        JournalWriter journal = new JournalWriter(directory);
+        journal.attach(tracks);
+        Instrument hat = new Instrument(42, "xxxx");
+        hat.setProbability(1, 30);
+        tracks.addTrack(hat);
+        kick.setAccent(2, true);
+        kick.setVelocity(0, 90);
+        StepPattern snare = StepPattern.fromString("--x-");
+        snare.setOffset(2, 5);
+        hat.setPattern(snare);
+        journal.close();
+
+        DrumTrackList recovered = new JournalReader(directory).recover();
+        assertEquals(kick.getPattern(), recovered.getInstruments().get(0).getPattern());
+        assertEquals(90, recovered.getInstruments().get(0).getPattern().getVelocity(0));
+        assertTrue(recovered.getInstruments().get(0).getPattern().isAccented(2));
+        assertEquals(snare, recovered.getInstruments().get(1).getPattern());
+
+        journal = new JournalWriter(directory);
+        journal.attach(recovered);
+        journal.close();
+        DrumTrackList fromSnapshot = new JournalReader(directory).recover();
+        assertEquals(kick.getPattern(), fromSnapshot.getInstruments().get(0).getPattern());
+        assertEquals(snare, fromSnapshot.getInstruments().get(1).getPattern());
+    }
+
+    @Test
+    void testRecoverVersion2Snapshot() throws Exception {
+        Files.createDirectories(directory);
+        ByteBuffer snapshot = ByteBuffer.allocate(6 * Integer.BYTES + Short.BYTES + Long.BYTES
+                + JournalFormat.patternSize(StepPattern.fromString("x-x-")) + JournalFormat.CRC_SIZE);
+        snapshot.putInt(JournalFormat.SNAPSHOT_MAGIC).putShort((short) 2).putLong(1).putInt(95).putInt(4).putInt(6)
+                .putInt(1).putInt(36);
+        JournalFormat.putPattern(snapshot, StepPattern.fromString("x-x-"));
+        snapshot.putInt(JournalFormat.crc(snapshot, 0, snapshot.position()));
+        Files.write(directory.resolve(JournalFormat.SNAPSHOT_FILE), snapshot.array());
+
+        DrumTrackList recovered = new JournalReader(directory).recover();
+        assertEquals(4, recovered.getSteps());
+        assertEquals(6, recovered.getTicksPerStep());
+        checkInstrument(recovered.getInstruments().get(0), 36, "x-x-");
+        assertFalse(recovered.getInstruments().get(0).getPattern().hasLanes());
+    }
+
+    @Test
+    void testRecoverVersion1Snapshot() throws Exception {
+        Files.createDirectories(directory);
+        ByteBuffer snapshot = ByteBuffer.allocate(2 * Integer.BYTES + Short.BYTES + Long.BYTES + Integer.BYTES
+                + Integer.BYTES + JournalFormat.patternSize(StepPattern.fromString("x-x-")) + JournalFormat.CRC_SIZE);
+        snapshot.putInt(JournalFormat.SNAPSHOT_MAGIC).putShort((short) 1).putLong(1).putInt(95).putInt(1).putInt(36);
+        JournalFormat.putPattern(snapshot, StepPattern.fromString("x-x-"));
+        snapshot.putInt(JournalFormat.crc(snapshot, 0, snapshot.position()));
+        Files.write(directory.resolve(JournalFormat.SNAPSHOT_FILE), snapshot.array());
+
+        DrumTrackList recovered = new JournalReader(directory).recover();
+        assertEquals(95, recovered.getBPM());
+        assertEquals(4, recovered.getSteps());
+        assertEquals(DrumTrackList.DEFAULT_TICKS_PER_STEP, recovered.getTicksPerStep());
+        checkInstrument(recovered.getInstruments().get(0), 36, "x-x-");
+    }
+
+    @Test
+    void testCorruptSnapshot() throws Exception {
+        JournalWriter journal = new JournalWriter(directory);
+        journal.attach(new DrumTrackList(100));
+        journal.close();
+        Files.write(directory.resolve(JournalFormat.SNAPSHOT_FILE), new byte[] {1, 2, 3, 4, 5, 6});
+        try {
+            new JournalReader(directory).recover();
+            fail("IOException expected");
+        } catch (IOException e) {
+            // pass
+        }
+    }
+
+    List<Path> files() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            stream.forEach(files::add);
+        }
+        return files;
+    }
+}
@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 class JsonReaderTest extends JsonTest {
@@ -34,6 +35,99 @@ class JsonReaderTest extends JsonTest {
         }
     }
 
+    @Test
+    void testReaderGeneralDrumTrackList() {
+        JsonReader reader = new JsonReader("./data/testReaderGeneralDrumTrackList.json");
+        try {
+            DrumTrackList tracks = reader.read();
+            assertEquals(128, tracks.getBPM());
+            List<Instrument> instruments = tracks.getInstruments();
+            assertEquals(2, instruments.size());
+            checkInstrument(instruments.get(0), 36, "x---x---");
+            checkInstrument(instruments.get(1), 42, "--x---x-");
+            assertEquals(2, tracks.getTracks().size());
+        } catch (Exception e) {
+            fail("Couldn't read from file");
+        }
+    }
+
+    @Test
+    void testReaderStepsAfterInstruments() throws Exception {
+        DrumTrackList tracks = new JsonReader("./data/testReaderStepsDrumTrackList.json").read();
+        assertEquals(110, tracks.getBPM());
+        assertEquals(16, tracks.getSteps());
+        assertEquals(24, tracks.getTicksPerStep());
+        assertEquals(96, tracks.getSequence().getResolution());
+        checkInstrument(tracks.getInstruments().get(0), 36, "x---x---x---x---");
+    }
+
+    @Test
+    void testReaderInvalidSteps() {
+        checkInvalid("./data/testReaderInvalidSteps.json", "Steps must be from 1 to 1024");
+    }
+
+    @Test
+    void testReaderMismatchedSteps() {
+        checkInvalid("./data/testReaderMismatchedSteps.json", "Instrument 1 has 8 steps, not the tracklist's 16");
+    }
+
+    @Test
+    void testReaderLegacySteps() throws Exception {
+        DrumTrackList tracks = new JsonReader("./data/testReaderLegacySteps.json").read();
+        assertEquals(16, tracks.getSteps());
+        checkInstrument(tracks.getInstruments().get(0), 36, "x---------------");
+        checkInstrument(tracks.getInstruments().get(1), 42, "--x---x---x---x-");
+    }
+
+    @Test
+    void testReaderInvalidBpm() {
+        checkInvalid("./data/testReaderInvalidBpm.json", "Bpm must be from 1 to 999");
+        checkInvalid("./data/testReaderNegativeBpm.json", "Bpm must be from 1 to 999");
+    }
+
+    @Test
+    void testReaderLanes() throws Exception {
+        DrumTrackList tracks = new JsonReader("./data/testReaderLanesDrumTrackList.json").read();
+        StepPattern pattern = tracks.getInstruments().get(0).getPattern();
+        assertEquals("x-x-", pattern.toString());
+        assertEquals(90, pattern.getVelocity(0));
+        assertTrue(pattern.isAccented(2));
+        assertEquals(StepPattern.MAX_PROBABILITY, pattern.getProbability(1));
+        assertEquals(-2, pattern.getOffset(3));
+    }
+
+    @Test
+    void testReaderInvalidLanes() {
+        checkInvalid("./data/testReaderInvalidVelocity.json", "Velocity must be from 1 to 127");
+        checkInvalid("./data/testReaderInvalidLaneLength.json", "one value for each of the 4 steps");
+    }
+
+    @Test
+    void testReaderInvalidNumber() {
+        checkInvalid("./data/testReaderInvalidNumber.json", "line 3");
+    }
+
+    @Test
+    void testReaderInvalidNotes() {
+        checkInvalid("./data/testReaderInvalidNotes.json", "'o'");
+    }
+
+    @Test
+    void testReaderMalformed() {
+        checkInvalid("./data/testReaderMalformed.json", "line 3");
+    }
+
+    private void checkInvalid(String source, String messagePart) {
+        try {
+            new JsonReader(source).read();
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains(messagePart), e.getMessage());
+        } catch (Exception e) {
+            fail("IOException expected");
+        }
+    }
+
     /*
     @Test
     void testReaderGeneralWorkRoom() {
@@ -0,0 +1,89 @@
+package persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonTokenizerTest {
+
+    @Test
+    void testNested() throws IOException {
+        JsonTokenizer json = new JsonTokenizer(new StringReader(" {\"a\": [1, -2, {}], \"b\": \"x\\\"y\\u0041\\n\"}\n"));
+        json.beginObject();
+        assertEquals("a", json.nextName());
+        json.beginArray();
+        assertEquals(1, json.nextInt());
+        assertEquals(-2, json.nextInt());
+        assertEquals(JsonTokenizer.Token.BEGIN_OBJECT, json.peek());
+        json.skipValue();
+        assertFalse(json.hasNext());
+        json.endArray();
+        assertEquals("b", json.nextName());
+        assertEquals("x\"yA\n", json.nextChars().toString());
+        json.endObject();
+        json.endDocument();
+    }
+
+    @Test
+    void testSkipValue() throws IOException {
+        JsonTokenizer json = new JsonTokenizer(new StringReader("[true, null, 1.5e3, {\"a\": [false]}, \"s\", 7]"));
+        json.beginArray();
+        for (int i = 0; i < 5; i++) {
+            json.skipValue();
+        }
+        assertEquals(7, json.nextInt());
+        json.endArray();
+        json.endDocument();
+    }
+
+    @Test
+    void testLongStringAcrossBuffers() throws IOException {
+        StringBuilder notes = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            notes.append(i % 3 == 0 ? 'x' : '-');
+        }
+        JsonTokenizer json = new JsonTokenizer(new StringReader("[\"" + notes + "\"]"));
+        json.beginArray();
+        assertEquals(notes.toString(), json.nextChars().toString());
+        json.endArray();
+    }
+
+    @Test
+    void testInvalid() {
+        checkInvalid("{\"a\" 1}");
+        checkInvalid("{\"a\": 1,}");
+        checkInvalid("[1 2]");
+        checkInvalid("[1,]");
+        checkInvalid("[\"open");
+        checkInvalid("{\"a\": tru}");
+        checkInvalid("{} {}");
+        checkInvalid("[");
+    }
+
+    @Test
+    void testNotAnInt() {
+        for (String number : new String[] {"1.5", "3000000000", "-"}) {
+            JsonTokenizer json = new JsonTokenizer(new StringReader(number));
+            try {
+                json.nextInt();
+                fail("IOException expected for " + number);
+            } catch (IOException e) {
+                // pass
+            }
+        }
+    }
+
+    private void checkInvalid(String document) {
+        JsonTokenizer json = new JsonTokenizer(new StringReader(document));
+        try {
+            json.skipValue();
+            json.endDocument();
+            fail("IOException expected for " + document);
+        } catch (IOException e) {
+            // pass
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package persistence;
 
 import model.*;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 import javax.sound.midi.InvalidMidiDataException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.fail;
 
 class JsonWriterTest extends JsonTest {
@@ -15,6 +20,13 @@ class JsonWriterTest extends JsonTest {
     //write data to a file and then use the reader to read it back in and check that we
     //read in a copy of what was written out.
 
+    @AfterEach
+    void deleteFiles() throws IOException {
+        for (String name : new String[] {"Compact", "Steps", "Lanes", "Large"}) {
+            Files.deleteIfExists(Paths.get("./data/testWriter" + name + "DrumTrackList.json"));
+        }
+    }
+
     @Test
     void testWriterInvalidFile() throws InvalidMidiDataException {
         try {
@@ -49,8 +61,8 @@ class JsonWriterTest extends JsonTest {
     void testWriterGeneralWorkroom() throws Exception {
         try {
             DrumTrackList tracks = new DrumTrackList(85);
-            tracks.addTrack(new Instrument(35, "x-x-"));
-            tracks.addTrack(new Instrument(60, "-x-x"));
+            tracks.addTrack(new Instrument(35, "x-x-x-x-"));
+            tracks.addTrack(new Instrument(60, "-x-x-x-x"));
             JsonWriter writer = new JsonWriter("./data/testWriterGeneralDrumTrackList.json");
             writer.open();
             writer.write(tracks);
@@ -61,11 +73,115 @@ class JsonWriterTest extends JsonTest {
             assertEquals(85, tracks.getBPM());
             List<Instrument> instruments = tracks.getInstruments();
             assertEquals(2, instruments.size());
-            checkInstrument(instruments.get(0), 35, "x-x-");
-            checkInstrument(instruments.get(1), 60, "-x-x");
+            checkInstrument(instruments.get(0), 35, "x-x-x-x-");
+            checkInstrument(instruments.get(1), 60, "-x-x-x-x");
 
         } catch (IOException e) {
             fail("Exception should not have been thrown");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testWriterLayout() throws Exception {
+        DrumTrackList tracks = new DrumTrackList(85);
+        tracks.addTrack(new Instrument(35, "x-x-x-x-"));
+        tracks.addTrack(new Instrument(60, "-x-x-x-x"));
+        JsonWriter writer = new JsonWriter("./data/testWriterGeneralDrumTrackList.json");
+        writer.open();
+        writer.write(tracks);
+        writer.close();
+
+        String expected = "{\n    \"instruments\": [\n"
+                + "        {\n            \"number\": 35,\n            \"notes\": \"x-x-x-x-\"\n        },\n"
+                + "        {\n            \"number\": 60,\n            \"notes\": \"-x-x-x-x\"\n        }\n"
+                + "    ],\n    \"bpm\": 85\n}";
+        assertEquals(expected, read("./data/testWriterGeneralDrumTrackList.json"));
+    }
+
+    @Test
+    void testWriterCompact() throws Exception {
+        DrumTrackList tracks = new DrumTrackList(85);
+        tracks.addTrack(new Instrument(35, "x-x-x-x-"));
+        tracks.addTrack(new Instrument(60, "-x-x-x-x"));
+        JsonWriter writer = new JsonWriter("./data/testWriterCompactDrumTrackList.json", true);
+        writer.open();
+        writer.write(tracks);
+        writer.close();
+
+        assertEquals("{\"instruments\":[{\"number\":35,\"notes\":\"x-x-x-x-\"},{\"number\":60,\"notes\":\"-x-x-x-x\"}],"
+                + "\"bpm\":85}", read("./data/testWriterCompactDrumTrackList.json"));
+        tracks = new JsonReader("./data/testWriterCompactDrumTrackList.json").read();
+        assertEquals(85, tracks.getBPM());
+        checkInstrument(tracks.getInstruments().get(1), 60, "-x-x-x-x");
+    }
+
+    @Test
+    void testWriterStepsAndResolution() throws Exception {
+        DrumTrackList tracks = new DrumTrackList(85, 4, 12);
+        tracks.addTrack(new Instrument(35, "x-x-"));
+        JsonWriter writer = new JsonWriter("./data/testWriterStepsDrumTrackList.json", true);
+        writer.open();
+        writer.write(tracks);
+        writer.close();
+
+        assertEquals("{\"instruments\":[{\"number\":35,\"notes\":\"x-x-\"}],\"bpm\":85,\"steps\":4,\"resolution\":12}",
+                read("./data/testWriterStepsDrumTrackList.json"));
+        tracks = new JsonReader("./data/testWriterStepsDrumTrackList.json").read();
+        assertEquals(4, tracks.getSteps());
+        assertEquals(12, tracks.getTicksPerStep());
+        checkInstrument(tracks.getInstruments().get(0), 35, "x-x-");
+    }
+
+    @Test
+    void testWriterLanes() throws Exception {
+        DrumTrackList tracks = new DrumTrackList(85, 4, 12);
+        Instrument kick = new Instrument(35, "x-x-");
+        kick.setVelocity(0, 70);
+        kick.setAccent(2, true);
+        kick.setProbability(2, 40);
+        kick.setOffset(0, -3);
+        tracks.addTrack(kick);
+        tracks.addTrack(new Instrument(60, "-x-x"));
+        JsonWriter writer = new JsonWriter("./data/testWriterLanesDrumTrackList.json", true);
+        writer.open();
+        writer.write(tracks);
+        writer.close();
+
+        assertEquals("{\"instruments\":[{\"number\":35,\"notes\":\"x-x-\",\"velocity\":[70,100,100,100],"
+                + "\"accent\":\"--x-\",\"probability\":[100,100,40,100],\"offset\":[-3,0,0,0]},"
+                + "{\"number\":60,\"notes\":\"-x-x\"}],\"bpm\":85,\"steps\":4,\"resolution\":12}",
+                read("./data/testWriterLanesDrumTrackList.json"));
+        DrumTrackList read = new JsonReader("./data/testWriterLanesDrumTrackList.json").read();
+        assertEquals(kick.getPattern(), read.getInstruments().get(0).getPattern());
+        assertFalse(read.getInstruments().get(1).getPattern().hasLanes());
+    }
+
+    @Test
+    void testWriterLargerThanBuffer() throws Exception {
+        DrumTrackList tracks = new DrumTrackList(140, 256, DrumTrackList.DEFAULT_TICKS_PER_STEP);
+        char[] notes = new char[256];
+        for (int i = 0; i < 1000; i++) {
+            for (int step = 0; step < notes.length; step++) {
+                notes[step] = (step + i) % 3 == 0 ? 'x' : '-';
+            }
+            tracks.addTrack(new Instrument(35 + i % 47, new String(notes)));
+        }
+        JsonWriter writer = new JsonWriter("./data/testWriterLargeDrumTrackList.json");
+        writer.open();
+        writer.write(tracks);
+        writer.close();
+
+        DrumTrackList read = new JsonReader("./data/testWriterLargeDrumTrackList.json").read();
+        assertEquals(140, read.getBPM());
+        assertEquals(1000, read.getInstruments().size());
+        for (int i = 0; i < 1000; i++) {
+            Instrument instrument = tracks.getInstruments().get(i);
+            checkInstrument(read.getInstruments().get(i), instrument.getInstrumentNumber(),
+                    instrument.getInstrumentNotesString());
+        }
+    }
+
+    private String read(String file) throws IOException {
+        return new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.US_ASCII);
+    }
+}
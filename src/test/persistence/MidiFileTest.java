@@ -0,0 +1,173 @@
+package persistence;
+
+import model.DrumTrackList;
+import model.Instrument;
+import model.StepPattern;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.midi.*;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MidiFileTest extends JsonTest {
+
+    @Test
+    void testReaderNonExistentFile() {
+        try {
+            new MidiFileReader("./data/noSuchFile.mid").read();
+            fail("IOException expected");
+        } catch (Exception e) {
+            // pass
+        }
+    }
+
+    @Test
+    void testReaderNotMidiFile() {
+        try {
+            new MidiFileReader("./data/testReaderEmptyDrumTrackList.json").read();
+            fail("IOException expected");
+        } catch (Exception e) {
+            // pass
+        }
+    }
+
+    @Test
+    void testMultiTrackRoundTrip() throws Exception {
+        checkRoundTrip(MidiFileWriter.MULTI_TRACK, "./data/testMidiMultiTrack.mid");
+    }
+
+    @Test
+    void testSingleTrackRoundTrip() throws Exception {
+        checkRoundTrip(MidiFileWriter.SINGLE_TRACK, "./data/testMidiSingleTrack.mid");
+    }
+
+    @Test
+    void testReaderQuantizesDrumChannel() throws Exception {
+        // 96 ticks per quarter note, so a sixteenth note step is 24 ticks
+        Sequence sequence = new Sequence(Sequence.PPQ, 96);
+        Track track = sequence.createTrack();
+        track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, 9, 36, 100), 0));
+        track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_OFF, 9, 36, 0), 10));
+        track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, 9, 38, 100), 50));
+        track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, 9, 38, 0), 60));
+        track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, 0, 60, 100), 24));
+        track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, 9, 20, 100), 24));
+        track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, 9, 36, 100), 95));
+        String destination = "./data/testMidiQuantize.mid";
+        MidiSystem.write(sequence, 0, new File(destination));
+
+        DrumTrackList tracks = new MidiFileReader(destination).read();
+        assertEquals(120, tracks.getBPM());
+        List<Instrument> instruments = tracks.getInstruments();
+        assertEquals(2, instruments.size());
+        checkInstrument(instruments.get(0), 36, "x---x");
+        checkInstrument(instruments.get(1), 38, "--x--");
+        Files.delete(Paths.get(destination));
+    }
+
+    @Test
+    void testReaderCapsSteps() throws Exception {
+        // 4 ticks per quarter note, so every tick is a step
+        Sequence sequence = new Sequence(Sequence.PPQ, 4);
+        Track track = sequence.createTrack();
+        track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, 9, 36, 100), 0));
+        track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, 9, 36, 100), DrumTrackList.MAX_STEPS - 1));
+        track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, 9, 36, 100), DrumTrackList.MAX_STEPS + 10));
+        String destination = "./data/testMidiLong.mid";
+        MidiSystem.write(sequence, 0, new File(destination));
+
+        DrumTrackList tracks = new MidiFileReader(destination).read();
+        assertEquals(DrumTrackList.MAX_STEPS, tracks.getSteps());
+        StepPattern pattern = tracks.getInstruments().get(0).getPattern();
+        assertEquals(DrumTrackList.MAX_STEPS, pattern.length());
+        assertEquals(2, pattern.countNotes());
+        assertTrue(pattern.get(DrumTrackList.MAX_STEPS - 1));
+        Files.delete(Paths.get(destination));
+    }
+
+    @Test
+    void testReaderDropsFarHits() throws Exception {
+        Sequence sequence = new Sequence(Sequence.PPQ, 4);
+        Track track = sequence.createTrack();
+        track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, 9, 36, 100), 0));
+        track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, 9, 38, 100), 50_000_000));
+        String destination = "./data/testMidiFar.mid";
+        MidiSystem.write(sequence, 0, new File(destination));
+
+        DrumTrackList tracks = new MidiFileReader(destination).read();
+        assertEquals(DrumTrackList.MAX_STEPS, tracks.getSteps());
+        List<Instrument> instruments = tracks.getInstruments();
+        assertEquals(1, instruments.size());
+        assertEquals(36, instruments.get(0).getInstrumentNumber());
+        assertEquals(1, instruments.get(0).getPattern().countNotes());
+        Files.delete(Paths.get(destination));
+    }
+
+    @Test
+    void testReaderOverflowingTick() throws Exception {
+        // 1 tick per quarter note, so the last hit is past the largest int step
+        Sequence sequence = new Sequence(Sequence.PPQ, 1);
+        Track track = sequence.createTrack();
+        track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, 9, 36, 100), 0));
+        for (long tick = 200_000_000; tick < 600_000_000; tick += 200_000_000) {
+            track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, 0, 60, 100), tick));
+        }
+        track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, 9, 36, 100), 600_000_000));
+        String destination = "./data/testMidiOverflow.mid";
+        MidiSystem.write(sequence, 0, new File(destination));
+
+        DrumTrackList tracks = new MidiFileReader(destination).read();
+        assertEquals(DrumTrackList.MAX_STEPS, tracks.getSteps());
+        assertEquals(1, tracks.getInstruments().get(0).getPattern().countNotes());
+        Files.delete(Paths.get(destination));
+    }
+
+    // EFFECTS: writes a tracklist as a MIDI file of the given type, reads it back and checks it is unchanged
+    private void checkRoundTrip(int type, String destination) throws Exception {
+        DrumTrackList tracks = new DrumTrackList(85);
+        tracks.addTrack(new Instrument(36, "x---x---"));
+        tracks.addTrack(new Instrument(42, "-x-x-x--"));
+        new MidiFileWriter(destination).write(tracks, type);
+        assertEquals(type, MidiSystem.getMidiFileFormat(new File(destination)).getType());
+        checkNoteOffs(MidiSystem.getSequence(new File(destination)));
+
+        tracks = new MidiFileReader(destination).read();
+        assertEquals(85, tracks.getBPM());
+        List<Instrument> instruments = tracks.getInstruments();
+        assertEquals(2, instruments.size());
+        checkInstrument(instruments.get(0), 36, "x---x---");
+        checkInstrument(instruments.get(1), 42, "-x-x-x--");
+        Files.delete(Paths.get(destination));
+    }
+
+    // EFFECTS: checks that every drum note on in sequence is followed by a note off for the same note a tick later
+    private void checkNoteOffs(Sequence sequence) {
+        int noteOns = 0;
+        for (Track track : sequence.getTracks()) {
+            for (int i = 0; i < track.size(); i++) {
+                MidiMessage message = track.get(i).getMessage();
+                if (message instanceof ShortMessage && ((ShortMessage) message).getCommand() == ShortMessage.NOTE_ON) {
+                    noteOns++;
+                    assertTrue(hasNoteOff(track, ((ShortMessage) message).getData1(), track.get(i).getTick() + 1));
+                }
+            }
+        }
+        assertEquals(5, noteOns);
+    }
+
+    // EFFECTS: returns true if track holds a note off for note at tick
+    private boolean hasNoteOff(Track track, int note, long tick) {
+        for (int i = 0; i < track.size(); i++) {
+            MidiMessage message = track.get(i).getMessage();
+            if (message instanceof ShortMessage && ((ShortMessage) message).getCommand() == ShortMessage.NOTE_OFF
+                    && ((ShortMessage) message).getData1() == note && track.get(i).getTick() == tick) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
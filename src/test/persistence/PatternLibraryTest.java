@@ -0,0 +1,180 @@
+package persistence;
+
+import model.DrumTrackList;
+import model.Instrument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatternLibraryTest extends JsonTest {
+    static final String FILE = "./data/testPatternLibrary.dpl";
+    PatternLibrary library;
+
+    @BeforeEach
+    void runBefore() throws Exception {
+        PatternLibraryWriter writer = new PatternLibraryWriter(FILE);
+        writer.open();
+        assertEquals(0, writer.add("house/four", Arrays.asList("house", "straight"),
+                beat(124, new Instrument(36, "x---x---x---x---"), new Instrument(42, "--x---x---x---x-"))));
+        assertEquals(1, writer.add("rock/basic", Collections.singletonList("rock"),
+                beat(100, new Instrument(36, "x-------x-------"), new Instrument(38, "----x-------x---"))));
+        assertEquals(2, writer.add("house/shuffle", Arrays.asList("house", "swing", "house"),
+                beat(122, new Instrument(36, "x--x--x--x--"))));
+        assertEquals(3, writer.add("empty", Collections.emptyList(), beat(60)));
+        assertEquals(4, writer.add("rock/basic", Collections.singletonList("rock"),
+                beat(140, new Instrument(38, "x-x-"))));
+        writer.close();
+        library = new PatternLibraryReader(FILE).load();
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(Paths.get(FILE));
+    }
+
+    @Test
+    void testEntries() throws Exception {
+        assertEquals(5, library.size());
+        assertEquals("house/shuffle", library.getName(2));
+        assertEquals(122, library.getBPM(2));
+        assertEquals(Arrays.asList("house", "swing"), library.getTags(2));
+        assertEquals(Collections.emptyList(), library.getTags(3));
+        assertThrows(IOException.class, () -> library.getName(5));
+    }
+
+    @Test
+    void testLoad() throws Exception {
+        DrumTrackList tracks = library.load(1);
+        assertEquals(100, tracks.getBPM());
+        List<Instrument> instruments = tracks.getInstruments();
+        assertEquals(2, instruments.size());
+        checkInstrument(instruments.get(0), 36, "x-------x-------");
+        checkInstrument(instruments.get(1), 38, "----x-------x---");
+        assertEquals(0, library.load(3).getInstruments().size());
+
+        BinaryProject project = library.getProject(0);
+        assertEquals(2, project.size());
+        assertEquals(42, project.getInstrumentNumber(1));
+    }
+
+    @Test
+    void testLoadStepsAndLanes() throws Exception {
+        DrumTrackList tracks = new DrumTrackList(90, 16, 6);
+        Instrument snare = new Instrument(38, "----x-------x--x");
+        snare.setVelocity(4, 100);
+        snare.setAccent(12, true);
+        snare.setProbability(15, 40);
+        snare.setOffset(12, 5);
+        tracks.addTrack(snare);
+        PatternLibraryWriter writer = new PatternLibraryWriter(FILE);
+        writer.open();
+        writer.add("funk/ghost", Collections.singletonList("funk"), tracks);
+        writer.close();
+
+        DrumTrackList loaded = new PatternLibraryReader(FILE).load().load(0);
+        assertEquals(90, loaded.getBPM());
+        assertEquals(16, loaded.getSteps());
+        assertEquals(6, loaded.getTicksPerStep());
+        assertEquals(snare.getPattern(), loaded.getInstruments().get(0).getPattern());
+    }
+
+    @Test
+    void testFindByName() throws Exception {
+        assertArrayEquals(new int[] {2}, library.findByName("house/shuffle"));
+        assertArrayEquals(new int[] {1, 4}, library.findByName("rock/basic"));
+        assertArrayEquals(new int[] {3}, library.findByName("empty"));
+        assertArrayEquals(new int[0], library.findByName("house"));
+        assertArrayEquals(new int[0], library.findByName("zzz"));
+        assertArrayEquals(new int[0], library.findByName(""));
+    }
+
+    @Test
+    void testFindByTag() throws Exception {
+        assertArrayEquals(new int[] {0, 2}, library.findByTag("house"));
+        assertArrayEquals(new int[] {1, 4}, library.findByTag("rock"));
+        assertArrayEquals(new int[] {2}, library.findByTag("swing"));
+        assertArrayEquals(new int[0], library.findByTag("jazz"));
+    }
+
+    @Test
+    void testFindByBpm() throws Exception {
+        assertArrayEquals(new int[] {0, 2}, library.findByBpm(120, 130));
+        assertArrayEquals(new int[] {1}, library.findByBpm(100, 100));
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, library.findByBpm(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertArrayEquals(new int[0], library.findByBpm(141, 200));
+        assertArrayEquals(new int[0], library.findByBpm(130, 120));
+    }
+
+    @Test
+    void testFindByInstruments() throws Exception {
+        assertArrayEquals(new int[] {0, 1, 2}, library.findByInstruments(36));
+        assertArrayEquals(new int[] {1}, library.findByInstruments(36, 38));
+        assertArrayEquals(new int[0], library.findByInstruments(36, 81));
+        assertArrayEquals(new int[0], library.findByInstruments(99));
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, library.findByInstruments());
+    }
+
+    @Test
+    void testIntersect() throws Exception {
+        assertArrayEquals(new int[] {2}, PatternLibrary.intersect(library.findByTag("house"),
+                library.findByBpm(110, 123)));
+        assertArrayEquals(new int[0], PatternLibrary.intersect(new int[] {1, 3}, new int[] {0, 2, 4}));
+    }
+
+    @Test
+    void testManyEntries() throws Exception {
+        PatternLibraryWriter writer = new PatternLibraryWriter(FILE);
+        writer.open();
+        for (int i = 0; i < 5000; i++) {
+            writer.add(String.format("beat%05d", 4999 - i), Collections.singletonList("tag" + i % 7),
+                    beat(60 + i % 120, new Instrument(35 + i % 47, "x-x-")));
+        }
+        writer.close();
+        library = new PatternLibraryReader(FILE).load();
+        assertEquals(5000, library.size());
+        assertArrayEquals(new int[] {4999 - 1234}, library.findByName("beat01234"));
+        assertEquals(714, library.findByTag("tag3").length);
+        assertEquals(42, library.findByBpm(100, 100).length);
+        assertEquals(107, library.findByInstruments(40).length);
+        checkInstrument(library.load(4321).getInstruments().get(0), 35 + 4321 % 47, "x-x-");
+    }
+
+    @Test
+    void testInvalidEntry() throws Exception {
+        PatternLibraryWriter writer = new PatternLibraryWriter(FILE);
+        writer.open();
+        char[] name = new char[Short.MAX_VALUE + 1];
+        Arrays.fill(name, 'x');
+        DrumTrackList tracks = beat(120, new Instrument(36, "x"));
+        assertThrows(IOException.class, () -> writer.add(new String(name), Collections.emptyList(), tracks));
+        writer.close();
+        assertEquals(0, new PatternLibraryReader(FILE).load().size());
+    }
+
+    @Test
+    void testNotLibrary() throws Exception {
+        assertThrows(IOException.class, () -> new PatternLibraryReader("./data/testReaderGeneralDrumTrackList.json")
+                .load());
+        byte[] bytes = Files.readAllBytes(Paths.get(FILE));
+        Files.write(Paths.get(FILE), Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> new PatternLibraryReader(FILE).load());
+    }
+
+    private DrumTrackList beat(int bpm, Instrument... instruments) throws Exception {
+        DrumTrackList tracks = new DrumTrackList(bpm, DrumTrackList.stepsFor(Arrays.asList(instruments)),
+                DrumTrackList.DEFAULT_TICKS_PER_STEP);
+        for (Instrument instrument : instruments) {
+            tracks.addTrack(instrument);
+        }
+        return tracks;
+    }
+}
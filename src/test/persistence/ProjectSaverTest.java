@@ -0,0 +1,119 @@
+package persistence;
+
+import model.DrumTrackList;
+import model.Instrument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectSaverTest extends JsonTest {
+    static final String FILE = "./data/testSaverDrumTrackList.json";
+    DrumTrackList tracks;
+
+    @BeforeEach
+    void init() throws Exception {
+        tracks = new DrumTrackList(100);
+        tracks.addTrack(new Instrument(36, "x---x---"));
+    }
+
+    @AfterEach
+    void deleteFiles() throws IOException {
+        Files.deleteIfExists(Paths.get(FILE));
+        Files.deleteIfExists(Paths.get(FILE + ".tmp"));
+    }
+
+    @Test
+    void testSave() throws Exception {
+        ProjectSaver saver = new ProjectSaver(FILE);
+        assertEquals("not saved yet", saver.summary());
+        saver.save(tracks.snapshot());
+        tracks.setBPM(80);
+        saver.flush();
+        saver.close();
+        assertEquals(1, saver.getSaves());
+        assertTrue(saver.summary().startsWith("1 saves for 1 changes"));
+        assertFalse(Files.exists(Paths.get(FILE + ".tmp")));
+
+        DrumTrackList read = new JsonReader(FILE).read();
+        assertEquals(100, read.getBPM());
+        checkInstrument(read.getInstruments().get(0), 36, "x---x---");
+    }
+
+    @Test
+    void testReplaceExisting() throws Exception {
+        Files.write(Paths.get(FILE), "not json".getBytes());
+        try (ProjectSaver saver = new ProjectSaver(FILE)) {
+            saver.save(tracks.snapshot());
+        }
+        assertEquals(100, new JsonReader(FILE).read().getBPM());
+    }
+
+    @Test
+    void testAutosaveCoalesces() throws Exception {
+        ProjectSaver saver = new ProjectSaver(FILE, 60000, 60000);
+        saver.attach(tracks);
+        for (int step = 0; step < 8; step++) {
+            tracks.getInstruments().get(0).setNote(step, true);
+        }
+        tracks.setBPM(140);
+        Thread.sleep(50);
+        assertFalse(Files.exists(Paths.get(FILE)));
+        assertEquals(9, saver.getRequests());
+
+        saver.flush();
+        assertEquals(1, saver.getSaves());
+        DrumTrackList read = new JsonReader(FILE).read();
+        assertEquals(140, read.getBPM());
+        checkInstrument(read.getInstruments().get(0), 36, "xxxxxxxx");
+
+        saver.detach();
+        tracks.setBPM(60);
+        saver.close();
+        assertEquals(1, saver.getSaves());
+        assertEquals(140, new JsonReader(FILE).read().getBPM());
+    }
+
+    @Test
+    void testAutosaveAfterQuiet() throws Exception {
+        ProjectSaver saver = new ProjectSaver(FILE, 10, 1000);
+        saver.attach(tracks);
+        tracks.setBPM(150);
+        for (int i = 0; i < 200 && saver.getSaves() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, saver.getSaves());
+        assertEquals(150, new JsonReader(FILE).read().getBPM());
+        saver.close();
+    }
+
+    @Test
+    void testCloseWritesPending() throws Exception {
+        ProjectSaver saver = new ProjectSaver(FILE, 60000, 60000);
+        saver.autosave(tracks.snapshot());
+        saver.close();
+        assertEquals(1, saver.getSaves());
+        assertEquals(100, new JsonReader(FILE).read().getBPM());
+    }
+
+    @Test
+    void testFailure() {
+        ProjectSaver saver = new ProjectSaver("./data/noSuchDirectory/tracks.json");
+        saver.save(tracks.snapshot());
+        assertThrows(IOException.class, saver::flush);
+        assertTrue(saver.summary().startsWith("save failed"));
+        assertEquals(0, saver.getSaves());
+        assertThrows(IOException.class, saver::close);
+    }
+
+    @Test
+    void testForceDirectory() {
+        ProjectSaver.forceDirectory(Paths.get("./data"));
+        ProjectSaver.forceDirectory(Paths.get("./data/noSuchDirectory"));
+    }
+}
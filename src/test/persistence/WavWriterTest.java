@@ -0,0 +1,50 @@
+package persistence;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WavWriterTest {
+
+    @Test
+    void testWriterInvalidFile() {
+        try {
+            new WavWriter(Paths.get("./data/no/such/directory/file.wav"), new AudioFormat(44100, 16, 2, true,
+                    false));
+            fail("IOException was expected");
+        } catch (IOException e) {
+            // pass
+        }
+    }
+
+    @Test
+    void testWriterHeader() throws Exception {
+        Path destination = Paths.get("./data/testWavWriter.wav");
+        AudioFormat format = new AudioFormat(22050, 16, 1, true, false);
+        try (WavWriter writer = new WavWriter(destination, format)) {
+            writer.write(new byte[] {1, 2, 3, 4, 5, 6}, 0, 6);
+            writer.write(new byte[] {7, 8, 9, 10}, 2, 2);
+            assertEquals(8, writer.getDataSize());
+        }
+
+        assertEquals(52, Files.size(destination));
+        try (AudioInputStream audio = AudioSystem.getAudioInputStream(new File(destination.toString()))) {
+            assertEquals(22050, audio.getFormat().getSampleRate());
+            assertEquals(1, audio.getFormat().getChannels());
+            assertEquals(4, audio.getFrameLength());
+            byte[] data = new byte[8];
+            assertEquals(8, audio.read(data));
+            assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6, 9, 10}, data);
+        }
+        Files.delete(destination);
+    }
+}
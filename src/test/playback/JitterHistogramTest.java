@@ -0,0 +1,81 @@
+package playback;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JitterHistogramTest {
+    JitterHistogram histogram;
+
+    @BeforeEach
+    public void init() {
+        histogram = new JitterHistogram(5_000_000);
+    }
+
+    @Test
+    public void emptyTest() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMissedDeadlines());
+        assertEquals(0, histogram.getPercentileMillis(99));
+        assertEquals(0, histogram.getMaxMillis());
+    }
+
+    @Test
+    public void percentileTest() {
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(0, i * 100_000L);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(10.0, histogram.getMaxMillis());
+        assertEquals(5.0, histogram.getPercentileMillis(50), 5.0 * 0.07);
+        assertEquals(9.9, histogram.getPercentileMillis(99), 9.9 * 0.07);
+        assertEquals(10.0, histogram.getPercentileMillis(100));
+    }
+
+    @Test
+    public void exactBelowThirtyTwoMicrosTest() {
+        histogram.record(1000, 1000 + 7_000);
+        histogram.record(1000, 1000 + 20_000);
+        assertEquals(0.008, histogram.getPercentileMillis(50), 1e-9);
+        assertEquals(0.020, histogram.getPercentileMillis(100), 1e-9);
+    }
+
+    @Test
+    public void earlyTest() {
+        histogram.record(2_000_000, 0);
+        assertEquals(2.0, histogram.getMaxMillis());
+        assertEquals(0, histogram.getMissedDeadlines());
+    }
+
+    @Test
+    public void missedTest() {
+        histogram.record(0, 4_000_000);
+        histogram.record(0, 6_000_000);
+        histogram.recordSkipped(3);
+        assertEquals(4, histogram.getMissedDeadlines());
+        histogram.reset();
+        assertEquals(0, histogram.getMissedDeadlines());
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxMillis());
+    }
+
+    @Test
+    public void dumpTest() throws Exception {
+        histogram.record(0, 10_000);
+        histogram.record(0, 10_000);
+        histogram.record(0, 3_000_000);
+        Path file = Paths.get("./data/testJitter.txt");
+        histogram.dump(file);
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(histogram.summary(), lines.get(0));
+        assertEquals("10 11 2", lines.get(1));
+        assertEquals(3, lines.size());
+        Files.delete(file);
+    }
+}
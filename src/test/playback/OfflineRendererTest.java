@@ -0,0 +1,30 @@
+package playback;
+
+import model.DrumTrackList;
+import model.Instrument;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class OfflineRendererTest {
+
+    @Test
+    void testRenderLoops() throws Exception {
+        // rendering needs --add-exports java.desktop/com.sun.media.sound=ALL-UNNAMED
+        assumeTrue(OfflineRenderer.isSupported());
+        DrumTrackList tracks = new DrumTrackList(120);
+        tracks.addTrack(new Instrument(36, "x---x---"));
+        Path destination = Paths.get("./data/testRenderer.wav");
+
+        // 8 sixteenth notes at 120 bpm last one second, and one second of tail is added after the last loop
+        long frames = new OfflineRenderer().render(tracks, 2, destination);
+        assertEquals(3 * 44100, frames);
+        assertEquals(44 + frames * 4, Files.size(destination));
+        Files.delete(destination);
+    }
+}
@@ -0,0 +1,59 @@
+package playback;
+
+import model.DrumTrackList;
+import model.Instrument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.midi.ShortMessage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SequenceCursorTest {
+    DrumTrackList tracks;
+
+    @BeforeEach
+    public void init() throws Exception {
+        tracks = new DrumTrackList(120);
+        tracks.addTrack(new Instrument(36, "x---x---"));
+        tracks.addTrack(new Instrument(42, "--x---x-"));
+    }
+
+    @Test
+    public void orderTest() {
+        SequenceCursor cursor = new SequenceCursor(tracks.getSequence(), 1);
+        assertEquals(8, cursor.getLoopTicks());
+        long[] ticks = {0, 2, 4, 6};
+        int[] notes = {36, 42, 36, 42};
+        for (int i = 0; i < ticks.length; i++) {
+            assertTrue(cursor.hasNext());
+            assertEquals(ticks[i], cursor.nextTick());
+            assertEquals(notes[i], ((ShortMessage) cursor.next()).getData1());
+        }
+        assertFalse(cursor.hasNext());
+    }
+
+    @Test
+    public void loopTest() {
+        SequenceCursor cursor = new SequenceCursor(tracks.getSequence(), 3);
+        int count = 0;
+        long lastTick = -1;
+        while (cursor.hasNext()) {
+            assertTrue(cursor.nextTick() > lastTick);
+            lastTick = cursor.nextTick();
+            cursor.next();
+            count++;
+        }
+        assertEquals(12, count);
+        assertEquals(22, lastTick);
+    }
+
+    @Test
+    public void emptyTest() throws Exception {
+        SequenceCursor cursor = new SequenceCursor(new DrumTrackList(90).getSequence(), 5);
+        assertFalse(cursor.hasNext());
+        tracks.getInstruments().get(0).setInstrumentNotes("----");
+        tracks.getInstruments().get(1).setInstrumentNotes("----");
+        assertFalse(new SequenceCursor(tracks.getSequence(), 5).hasNext());
+    }
+}
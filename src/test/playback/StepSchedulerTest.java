@@ -0,0 +1,221 @@
+package playback;
+
+import model.DrumTrackList;
+import model.Instrument;
+import model.StepPattern;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.ShortMessage;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StepSchedulerTest {
+    List<Integer> notes;
+    List<Integer> velocities;
+    StepScheduler scheduler;
+    DrumTrackList tracks;
+
+    @BeforeEach
+    public void init() throws Exception {
+        notes = new ArrayList<>();
+        velocities = new ArrayList<>();
+        scheduler = new StepScheduler(new Receiver() {
+            @Override
+            public void send(MidiMessage message, long timeStamp) {
+                synchronized (notes) {
+                    notes.add(((ShortMessage) message).getData1());
+                    velocities.add(((ShortMessage) message).getData2());
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        tracks = new DrumTrackList(300, 4, DrumTrackList.DEFAULT_TICKS_PER_STEP);
+        tracks.addTrack(new Instrument(36, "x-x-"));
+        tracks.addTrack(new Instrument(42, "-x"));
+    }
+
+    @Test
+    public void playTest() throws Exception {
+        scheduler.load(tracks);
+        assertFalse(scheduler.isRunning());
+        scheduler.play();
+        assertTrue(scheduler.isRunning());
+        Thread.sleep(500);
+        scheduler.stop();
+        assertFalse(scheduler.isRunning());
+        assertTrue(scheduler.getJitter().getCount() >= 3);
+        synchronized (notes) {
+            assertTrue(notes.size() >= 3);
+            assertEquals(36, notes.get(0));
+            assertEquals(42, notes.get(1));
+            assertEquals(36, notes.get(2));
+        }
+    }
+
+    @Test
+    public void playingStepTest() throws Exception {
+        scheduler.load(tracks);
+        assertEquals(-1, scheduler.getPlayingStep());
+        scheduler.play();
+        boolean[] seen = new boolean[4];
+        for (int i = 0; i < 100; i++) {
+            int step = scheduler.getPlayingStep();
+            assertTrue(step >= -1 && step < 4, "step " + step);
+            if (step >= 0) {
+                seen[step] = true;
+            }
+            Thread.sleep(10);
+        }
+        scheduler.stop();
+        assertEquals(-1, scheduler.getPlayingStep());
+        assertTrue(seen[0] && seen[1] && seen[2] && seen[3]);
+    }
+
+    @Test
+    public void liveEditTest() throws Exception {
+        scheduler.load(tracks);
+        scheduler.play();
+        Thread.sleep(100);
+        tracks.removeTrack(1);
+        tracks.removeTrack(0);
+        tracks.addTrack(new Instrument(49, "xxxx"));
+        int sent;
+        synchronized (notes) {
+            sent = notes.size();
+        }
+        Thread.sleep(200);
+        scheduler.stop();
+        synchronized (notes) {
+            List<Integer> after = notes.subList(sent + 1, notes.size());
+            assertFalse(after.isEmpty());
+            for (int note : after) {
+                assertEquals(49, note);
+            }
+        }
+    }
+
+    @Test
+    public void loadFollowsNewTracksTest() throws Exception {
+        scheduler.load(tracks);
+        DrumTrackList other = new DrumTrackList(300);
+        scheduler.load(other);
+        other.addTrack(new Instrument(38, "x"));
+        tracks.removeTrack(0);
+        tracks.removeTrack(0);
+        scheduler.play();
+        Thread.sleep(100);
+        scheduler.stop();
+        synchronized (notes) {
+            assertFalse(notes.isEmpty());
+            for (int note : notes) {
+                assertEquals(38, note);
+            }
+        }
+    }
+
+    @Test
+    public void lanesTest() throws Exception {
+        DrumTrackList lanes = new DrumTrackList(300, 4, 24);
+        Instrument kick = new Instrument(36, "x-x-");
+        kick.setVelocity(0, 40);
+        kick.setAccent(0, true);
+        kick.setOffset(2, -12);
+        Instrument hat = new Instrument(42, "xxxx");
+        hat.setProbability(0, 0);
+        hat.setProbability(1, 0);
+        hat.setProbability(2, 0);
+        hat.setProbability(3, 0);
+        lanes.addTrack(kick);
+        lanes.addTrack(hat);
+        scheduler.load(lanes);
+        scheduler.play();
+        Thread.sleep(300);
+        scheduler.stop();
+        synchronized (notes) {
+            assertTrue(notes.size() >= 4);
+            for (int i = 0; i < notes.size(); i++) {
+                assertEquals(36, notes.get(i));
+                assertEquals(i % 2 == 0 ? 40 + StepPattern.ACCENT_BOOST : DrumTrackList.VELOCITY, velocities.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void followsTempoTest() throws Exception {
+        scheduler.load(tracks);
+        scheduler.play();
+        Thread.sleep(100);
+        tracks.setBPM(15);
+        Thread.sleep(100);
+        int sent;
+        synchronized (notes) {
+            sent = notes.size();
+        }
+        Thread.sleep(400);
+        scheduler.stop();
+        synchronized (notes) {
+            assertEquals(sent, notes.size());
+        }
+    }
+
+    @Test
+    public void nonPositiveTempoTest() throws Exception {
+        for (int bpm : new int[] {0, -60}) {
+            tracks.setBPM(bpm);
+            scheduler.load(tracks);
+            scheduler.play();
+            Thread.sleep(100);
+            scheduler.setTempo(bpm);
+            Thread.sleep(100);
+            scheduler.stop();
+            synchronized (notes) {
+                assertEquals(List.of(36), notes);
+                notes.clear();
+            }
+        }
+    }
+
+    @Test
+    public void jitterPerNoteTest() throws Exception {
+        DrumTrackList lanes = new DrumTrackList(300, 4, 24);
+        Instrument kick = new Instrument(36, "xx--");
+        kick.setOffset(1, 12);
+        Instrument hat = new Instrument(42, "x-xx");
+        hat.setProbability(3, 0);
+        lanes.addTrack(kick);
+        lanes.addTrack(hat);
+        scheduler.load(lanes);
+        scheduler.play();
+        Thread.sleep(300);
+        scheduler.stop();
+        synchronized (notes) {
+            assertTrue(notes.size() >= 4);
+            assertEquals(notes.size(), scheduler.getJitter().getCount());
+        }
+    }
+
+    @Test
+    public void stopTest() throws Exception {
+        scheduler.load(tracks);
+        scheduler.play();
+        Thread.sleep(100);
+        scheduler.stop();
+        int sent;
+        synchronized (notes) {
+            sent = notes.size();
+        }
+        Thread.sleep(200);
+        synchronized (notes) {
+            assertEquals(sent, notes.size());
+        }
+        scheduler.stop();
+    }
+}
@@ -0,0 +1,54 @@
+package ui;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import playback.OfflineRenderer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class BatchConverterTest {
+    private static final String BEAT = "{\"instruments\": [{\"number\": 36, \"notes\": \"x---x---\"}], \"bpm\": 120}";
+
+    @TempDir
+    Path root;
+
+    @BeforeEach
+    void init() throws IOException {
+        Files.createDirectories(root.resolve("nested/deeper"));
+        Files.writeString(root.resolve("top.json"), BEAT);
+        Files.writeString(root.resolve("nested/deeper/inner.json"), BEAT);
+        Files.writeString(root.resolve("nested/bad.json"), "{\"instruments\": [");
+        Files.writeString(root.resolve("nested/notes.txt"), BEAT);
+    }
+
+    @Test
+    void testConvertMidi() throws Exception {
+        assertEquals(1, new BatchConverter(BatchConverter.MIDI, 1, 2).convertAll(root));
+        assertTrue(Files.size(root.resolve("top.mid")) > 0);
+        assertTrue(Files.size(root.resolve("nested/deeper/inner.mid")) > 0);
+        assertFalse(Files.exists(root.resolve("nested/bad.mid")));
+        assertFalse(Files.exists(root.resolve("nested/notes.mid")));
+    }
+
+    @Test
+    void testConvertWav() throws Exception {
+        // rendering needs --add-exports java.desktop/com.sun.media.sound=ALL-UNNAMED
+        assumeTrue(OfflineRenderer.isSupported());
+        assertEquals(1, new BatchConverter(BatchConverter.WAV, 1, 2).convertAll(root));
+        assertTrue(Files.size(root.resolve("top.wav")) > 44);
+        assertTrue(Files.size(root.resolve("nested/deeper/inner.wav")) > 44);
+        assertFalse(Files.exists(root.resolve("nested/bad.wav")));
+    }
+
+    @Test
+    void testNotADirectory() {
+        BatchConverter converter = new BatchConverter(BatchConverter.MIDI, 1, 1);
+        assertThrows(IOException.class, () -> converter.convertAll(root.resolve("top.json")));
+    }
+}